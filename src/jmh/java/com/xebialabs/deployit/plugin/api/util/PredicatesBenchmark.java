@@ -0,0 +1,97 @@
+/*
+ * @(#)PredicatesBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Predicate;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Descriptor;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
+
+/**
+ * Measures constructing and evaluating {@link Predicates#subtypeOf(Type)} against
+ * a synthetic registry of {@code typeCount} types, each subtyping a random earlier 
+ * one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PredicatesBenchmark {
+    @Param({ "100", "1000", "10000" })
+    public int typeCount;
+
+    private Type[] types;
+    private Predicate<Type> subtypeOfBase;
+    private Predicate<Type> subtypeOfLeaf;
+
+    @Setup
+    public void registerTypes() {
+        PluginBooter.bootWithoutGlobalContext();
+        Descriptor[] descriptors = new Descriptor[typeCount];
+        descriptors[0] = DescriptorRegistry.getDescriptor(
+                Type.valueOf(BaseDeployableFileArtifact.class));
+        Random random = new Random(42);
+        for (int i = 1; i < typeCount; i++) {
+            descriptors[i] = new Descriptor(Type.valueOf("benchmark.Type" + i), 
+                    descriptors[random.nextInt(i)]);
+            DescriptorRegistry.register(descriptors[i]);
+        }
+        types = new Type[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            types[i] = descriptors[i].getType();
+        }
+        subtypeOfBase = Predicates.subtypeOf(types[0]);
+        subtypeOfLeaf = Predicates.subtypeOf(types[typeCount - 1]);
+    }
+
+    @Benchmark
+    public Predicate<Type> construct() {
+        return Predicates.subtypeOf(types[typeCount / 2]);
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        for (Type type : types) {
+            blackhole.consume(subtypeOfBase.apply(type));
+            blackhole.consume(subtypeOfLeaf.apply(type));
+        }
+    }
+}
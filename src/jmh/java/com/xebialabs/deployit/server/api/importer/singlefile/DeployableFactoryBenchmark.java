@@ -0,0 +1,79 @@
+/*
+ * @(#)DeployableFactoryBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static java.lang.String.format;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
+
+/**
+ * Compares creating a file artifact as {@link SingleFileImporter} used to, looking 
+ * up the descriptor and formatting the ID each time, with a {@link 
+ * DeployableFactory}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeployableFactoryBenchmark {
+    private static final Type TYPE = Type.valueOf(BaseDeployableFileArtifact.class);
+    private static final String PACKAGE_ID = "Applications/app/1.2.3";
+    private static final String NAME = "app";
+
+    private DeployableFactory factory;
+
+    @Setup
+    public void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+        factory = new DeployableFactory();
+    }
+
+    @Benchmark
+    public BaseDeployableFileArtifact uncached() {
+        BaseDeployableFileArtifact artifact = 
+            DescriptorRegistry.getDescriptor(TYPE).newInstance();
+        artifact.setId(format("%s/%s", PACKAGE_ID, NAME));
+        return artifact;
+    }
+
+    @Benchmark
+    public BaseDeployableFileArtifact factory() {
+        return factory.newInstance(TYPE, DeployableFactory.childId(PACKAGE_ID, NAME));
+    }
+}
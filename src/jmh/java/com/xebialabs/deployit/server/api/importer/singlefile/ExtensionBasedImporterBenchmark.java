@@ -0,0 +1,78 @@
+/*
+ * @(#)ExtensionBasedImporterBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
+
+/**
+ * Measures {@link ExtensionBasedImporter#isSupportedFile(File)} over a mix of 
+ * matching and non-matching file names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExtensionBasedImporterBenchmark {
+    private static final File[] FILES = { new File("app-1.0.ear"), new File("APP-1.0.EAR"), 
+        new File("app-1.0.war"), new File("dir.ear/readme"), new File("ear"), 
+        new File("/import/group/app-2.0.ear") };
+
+    private ExtensionBasedImporter importer;
+
+    static class EarImporter extends ExtensionBasedImporter {
+
+        EarImporter() {
+            super("ear", Type.valueOf(BaseDeployableFileArtifact.class));
+        }
+    }
+
+    @Setup
+    public void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+        importer = new EarImporter();
+    }
+
+    @Benchmark
+    public void isSupportedFile(Blackhole blackhole) {
+        for (File file : FILES) {
+            blackhole.consume(importer.isSupportedFile(file));
+        }
+    }
+}
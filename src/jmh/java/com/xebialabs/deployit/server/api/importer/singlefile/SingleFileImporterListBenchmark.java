@@ -0,0 +1,99 @@
+/*
+ * @(#)SingleFileImporterListBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.Files;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.server.api.importer.singlefile.ExtensionBasedImporterBenchmark.EarImporter;
+
+/**
+ * Measures {@link SingleFileImporter#list(File)} over a synthetic directory of
+ * empty files, one in ten of which is supported, with and without {@link 
+ * SingleFileImporter#isIncrementalListingEnabled() incremental listing}. The
+ * directory does not change between listings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SingleFileImporterListBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int fileCount;
+
+    @Param({ "false", "true" })
+    public boolean incremental;
+
+    private File directory;
+    private SingleFileImporter importer;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        PluginBooter.bootWithoutGlobalContext();
+        importer = (incremental ? new IncrementalEarImporter() : new EarImporter());
+        directory = Files.createTempDir();
+        for (int i = 0; i < fileCount; i++) {
+            String extension = ((i % 10 == 0) ? "ear" : "txt");
+            new File(directory, String.format("app%d-1.%d.%s", i, i % 7, extension))
+                .createNewFile();
+        }
+        // as for a directory that has not changed recently
+        directory.setLastModified(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<String> list() {
+        return importer.list(directory);
+    }
+
+    static class IncrementalEarImporter extends EarImporter {
+
+        @Override
+        protected boolean isIncrementalListingEnabled() {
+            return true;
+        }
+    }
+}
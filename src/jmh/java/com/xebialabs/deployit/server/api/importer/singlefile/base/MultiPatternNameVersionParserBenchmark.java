@@ -0,0 +1,97 @@
+/*
+ * @(#)MultiPatternNameVersionParserBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableList;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.MultiPatternNameVersionParser.Rule;
+
+/**
+ * Compares classifying a mix of file names with a {@link MultiPatternNameVersionParser}
+ * against trying each rule's regex in turn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultiPatternNameVersionParserBenchmark {
+    private static final List<Rule> RULES = ImmutableList.of(
+            new Rule("snapshot-war", "(\\w+?)_([\\d.]+-SNAPSHOT)\\.war"),
+            new Rule("underscored-war", "(\\w+?)_([\\d.]+)\\.war"),
+            new Rule("grouped-ear", "\\w+\\.(\\w+)-([\\d.]+)\\.ear"),
+            new Rule("dashed-ear", "(\\w+)-([\\d.]+)\\.ear"),
+            new Rule("dashed-jar", "(\\w+)-([\\d.]+)\\.jar"),
+            new Rule("dashed-zip", "(\\w+)-([\\d.]+)\\.zip"),
+            new Rule("name-only", "([\\w.-]+)\\.\\w+"));
+    private static final String[] FILENAMES = { "app-1.2.3.ear", "app_1.2.3-SNAPSHOT.war",
+        "group.app-1.2.ear", "app_1.2.war", "lib-4.0.jar", "bundle-2.zip", "readme.txt" };
+
+    private MultiPatternNameVersionParser multiPatternParser;
+    private Pattern[] patterns;
+
+    @Setup
+    public void compile() {
+        multiPatternParser = new MultiPatternNameVersionParser(RULES);
+        patterns = new Pattern[RULES.size()];
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = Pattern.compile(RULES.get(i).nameVersionRegex);
+        }
+    }
+
+    @Benchmark
+    public void sequential(Blackhole blackhole) {
+        for (String filename : FILENAMES) {
+            for (int i = 0; i < patterns.length; i++) {
+                Matcher matcher = patterns[i].matcher(filename);
+                if (matcher.matches()) {
+                    blackhole.consume(RULES.get(i).id);
+                    blackhole.consume(matcher.group(1));
+                    break;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void multiPattern(Blackhole blackhole) {
+        for (String filename : FILENAMES) {
+            blackhole.consume(multiPatternParser.classify(filename, ""));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * @(#)NameVersionParserBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser;
+
+/**
+ * Measures {@link NameVersionParser#parse(String, String)} over a mix of file 
+ * names, using the default pattern and a custom one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NameVersionParserBenchmark {
+    private static final String[] FILENAMES = { "app-1.2.3.ear", "app-v2.war", 
+        "my-service-1.0-SNAPSHOT.jar", "app_1.2.war", "app.ear", "readme" };
+
+    private final NameVersionParser defaultParser = new NameVersionParser();
+    private final NameVersionParser customParser = 
+        new NameVersionParser("([\\w-]+?)[_-]([\\d.]+(?:-SNAPSHOT)?)\\.\\w+");
+
+    @Benchmark
+    public void defaultPattern(Blackhole blackhole) {
+        for (String filename : FILENAMES) {
+            blackhole.consume(defaultParser.parse(filename, "1.0"));
+        }
+    }
+
+    @Benchmark
+    public void customPattern(Blackhole blackhole) {
+        for (String filename : FILENAMES) {
+            blackhole.consume(customParser.parse(filename, "1.0"));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * @(#)TreeDigesterBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares sequential SHA-256 digesting with {@link TreeDigester} for increasing
+ * degrees of parallelism. Throughput in bytes per second is the reported rate
+ * multiplied by {@code fileSizeMb}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TreeDigesterBenchmark {
+    @Param({ "1", "2", "4", "8" })
+    public int parallelism;
+
+    @Param({ "512" })
+    public int fileSizeMb;
+
+    private File file;
+    private ForkJoinPool pool;
+    private ContentDigester sequentialDigester;
+    private TreeDigester treeDigester;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        file = File.createTempFile("tree-digester", ".bin");
+        byte[] block = new byte[1024 * 1024];
+        new Random(42).nextBytes(block);
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            for (int i = 0; i < fileSizeMb; i++) {
+                out.write(block);
+            }
+        } finally {
+            out.close();
+        }
+        pool = new ForkJoinPool(parallelism);
+        sequentialDigester = new ContentDigester();
+        treeDigester = new TreeDigester(pool, TreeDigester.DEFAULT_CHUNK_SIZE, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() {
+        pool.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public ContentDigest sequential() throws IOException {
+        return sequentialDigester.digest(file);
+    }
+
+    @Benchmark
+    public ContentDigest tree() throws IOException {
+        return treeDigester.digest(file);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * @(#)PluginBooter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.boot;
+
+import com.xebialabs.deployit.plugin.api.reflect.Descriptor;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
+
+/**
+ * Benchmark stand-in for the Deployit plugin booter, registering only the base
+ * file artifact type.
+ */
+public class PluginBooter {
+
+    public static void bootWithoutGlobalContext() {
+        DescriptorRegistry.register(new Descriptor(BaseDeployableFileArtifact.class, 
+                "checksum"));
+    }
+}
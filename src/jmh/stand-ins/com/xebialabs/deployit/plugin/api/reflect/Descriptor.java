@@ -0,0 +1,113 @@
+/*
+ * @(#)Descriptor.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.reflect;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.xebialabs.deployit.plugin.api.udm.ConfigurationItem;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseConfigurationItem;
+
+/**
+ * Benchmark stand-in for the Deployit descriptor. Descriptors of synthetic types
+ * create instances of their supertype's class; properties are stored as synthetic
+ * properties.
+ */
+public class Descriptor {
+    private final Type type;
+    private final Class<?> clazz;
+    private final Descriptor superDescriptor;
+    private final Map<String, PropertyDescriptor> propertyDescriptors = Maps.newHashMap();
+
+    public Descriptor(Class<?> clazz, String... propertyNames) {
+        this(Type.valueOf(clazz), clazz, null, propertyNames);
+    }
+
+    public Descriptor(Type type, Descriptor superDescriptor, String... propertyNames) {
+        this(type, superDescriptor.clazz, superDescriptor, propertyNames);
+    }
+
+    private Descriptor(Type type, Class<?> clazz, Descriptor superDescriptor, 
+            String... propertyNames) {
+        this.type = type;
+        this.clazz = clazz;
+        this.superDescriptor = superDescriptor;
+        for (String propertyName : propertyNames) {
+            propertyDescriptors.put(propertyName, new SyntheticPropertyDescriptor(propertyName));
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public PropertyDescriptor getPropertyDescriptor(String name) {
+        return propertyDescriptors.get(name);
+    }
+
+    public Collection<PropertyDescriptor> getPropertyDescriptors() {
+        return propertyDescriptors.values();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T newInstance() {
+        try {
+            BaseConfigurationItem instance = (BaseConfigurationItem) clazz.newInstance();
+            instance.setType(type);
+            return (T) instance;
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    boolean isSubtypeOf(Descriptor descriptor) {
+        if (superDescriptor != null) {
+            return (superDescriptor == descriptor) || superDescriptor.isSubtypeOf(descriptor);
+        }
+        // class-based descriptors only
+        return (descriptor.superDescriptor == null) && (descriptor != this)
+                && descriptor.clazz.isAssignableFrom(clazz);
+    }
+
+    private static class SyntheticPropertyDescriptor implements PropertyDescriptor {
+        private final String name;
+
+        private SyntheticPropertyDescriptor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object get(ConfigurationItem item) {
+            return ((BaseConfigurationItem) item).getSyntheticProperty(name);
+        }
+
+        @Override
+        public void set(ConfigurationItem item, Object value) {
+            ((BaseConfigurationItem) item).putSyntheticProperty(name, value);
+        }
+    }
+}
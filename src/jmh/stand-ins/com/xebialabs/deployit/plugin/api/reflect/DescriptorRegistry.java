@@ -0,0 +1,66 @@
+/*
+ * @(#)DescriptorRegistry.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.reflect;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Benchmark stand-in for the Deployit descriptor registry, populated using
+ * {@link #register(Descriptor)} rather than by scanning for plugins.
+ */
+public class DescriptorRegistry {
+    private static final Map<Type, Descriptor> DESCRIPTORS = Maps.newLinkedHashMap();
+
+    public static synchronized void register(Descriptor descriptor) {
+        DESCRIPTORS.put(descriptor.getType(), descriptor);
+    }
+
+    public static synchronized Descriptor getDescriptor(Type type) {
+        Descriptor descriptor = DESCRIPTORS.get(type);
+        if (descriptor == null) {
+            throw new IllegalArgumentException(String.format("Unknown type '%s'", type));
+        }
+        return descriptor;
+    }
+
+    public static synchronized Collection<Descriptor> getDescriptors() {
+        return Collections.unmodifiableCollection(DESCRIPTORS.values());
+    }
+
+    public static synchronized Collection<Type> getSubtypes(Type type) {
+        Set<Type> subtypes = Sets.newHashSet();
+        Descriptor descriptor = DESCRIPTORS.get(type);
+        if (descriptor != null) {
+            for (Descriptor other : DESCRIPTORS.values()) {
+                if (other.isSubtypeOf(descriptor)) {
+                    subtypes.add(other.getType());
+                }
+            }
+        }
+        return subtypes;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * @(#)BaseConfigurationItem.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.udm.base;
+
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.ConfigurationItem;
+
+/**
+ * Benchmark stand-in for the Deployit base configuration item.
+ */
+public class BaseConfigurationItem implements ConfigurationItem {
+    private String id;
+    private Type type;
+    private final Map<String, Object> syntheticProperties = Maps.newHashMap();
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getName() {
+        return id.substring(id.lastIndexOf('/') + 1);
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getSyntheticProperty(String name) {
+        return (T) syntheticProperties.get(name);
+    }
+
+    public void putSyntheticProperty(String name, Object value) {
+        syntheticProperties.put(name, value);
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
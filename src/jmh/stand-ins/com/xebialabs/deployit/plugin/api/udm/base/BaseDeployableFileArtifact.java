@@ -0,0 +1,39 @@
+/*
+ * @(#)BaseDeployableFileArtifact.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.udm.base;
+
+import com.xebialabs.deployit.plugin.api.udm.Deployable;
+import com.xebialabs.overthere.OverthereFile;
+
+/**
+ * Benchmark stand-in for the Deployit base file artifact.
+ */
+public class BaseDeployableFileArtifact extends BaseConfigurationItem implements Deployable {
+    private OverthereFile file;
+
+    public OverthereFile getFile() {
+        return file;
+    }
+
+    public void setFile(OverthereFile file) {
+        this.file = file;
+    }
+}
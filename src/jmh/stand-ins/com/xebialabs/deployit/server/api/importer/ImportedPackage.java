@@ -0,0 +1,65 @@
+/*
+ * @(#)ImportedPackage.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.xebialabs.deployit.plugin.api.udm.ConfigurationItem;
+import com.xebialabs.deployit.plugin.api.udm.Deployable;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseConfigurationItem;
+
+/**
+ * Benchmark stand-in for the Deployit imported package.
+ */
+public class ImportedPackage {
+    private final PackageInfo packageInfo;
+    private final BaseConfigurationItem application = new BaseConfigurationItem();
+    private final BaseConfigurationItem deploymentPackage = new BaseConfigurationItem();
+    private final List<Deployable> deployables = Lists.newArrayList();
+
+    public ImportedPackage(PackageInfo packageInfo) {
+        this.packageInfo = packageInfo;
+        application.setId("Applications/" + packageInfo.getApplicationName());
+        deploymentPackage.setId(application.getId() + "/" 
+                + packageInfo.getApplicationVersion());
+    }
+
+    public PackageInfo getPackageInfo() {
+        return packageInfo;
+    }
+
+    public ConfigurationItem getApplication() {
+        return application;
+    }
+
+    public ConfigurationItem getDeploymentPackage() {
+        return deploymentPackage;
+    }
+
+    public void addDeployable(Deployable deployable) {
+        deployables.add(deployable);
+    }
+
+    public List<Deployable> getDeployables() {
+        return deployables;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * @(#)PackageInfo.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer;
+
+/**
+ * Benchmark stand-in for the Deployit package info.
+ */
+public class PackageInfo {
+    private final ImportSource source;
+    private String applicationName;
+    private String applicationVersion;
+
+    public PackageInfo(ImportSource source) {
+        this.source = source;
+    }
+
+    public ImportSource getSource() {
+        return source;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public void setApplicationName(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    public String getApplicationVersion() {
+        return applicationVersion;
+    }
+
+    public void setApplicationVersion(String applicationVersion) {
+        this.applicationVersion = applicationVersion;
+    }
+
+    @Override
+    public String toString() {
+        return applicationName + "/" + applicationVersion;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * @(#)JvmMonitor.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.PhaseStatistics;
+
+/**
+ * Records GC pauses, from the JVM's GC notifications, and the rate at which the
+ * whole JVM allocates on the heap. Collections by collectors that run concurrently
+ * with the application (e.g. "G1 Concurrent GC") are not counted as pauses. GC 
+ * durations are only reported to the millisecond.
+ * <p>
+ * The bytes allocated since a reset are the growth in heap usage plus the bytes
+ * freed by every collection since, so allocations by all threads are counted,
+ * including threads that have terminated.
+ */
+class JvmMonitor implements NotificationListener {
+    private final PhaseStatistics gcPauses = new PhaseStatistics();
+    private final List<NotificationEmitter> emitters = Lists.newArrayList();
+    private final List<MemoryPoolMXBean> heapPools = Lists.newArrayList();
+    private final Set<String> heapPoolNames = Sets.newHashSet();
+    // updated from the JVM's notification thread
+    private final AtomicLong freedBytes = new AtomicLong();
+
+    private long allocatedBytesAtReset;
+    private long resetNanos = System.nanoTime();
+    // frozen when stopped
+    private double allocationBytesPerSecond = Double.NaN;
+
+    JvmMonitor() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+                heapPoolNames.add(pool.getName());
+            }
+        }
+    }
+
+    void start() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Stops recording, freezing the allocation rate.
+     */
+    void stop() {
+        if (Double.isNaN(allocationBytesPerSecond)) {
+            allocationBytesPerSecond = measureAllocationRate();
+        }
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException exception) {
+                // already removed
+            }
+        }
+        emitters.clear();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+                notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        freedBytes.addAndGet(getFreedBytes(info.getGcInfo().getMemoryUsageBeforeGc(),
+                info.getGcInfo().getMemoryUsageAfterGc()));
+        String collector = info.getGcName();
+        if (collector.contains("Concurrent") || collector.contains("Cycles")) {
+            return;
+        }
+        gcPauses.record(TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration()), 0,
+                false);
+    }
+
+    // promotions between heap pools cancel out
+    private long getFreedBytes(Map<String, MemoryUsage> before, Map<String, MemoryUsage> after) {
+        long freed = 0;
+        for (Map.Entry<String, MemoryUsage> pool : before.entrySet()) {
+            MemoryUsage usageAfter = after.get(pool.getKey());
+            if (heapPoolNames.contains(pool.getKey()) && (usageAfter != null)) {
+                freed += pool.getValue().getUsed() - usageAfter.getUsed();
+            }
+        }
+        return freed;
+    }
+
+    void reset() {
+        gcPauses.reset();
+        allocatedBytesAtReset = getAllocatedBytes();
+        resetNanos = System.nanoTime();
+    }
+
+    PhaseStatistics getGcPauses() {
+        return gcPauses;
+    }
+
+    /**
+     * @return the bytes allocated on the heap per second since the last reset
+     */
+    double getAllocationBytesPerSecond() {
+        return (Double.isNaN(allocationBytesPerSecond)
+                ? measureAllocationRate()
+                : allocationBytesPerSecond);
+    }
+
+    private double measureAllocationRate() {
+        double seconds = (System.nanoTime() - resetNanos)
+            / (double) TimeUnit.SECONDS.toNanos(1);
+        return ((seconds > 0) ? (getAllocatedBytes() - allocatedBytesAtReset) / seconds : 0);
+    }
+
+    private long getAllocatedBytes() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            used += pool.getUsage().getUsed();
+        }
+        return used + freedBytes.get();
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * @(#)LoadTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.load;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.server.api.importer.ImportSource;
+import com.xebialabs.deployit.server.api.importer.ImportingContext;
+import com.xebialabs.deployit.server.api.importer.PackageInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.ImportStatistics;
+import com.xebialabs.deployit.server.api.importer.singlefile.ImportStatistics.Phase;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.PhaseStatistics;
+
+/**
+ * Drives the full importer lifecycle - {@code list}, {@code canHandle},
+ * {@code preparePackage}, {@code importEntities} and {@code cleanUp} - from many
+ * threads over a {@link SyntheticCorpus synthetic corpus}, against the stand-in
+ * Deployit API. After a warmup, reports throughput, per-phase latencies taken from
+ * the importer's own {@link ImportStatistics}, the JVM's heap allocation rate
+ * and GC pauses, and exits with status 1 if any configured threshold is
+ * exceeded. Run with {@code gradle loadTest}; see {@link LoadTestConfiguration}
+ * for the settings.
+ */
+public class LoadTest {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double BYTES_PER_MB = 1024 * 1024;
+    private static final int MAX_LOGGED_ERRORS = 10;
+
+    private final LoadTestConfiguration configuration;
+    private final ImportStatistics importStatistics =
+        ImportStatistics.forImporter(LoadTestImporter.class);
+    private final PhaseStatistics imports = new PhaseStatistics();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong nextFile = new AtomicLong();
+    private final JvmMonitor jvmMonitor = new JvmMonitor();
+    private volatile boolean stopped;
+    private double measuredSeconds;
+
+    private LoadTest(LoadTestConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfiguration configuration = LoadTestConfiguration.fromSystemProperties();
+        System.out.println("Load test: " + configuration);
+        List<String> violations = new LoadTest(configuration).run();
+        if (!violations.isEmpty()) {
+            System.out.println("FAILED:");
+            for (String violation : violations) {
+                System.out.println("  " + violation);
+            }
+            System.exit(1);
+        }
+        System.out.println("PASSED");
+        System.exit(0);
+    }
+
+    private List<String> run() throws IOException, InterruptedException {
+        PluginBooter.bootWithoutGlobalContext();
+        File root = ((configuration.directory != null)
+                ? configuration.directory
+                : Files.createTempDir());
+        ForkJoinPool verificationPool = new ForkJoinPool();
+        try {
+            long generationStart = System.nanoTime();
+            SyntheticCorpus corpus = SyntheticCorpus.generate(configuration, root);
+            System.out.println(format("Generated %d files (%.1f MB) in '%s' in %.1fs",
+                    configuration.fileCount, corpus.getTotalBytes() / BYTES_PER_MB, root,
+                    (System.nanoTime() - generationStart) / NANOS_PER_SECOND));
+
+            LoadTestImporter importer = new LoadTestImporter(configuration, verificationPool);
+            List<String> report = drive(importer, root);
+            for (String line : report) {
+                System.out.println(line);
+            }
+            if (configuration.reportFile != null) {
+                Files.createParentDirs(configuration.reportFile);
+                Files.write(joinLines(report), configuration.reportFile, Charsets.UTF_8);
+            }
+            return checkThresholds();
+        } finally {
+            verificationPool.shutdown();
+            if (configuration.directory == null) {
+                Files.deleteRecursively(root.getCanonicalFile());
+            }
+        }
+    }
+
+    private List<String> drive(final LoadTestImporter importer, final File root)
+            throws InterruptedException {
+        final List<String> files = importer.list(root);
+        if (files.isEmpty()) {
+            throw new IllegalStateException(format("No supported files in '%s'", root));
+        }
+
+        List<Thread> workers = Lists.newArrayListWithCapacity(configuration.threads);
+        for (int i = 0; i < configuration.threads; i++) {
+            Thread worker = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (!stopped) {
+                            long next = nextFile.getAndIncrement();
+                            if (next % configuration.listEvery == 0) {
+                                importer.list(root);
+                            }
+                            importFile(importer,
+                                    new File(root, files.get((int) (next % files.size()))));
+                        }
+                    }
+                }, "load-test-" + i);
+            workers.add(worker);
+        }
+        jvmMonitor.start();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+
+        try {
+            TimeUnit.SECONDS.sleep(configuration.warmupSeconds);
+            resetStatistics();
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(configuration.durationSeconds);
+            long interval = TimeUnit.SECONDS.toNanos(Math.max(1,
+                    configuration.reportIntervalSeconds));
+            for (long now = start; now < end; now = System.nanoTime()) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(interval, end - now));
+                printProgress(start);
+            }
+            measuredSeconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            jvmMonitor.stop();
+            stopped = true;
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            return report();
+        } finally {
+            stopped = true;
+            jvmMonitor.stop();
+        }
+    }
+
+    private void importFile(LoadTestImporter importer, File file) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ImportSource source = new FileSource(file);
+            ImportingContext context = new MapImportingContext();
+            if (importer.canHandle(source)) {
+                PackageInfo packageInfo = importer.preparePackage(source, context);
+                try {
+                    importer.importEntities(packageInfo, context);
+                } finally {
+                    importer.cleanUp(packageInfo, context);
+                }
+            }
+            failed = false;
+        } catch (RuntimeException exception) {
+            if (errors.incrementAndGet() <= MAX_LOGGED_ERRORS) {
+                System.err.println(format("Import of '%s' failed:", file));
+                exception.printStackTrace();
+            }
+        } finally {
+            imports.record(System.nanoTime() - start, file.length(), failed);
+        }
+    }
+
+    private void resetStatistics() {
+        for (PhaseStatistics phaseStatistics : importStatistics.getAll().values()) {
+            phaseStatistics.reset();
+        }
+        imports.reset();
+        errors.set(0);
+        jvmMonitor.reset();
+    }
+
+    private void printProgress(long start) {
+        Runtime runtime = Runtime.getRuntime();
+        System.out.println(format("[%4.0fs] imports=%d errors=%d p99=%.2fms heap=%.0fMB",
+                (System.nanoTime() - start) / NANOS_PER_SECOND, imports.getCount(),
+                errors.get(), imports.get99thPercentileMillis(),
+                (runtime.totalMemory() - runtime.freeMemory()) / BYTES_PER_MB));
+    }
+
+    private List<String> report() {
+        List<String> report = Lists.newArrayList();
+        report.add(format("%-20s %10s %7s %10s %10s %10s %10s %10s", "phase", "count",
+                "errors", "mean(ms)", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (Phase phase : Phase.values()) {
+            report.add(formatRow(LoadTestConfiguration.phaseName(phase),
+                    importStatistics.get(phase)));
+        }
+        report.add(formatRow("import (end-to-end)", imports));
+        report.add(formatRow("gc pauses", jvmMonitor.getGcPauses()));
+        report.add(format("throughput: %.1f imports/s, %.1f MB/s over %.1fs",
+                imports.getCount() / measuredSeconds,
+                imports.getTotalBytes() / BYTES_PER_MB / measuredSeconds, measuredSeconds));
+        double allocationRate = jvmMonitor.getAllocationBytesPerSecond();
+        report.add(format("allocation: %.1f MB/s", allocationRate / BYTES_PER_MB));
+        report.add(format("errors: %d", errors.get()));
+        return report;
+    }
+
+    private static String formatRow(String name, PhaseStatistics statistics) {
+        return format("%-20s %10d %7d %10.3f %10.3f %10.3f %10.3f %10.3f", name,
+                statistics.getCount(), statistics.getErrorCount(), statistics.getMeanMillis(),
+                statistics.getMedianMillis(), statistics.get99thPercentileMillis(),
+                statistics.getPercentileMillis(99.9), statistics.getMaxMillis());
+    }
+
+    private List<String> checkThresholds() {
+        ImmutableList.Builder<String> violations = ImmutableList.builder();
+        for (Phase phase : Phase.values()) {
+            PhaseStatistics statistics = importStatistics.get(phase);
+            checkLatency(violations, phase, "p50", statistics.getMedianMillis());
+            checkLatency(violations, phase, "p99", statistics.get99thPercentileMillis());
+            checkLatency(violations, phase, "p999", statistics.getPercentileMillis(99.9));
+        }
+        double importsPerSecond = imports.getCount() / measuredSeconds;
+        if (importsPerSecond < configuration.minImportsPerSecond) {
+            violations.add(format("throughput %.1f imports/s below minimum %.1f",
+                    importsPerSecond, configuration.minImportsPerSecond));
+        }
+        double maxGcPause = jvmMonitor.getGcPauses().getMaxMillis();
+        if (maxGcPause > configuration.maxGcPauseMillis) {
+            violations.add(format("GC pause of %.1fms exceeds maximum %.1fms", maxGcPause,
+                    configuration.maxGcPauseMillis));
+        }
+        double allocationMbPerSecond = jvmMonitor.getAllocationBytesPerSecond() / BYTES_PER_MB;
+        if (allocationMbPerSecond > configuration.maxAllocationMbPerSecond) {
+            violations.add(format("allocation rate %.1f MB/s exceeds maximum %.1f MB/s",
+                    allocationMbPerSecond, configuration.maxAllocationMbPerSecond));
+        }
+        if (errors.get() > configuration.maxErrors) {
+            violations.add(format("%d errors exceed maximum %d", errors.get(),
+                    configuration.maxErrors));
+        }
+        return violations.build();
+    }
+
+    private void checkLatency(ImmutableList.Builder<String> violations, Phase phase,
+            String percentile, double millis) {
+        String key = LoadTestConfiguration.thresholdKey(phase, percentile);
+        Double threshold = configuration.latencyThresholds.get(key);
+        if ((threshold != null) && (millis > threshold)) {
+            violations.add(format("%s %s of %.3fms exceeds %.3fms",
+                    LoadTestConfiguration.phaseName(phase), percentile, millis, threshold));
+        }
+    }
+
+    private static String joinLines(List<String> lines) {
+        StringBuilder joined = new StringBuilder();
+        for (String line : lines) {
+            joined.append(line).append('\n');
+        }
+        return joined.toString();
+    }
+
+    private static class FileSource implements ImportSource {
+        private final File file;
+
+        private FileSource(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public void cleanUp() {}
+    }
+
+    private static class MapImportingContext implements ImportingContext {
+        private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T getAttribute(String name) {
+            return (T) attributes.get(name);
+        }
+
+        @Override
+        public <T> void setAttribute(String name, T value) {
+            attributes.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * @(#)LoadTestConfiguration.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.load;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Properties;
+
+import com.google.common.base.CaseFormat;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+import com.xebialabs.deployit.server.api.importer.singlefile.ImportStatistics.Phase;
+
+/**
+ * The settings of a load test run, read from {@code load.*} system properties.
+ * Unset properties take the defaults below, which make for a short smoke run.
+ * <p>
+ * Thresholds are optional; a run fails if any configured threshold is exceeded.
+ * Latency thresholds are set per phase, using the phase's name as published over
+ * JMX, e.g. {@code load.threshold.preparePackage.p99Millis}.
+ */
+public class LoadTestConfiguration {
+    public static final String PREFIX = "load.";
+
+    /** How generated files are named */
+    public enum Naming {
+        /** {@code app12-1.3.ear} */
+        NAME_VERSION,
+        /** {@code app12.ear} */
+        NAME_ONLY,
+        /** either of the above, with one in ten files unsupported */
+        MIXED
+    }
+
+    /** Optional importer features to exercise */
+    public enum Feature { DIGEST, VERIFY, MANIFEST, FUSED, INDEX, INCREMENTAL_LISTING }
+
+    final File directory;
+    final long seed;
+    final int fileCount;
+    final int minFileSizeKb;
+    final int maxFileSizeKb;
+    final int directoryDepth;
+    final int directoryFanout;
+    final Naming naming;
+    final EnumSet<Feature> features;
+
+    final int threads;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int reportIntervalSeconds;
+    // one in this many imports also lists the directory
+    final int listEvery;
+    final File reportFile;
+
+    final Map<String, Double> latencyThresholds;
+    final double minImportsPerSecond;
+    final double maxGcPauseMillis;
+    final double maxAllocationMbPerSecond;
+    final long maxErrors;
+
+    private LoadTestConfiguration(Properties properties) {
+        String directoryName = get(properties, "directory", null);
+        directory = ((directoryName != null) ? new File(directoryName) : null);
+        seed = Long.parseLong(get(properties, "seed", "42"));
+        fileCount = getInt(properties, "fileCount", 200);
+        minFileSizeKb = getInt(properties, "minFileSizeKb", 1);
+        maxFileSizeKb = getInt(properties, "maxFileSizeKb", 256);
+        directoryDepth = getInt(properties, "directoryDepth", 1);
+        directoryFanout = getInt(properties, "directoryFanout", 4);
+        naming = Naming.valueOf(get(properties, "naming", "MIXED").toUpperCase());
+        features = EnumSet.noneOf(Feature.class);
+        for (String feature : Splitter.on(',').omitEmptyStrings().trimResults()
+                .split(get(properties, "features", "DIGEST"))) {
+            features.add(Feature.valueOf(feature.toUpperCase()));
+        }
+
+        threads = getInt(properties, "threads", 2 * Runtime.getRuntime().availableProcessors());
+        warmupSeconds = getInt(properties, "warmupSeconds", 5);
+        durationSeconds = getInt(properties, "durationSeconds", 20);
+        reportIntervalSeconds = getInt(properties, "reportIntervalSeconds", 10);
+        listEvery = getInt(properties, "listEvery", 100);
+        String reportFileName = get(properties, "reportFile", null);
+        reportFile = ((reportFileName != null) ? new File(reportFileName) : null);
+
+        latencyThresholds = Maps.newHashMap();
+        for (Phase phase : Phase.values()) {
+            for (String percentile : new String[] { "p50", "p99", "p999" }) {
+                String key = thresholdKey(phase, percentile);
+                String threshold = get(properties, key, null);
+                if (threshold != null) {
+                    latencyThresholds.put(key, Double.valueOf(threshold));
+                }
+            }
+        }
+        minImportsPerSecond = getDouble(properties, "threshold.minImportsPerSecond", 0);
+        maxGcPauseMillis = getDouble(properties, "threshold.maxGcPauseMillis",
+                Double.POSITIVE_INFINITY);
+        maxAllocationMbPerSecond = getDouble(properties,
+                "threshold.maxAllocationMbPerSecond", Double.POSITIVE_INFINITY);
+        maxErrors = Long.parseLong(get(properties, "threshold.maxErrors", "0"));
+
+        checkArgument(fileCount > 0, "fileCount must be positive");
+        checkArgument((minFileSizeKb >= 0) && (minFileSizeKb <= maxFileSizeKb),
+                "minFileSizeKb must be between 0 and maxFileSizeKb");
+        checkArgument(directoryDepth > 0, "directoryDepth must be positive");
+        checkArgument(directoryFanout > 0, "directoryFanout must be positive");
+        checkArgument(threads > 0, "threads must be positive");
+        checkArgument(durationSeconds > 0, "durationSeconds must be positive");
+        checkArgument(listEvery > 0, "listEvery must be positive");
+    }
+
+    public static LoadTestConfiguration fromSystemProperties() {
+        return new LoadTestConfiguration(System.getProperties());
+    }
+
+    static String phaseName(Phase phase) {
+        return CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, phase.name());
+    }
+
+    // relative to the prefix, e.g. "threshold.preparePackage.p99Millis"
+    static String thresholdKey(Phase phase, String percentile) {
+        return String.format("threshold.%s.%sMillis", phaseName(phase), percentile);
+    }
+
+    private static String get(Properties properties, String key, String defaultValue) {
+        return properties.getProperty(PREFIX + key, defaultValue);
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        return Integer.parseInt(get(properties, key, Integer.toString(defaultValue)));
+    }
+
+    private static double getDouble(Properties properties, String key,
+            double defaultValue) {
+        String value = get(properties, key, null);
+        return ((value != null) ? Double.parseDouble(value) : defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("files=%d (%d-%d KB, depth %d, fanout %d, %s), features=%s, "
+                + "threads=%d, warmup=%ds, duration=%ds, seed=%d", fileCount, minFileSizeKb,
+                maxFileSizeKb, directoryDepth, directoryFanout, naming, features, threads,
+                warmupSeconds, durationSeconds, seed);
+    }
+}
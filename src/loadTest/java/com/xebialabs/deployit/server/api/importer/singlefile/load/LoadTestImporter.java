@@ -0,0 +1,93 @@
+/*
+ * @(#)LoadTestImporter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.load;
+
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
+import com.xebialabs.deployit.server.api.importer.singlefile.ExtensionBasedImporter;
+import com.xebialabs.deployit.server.api.importer.singlefile.ImportStatistics;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigester;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ZipIntegrityVerifier;
+import com.xebialabs.deployit.server.api.importer.singlefile.load.LoadTestConfiguration.Feature;
+
+/**
+ * An EAR importer with the optional features selected for the run enabled. Its
+ * phases are recorded in the statistics shared by all instances of this class.
+ */
+class LoadTestImporter extends ExtensionBasedImporter {
+    private static final ContentDigester CONTENT_DIGESTER = new ContentDigester();
+
+    private final EnumSet<Feature> features;
+    private final int listingDepth;
+    private final ZipIntegrityVerifier archiveVerifier;
+
+    LoadTestImporter(LoadTestConfiguration configuration, ForkJoinPool verificationPool) {
+        super("ear", Type.valueOf(BaseDeployableFileArtifact.class));
+        features = configuration.features;
+        listingDepth = configuration.directoryDepth;
+        archiveVerifier = (features.contains(Feature.VERIFY)
+                ? new ZipIntegrityVerifier(verificationPool)
+                : null);
+    }
+
+    @Override
+    protected int getListingDepth() {
+        return listingDepth;
+    }
+
+    @Override
+    protected boolean isIncrementalListingEnabled() {
+        return features.contains(Feature.INCREMENTAL_LISTING);
+    }
+
+    @Override
+    protected ContentDigester getContentDigester() {
+        return (features.contains(Feature.DIGEST) ? CONTENT_DIGESTER : null);
+    }
+
+    @Override
+    protected ZipIntegrityVerifier getArchiveVerifier() {
+        return archiveVerifier;
+    }
+
+    @Override
+    protected boolean isManifestMetadataEnabled() {
+        return features.contains(Feature.MANIFEST);
+    }
+
+    @Override
+    protected boolean isFusedAnalysisEnabled() {
+        return features.contains(Feature.FUSED);
+    }
+
+    @Override
+    protected boolean isImportIndexEnabled() {
+        return features.contains(Feature.INDEX);
+    }
+
+    @Override
+    protected ImportStatistics getImportStatistics() {
+        return ImportStatistics.forImporter(getClass());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * @(#)SyntheticCorpus.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.load;
+
+import static java.lang.String.format;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import com.xebialabs.deployit.server.api.importer.singlefile.load.LoadTestConfiguration.Naming;
+
+/**
+ * Generates a directory tree of synthetic EARs: JARs with a manifest naming the
+ * application and version, and a single stored entry of random content sized
+ * uniformly between the configured minimum and maximum. Files are spread
+ * round-robin over a tree of the configured depth and fanout. Generation is
+ * deterministic for a given seed.
+ */
+class SyntheticCorpus {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final File root;
+    private final long totalBytes;
+
+    private SyntheticCorpus(File root, long totalBytes) {
+        this.root = root;
+        this.totalBytes = totalBytes;
+    }
+
+    static SyntheticCorpus generate(LoadTestConfiguration configuration, File root)
+            throws IOException {
+        Random random = new Random(configuration.seed);
+        byte[] block = new byte[BLOCK_SIZE];
+        random.nextBytes(block);
+        long totalBytes = 0;
+        for (int i = 0; i < configuration.fileCount; i++) {
+            File directory = new File(root, directoryPath(i, configuration));
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException(format("Unable to create directory '%s'", directory));
+            }
+            File file = new File(directory, fileName(i, configuration.naming, random));
+            int sizeKb = configuration.minFileSizeKb + random.nextInt(
+                    configuration.maxFileSizeKb - configuration.minFileSizeKb + 1);
+            writeArchive(file, format("app%d", i), format("1.%d", random.nextInt(20)),
+                    sizeKb * 1024L, block);
+            totalBytes += file.length();
+        }
+        return new SyntheticCorpus(root, totalBytes);
+    }
+
+    // e.g. "d1/d3" for depth 3
+    private static String directoryPath(int fileIndex, LoadTestConfiguration configuration) {
+        StringBuilder path = new StringBuilder();
+        int remainder = fileIndex;
+        for (int level = 1; level < configuration.directoryDepth; level++) {
+            if (path.length() > 0) {
+                path.append(File.separatorChar);
+            }
+            path.append('d').append(remainder % configuration.directoryFanout);
+            remainder /= configuration.directoryFanout;
+        }
+        return path.toString();
+    }
+
+    private static String fileName(int fileIndex, Naming naming, Random random) {
+        switch (naming) {
+        case NAME_VERSION:
+            return format("app%d-1.%d.ear", fileIndex, random.nextInt(20));
+        case NAME_ONLY:
+            return format("app%d.ear", fileIndex);
+        default:
+            if (fileIndex % 10 == 9) {
+                return format("notes%d.txt", fileIndex);
+            }
+            return (random.nextBoolean()
+                    ? fileName(fileIndex, Naming.NAME_VERSION, random)
+                    : fileName(fileIndex, Naming.NAME_ONLY, random));
+        }
+    }
+
+    private static void writeArchive(File file, String name, String version, long size,
+            byte[] block) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.IMPLEMENTATION_TITLE, name);
+        attributes.put(Attributes.Name.IMPLEMENTATION_VERSION, version);
+
+        // stored entries need their size and CRC up front
+        CRC32 crc = new CRC32();
+        for (long written = 0; written < size; written += block.length) {
+            crc.update(block, 0, (int) Math.min(block.length, size - written));
+        }
+        ZipEntry content = new ZipEntry("content.bin");
+        content.setMethod(ZipEntry.STORED);
+        content.setSize(size);
+        content.setCompressedSize(size);
+        content.setCrc(crc.getValue());
+
+        JarOutputStream out = new JarOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), BLOCK_SIZE), manifest);
+        try {
+            out.putNextEntry(content);
+            for (long written = 0; written < size; written += block.length) {
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+    }
+
+    File getRoot() {
+        return root;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -21,9 +21,6 @@
 package com.xebialabs.deployit.plugin.api.util;
 
 import static com.xebialabs.deployit.plugin.api.deployment.specification.Operation.DESTROY;
-import static com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry.getSubtypes;
-
-import java.util.Collection;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
@@ -76,16 +73,21 @@ public class Predicates {
     }
     
     private static class IsSubtypeOf implements Predicate<Type> {
-        private final Collection<Type> subtypes;
+        private final Type typeToMatch;
+        private final TypeHierarchyIndex typeHierarchy;
+        private final int typeToMatchOrdinal;
         
         public IsSubtypeOf(Type typeToMatch) {
-            subtypes = getSubtypes(typeToMatch);
-            subtypes.add(typeToMatch);
+            this.typeToMatch = typeToMatch;
+            typeHierarchy = TypeHierarchyIndex.get(typeToMatch);
+            typeToMatchOrdinal = typeHierarchy.ordinalOf(typeToMatch);
         }
 
         @Override
         public boolean apply(Type input) {
-            return subtypes.contains(input);
+            return ((typeToMatchOrdinal != -1)
+                    ? typeHierarchy.isSubtype(input, typeToMatchOrdinal)
+                    : input.equals(typeToMatch));
         }
     }
     
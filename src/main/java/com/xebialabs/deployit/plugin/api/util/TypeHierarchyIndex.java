@@ -0,0 +1,166 @@
+/*
+ * @(#)TypeHierarchyIndex.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.util;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableMap;
+import com.xebialabs.deployit.plugin.api.reflect.Descriptor;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+
+/**
+ * An immutable snapshot of the type hierarchy known to the {@link DescriptorRegistry}.
+ * Each registered type is assigned an ordinal, and the subtypes of each type (including
+ * the type itself) are held as a bitset, so subtype checks are single bit tests.
+ * <p>
+ * The shared {@link #get() instance} is built lazily and rebuilt once the number of
+ * registered descriptors changes. {@link #get(Type)} also rebuilds it if the
+ * descriptor of the given type has been replaced. Both checks take constant time.
+ * Code that replaces descriptors, e.g. when reloading plugins, should
+ * {@link #invalidate()} the index. Each rebuild has a new {@link #getGeneration()
+ * generation}, so caches of registry data can tell when to discard their entries.
+ */
+public final class TypeHierarchyIndex {
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+    private static volatile TypeHierarchyIndex instance;
+
+    private final long generation;
+    private final int descriptorCount;
+    private final Map<Type, Integer> ordinals;
+    // indexed by ordinal, compared by identity
+    private final Descriptor[] descriptors;
+    // subtypes[i] has bit j set iff type j is a subtype of (or equal to) type i
+    private final BitSet[] subtypes;
+
+    private TypeHierarchyIndex(Collection<Descriptor> registered) {
+        generation = GENERATIONS.incrementAndGet();
+        // the registry's collection is read once, and never modified
+        descriptors = registered.toArray(new Descriptor[registered.size()]);
+        descriptorCount = descriptors.length;
+        ImmutableMap.Builder<Type, Integer> ordinals = ImmutableMap.builder();
+        for (int ordinal = 0; ordinal < descriptors.length; ordinal++) {
+            ordinals.put(descriptors[ordinal].getType(), ordinal);
+        }
+        this.ordinals = ordinals.build();
+
+        subtypes = new BitSet[descriptors.length];
+        for (Map.Entry<Type, Integer> type : this.ordinals.entrySet()) {
+            BitSet subtypesOfType = new BitSet(descriptors.length);
+            subtypesOfType.set(type.getValue());
+            // read-only: the registry may return its own collection
+            for (Type subtype : DescriptorRegistry.getSubtypes(type.getKey())) {
+                Integer subtypeOrdinal = this.ordinals.get(subtype);
+                if (subtypeOrdinal != null) {
+                    subtypesOfType.set(subtypeOrdinal);
+                }
+            }
+            subtypes[type.getValue()] = subtypesOfType;
+        }
+    }
+
+    public static @Nonnull TypeHierarchyIndex get() {
+        TypeHierarchyIndex index = instance;
+        return (((index != null) && !index.isStale()) ? index : rebuild(index));
+    }
+
+    /**
+     * Like {@link #get()}, but also checks that the descriptor of {@code type} has
+     * not been replaced since the index was built.
+     */
+    public static @Nonnull TypeHierarchyIndex get(@Nonnull Type type) {
+        TypeHierarchyIndex index = get();
+        return (index.isCurrent(type) ? index : rebuild(index));
+    }
+
+    private static synchronized TypeHierarchyIndex rebuild(TypeHierarchyIndex staleIndex) {
+        // another thread may have rebuilt the index in the meantime
+        TypeHierarchyIndex index = instance;
+        if ((index == null) || (index == staleIndex)) {
+            index = new TypeHierarchyIndex(DescriptorRegistry.getDescriptors());
+            instance = index;
+        }
+        return index;
+    }
+
+    public static void invalidate() {
+        instance = null;
+    }
+
+    private boolean isStale() {
+        return (DescriptorRegistry.getDescriptors().size() != descriptorCount);
+    }
+
+    private boolean isCurrent(Type type) {
+        Integer ordinal = ordinals.get(type);
+        if (ordinal == null) {
+            return true;
+        }
+        try {
+            return (DescriptorRegistry.getDescriptor(type) == descriptors[ordinal]);
+        } catch (IllegalArgumentException exception) {
+            // no longer registered
+            return false;
+        }
+    }
+
+    /**
+     * @return a number identifying this build of the index, higher than that of any
+     *         earlier build
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return {@code true} if {@code type} is {@code supertype} or a registered
+     *         subtype of it
+     */
+    public boolean isSubtype(@Nonnull Type type, @Nonnull Type supertype) {
+        Integer supertypeOrdinal = ordinals.get(supertype);
+        return ((supertypeOrdinal != null)
+                ? isSubtype(type, supertypeOrdinal)
+                : type.equals(supertype));
+    }
+
+    // supertypeOrdinal must be an ordinal of this index
+    boolean isSubtype(Type type, int supertypeOrdinal) {
+        Integer ordinal = ordinals.get(type);
+        return ((ordinal != null) && subtypes[supertypeOrdinal].get(ordinal));
+    }
+
+    /**
+     * @return the ordinal of the type, or {@code -1} if it is not registered
+     */
+    public int ordinalOf(@Nonnull Type type) {
+        Integer ordinal = ordinals.get(type);
+        return ((ordinal != null) ? ordinal : -1);
+    }
+
+    public int size() {
+        return subtypes.length;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * @(#)AdmissionController.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.Nonnull;
+
+import com.xebialabs.deployit.server.api.importer.singlefile.base.PhaseStatistics;
+
+/**
+ * Limits the files being imported at the same time to a total budget of bytes, so
+ * that concurrent imports do not exhaust disk bandwidth or heap. Each import is
+ * weighted by the size of its file, capped at the budget so that large files can
+ * still be imported on their own.
+ * <p>
+ * Imports that do not fit wait in a queue of bounded length for at most a maximum
+ * time, after which they are rejected with an {@link ImportRejectedException}.
+ * The queue is ordered by arrival, but an import is treated as having arrived up
+ * to half the maximum wait later in proportion to its share of the budget: small
+ * files overtake large ones that arrived shortly before them, but a large file is
+ * never overtaken indefinitely. Only the head of the queue is admitted, so a large
+ * file is not starved by a stream of smaller ones that would fit around it.
+ * <p>
+ * Register the controller with an MBean server to publish its queue length and
+ * wait times.
+ */
+public class AdmissionController implements AdmissionControllerMBean {
+    private final long byteBudget;
+    private final int maxQueueLength;
+    private final long maxWaitNanos;
+    private final PhaseStatistics waits = new PhaseStatistics();
+    private final AtomicLong rejections = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition budgetOrQueueChanged = lock.newCondition();
+    // guarded by "lock"
+    private long availableBytes;
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<Waiter>(16,
+            new Comparator<Waiter>() {
+                @Override
+                public int compare(Waiter waiter1, Waiter waiter2) {
+                    // nanoTime values may only be compared by difference
+                    int byArrival = Long.signum(waiter1.effectiveArrivalNanos
+                            - waiter2.effectiveArrivalNanos);
+                    return ((byArrival != 0)
+                            ? byArrival
+                            : Long.compare(waiter1.sequence, waiter2.sequence));
+                }
+            });
+    private long sequence;
+
+    public AdmissionController(long byteBudget, int maxQueueLength, long maxWait,
+            @Nonnull TimeUnit unit) {
+        checkArgument(byteBudget > 0, "Byte budget must be positive");
+        checkArgument(maxQueueLength >= 0, "Maximum queue length may not be negative");
+        checkArgument(maxWait >= 0, "Maximum wait may not be negative");
+        this.byteBudget = byteBudget;
+        this.maxQueueLength = maxQueueLength;
+        maxWaitNanos = unit.toNanos(maxWait);
+        availableBytes = byteBudget;
+    }
+
+    public @Nonnull Permit acquire(@Nonnull File file) {
+        return acquire(file.length(), file.getPath());
+    }
+
+    /**
+     * Waits until an import of the given size is admitted.
+     *
+     * @throws ImportRejectedException if the queue is full, the import was not
+     *         admitted within the maximum wait or the thread was interrupted
+     */
+    public @Nonnull Permit acquire(long size, @Nonnull String description) {
+        long weight = Math.max(1, Math.min(size, byteBudget));
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            if (queue.isEmpty() && (weight <= availableBytes)) {
+                return admit(weight, start);
+            }
+            if (queue.size() >= maxQueueLength) {
+                throw reject(format("Import queue is full with %d waiting imports, "
+                        + "rejecting '%s'", queue.size(), description));
+            }
+
+            Waiter waiter = new Waiter(start + (long) ((double) weight / byteBudget
+                    * maxWaitNanos / 2), sequence++);
+            queue.add(waiter);
+            try {
+                long remainingNanos = maxWaitNanos;
+                while ((queue.peek() != waiter) || (weight > availableBytes)) {
+                    if (remainingNanos <= 0) {
+                        throw reject(format("Import of '%s' was not admitted within %d ms",
+                                description, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)));
+                    }
+                    remainingNanos = budgetOrQueueChanged.awaitNanos(remainingNanos);
+                }
+                queue.poll();
+                // the next waiter may fit too
+                budgetOrQueueChanged.signalAll();
+                return admit(weight, start);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw reject(format("Interrupted while waiting to import '%s'", description));
+            } finally {
+                if (queue.remove(waiter)) {
+                    budgetOrQueueChanged.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // call with "lock" held
+    private Permit admit(long weight, long start) {
+        availableBytes -= weight;
+        waits.record(System.nanoTime() - start, weight, false);
+        return new Permit(weight);
+    }
+
+    private ImportRejectedException reject(String message) {
+        rejections.incrementAndGet();
+        return new ImportRejectedException(message);
+    }
+
+    private void release(long weight) {
+        lock.lock();
+        try {
+            availableBytes += weight;
+            budgetOrQueueChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    @Override
+    public long getAvailableBytes() {
+        lock.lock();
+        try {
+            return availableBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueueLength() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getAdmittedCount() {
+        return waits.getCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejections.get();
+    }
+
+    @Override
+    public double getMeanWaitMillis() {
+        return waits.getMeanMillis();
+    }
+
+    @Override
+    public double get99thPercentileWaitMillis() {
+        return waits.get99thPercentileMillis();
+    }
+
+    @Override
+    public double getMaxWaitMillis() {
+        return waits.getMaxMillis();
+    }
+
+    private static class Waiter {
+        private final long effectiveArrivalNanos;
+        private final long sequence;
+
+        private Waiter(long effectiveArrivalNanos, long sequence) {
+            this.effectiveArrivalNanos = effectiveArrivalNanos;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A share of the budget held by an admitted import. Release it when the import's
+     * per-file work is done.
+     */
+    public class Permit implements Closeable {
+        private final long weight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long weight) {
+            this.weight = weight;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AdmissionController.this.release(weight);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * @(#)AdmissionControllerMBean.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+/**
+ * JMX view of an {@link AdmissionController}.
+ */
+public interface AdmissionControllerMBean {
+
+    long getByteBudget();
+
+    long getAvailableBytes();
+
+    int getQueueLength();
+
+    long getAdmittedCount();
+
+    long getRejectedCount();
+
+    double getMeanWaitMillis();
+
+    double get99thPercentileWaitMillis();
+
+    double getMaxWaitMillis();
+}
@@ -0,0 +1,246 @@
+/*
+ * @(#)BatchImporter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.xebialabs.deployit.server.api.importer.ImportSource;
+import com.xebialabs.deployit.server.api.importer.ImportedPackage;
+import com.xebialabs.deployit.server.api.importer.Importer;
+import com.xebialabs.deployit.server.api.importer.ImportingContext;
+import com.xebialabs.deployit.server.api.importer.PackageInfo;
+
+/**
+ * Imports batches of sources through an {@link Importer} on a bounded pool of
+ * worker threads. Each source goes through {@code preparePackage}, {@code
+ * importEntities} and {@code cleanUp}; a failure only affects the result for that
+ * source. Results are returned in order of completion.
+ * <p>
+ * Besides the number of concurrent imports, the total size of the files being
+ * imported at any one time is limited. Both limits apply to all batches imported
+ * at the same time, which are queued in the order in which they were submitted.
+ * Sources that fit in the remaining budget are started before larger ones further
+ * up the queue, and a file larger than the entire budget is only started when
+ * nothing else is in flight.
+ */
+public class BatchImporter implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchImporter.class);
+
+    private final Importer importer;
+    private final Function<ImportSource, ImportingContext> contexts;
+    private final int concurrency;
+    private final long maxBytesInFlight;
+    private final ExecutorService workers;
+
+    // guarded by "this", across all batches
+    private final LinkedList<PendingSource> pending = new LinkedList<PendingSource>();
+    private int inFlight;
+    private long bytesInFlight;
+
+    public BatchImporter(Importer importer, Function<ImportSource, ImportingContext> contexts,
+            int concurrency, long maxBytesInFlight) {
+        checkArgument(concurrency > 0, "Concurrency must be positive");
+        checkArgument(maxBytesInFlight > 0, "Maximum bytes in flight must be positive");
+        this.importer = checkNotNull(importer);
+        this.contexts = checkNotNull(contexts);
+        this.concurrency = concurrency;
+        this.maxBytesInFlight = maxBytesInFlight;
+        workers = Executors.newFixedThreadPool(concurrency, new ThreadFactoryBuilder()
+                .setNameFormat("batch-importer-%d").setDaemon(true).build());
+    }
+
+    /**
+     * @return the results of the imports, in order of completion. Retrieving
+     *         the next result blocks until another import has completed
+     */
+    public Iterator<BatchImportResult> importAll(Collection<? extends ImportSource> sources) {
+        final Batch batch = new Batch(sources.size());
+        // sizes are read once, rather than on every dispatch
+        List<PendingSource> batchSources = Lists.newArrayListWithCapacity(sources.size());
+        for (ImportSource source : sources) {
+            batchSources.add(new PendingSource(batch, source, source.getFile().length()));
+        }
+        synchronized (this) {
+            pending.addAll(batchSources);
+            dispatch();
+        }
+        return new AbstractIterator<BatchImportResult>() {
+            private int remaining = batch.size;
+
+            @Override
+            protected BatchImportResult computeNext() {
+                if (remaining == 0) {
+                    return endOfData();
+                }
+                try {
+                    BatchImportResult result = batch.results.take();
+                    remaining--;
+                    return result;
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while awaiting import results",
+                            exception);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    // never throws, so that every source yields a result
+    private BatchImportResult doImport(ImportSource source) {
+        ImportingContext context = null;
+        PackageInfo packageInfo = null;
+        try {
+            context = contexts.apply(source);
+            packageInfo = importer.preparePackage(source, context);
+            ImportedPackage importedPackage = importer.importEntities(packageInfo, context);
+            return BatchImportResult.success(source, importedPackage);
+        } catch (Throwable exception) {
+            LOGGER.warn(String.format("Unable to import '%s'", source.getFile()), exception);
+            return BatchImportResult.failure(source, exception);
+        } finally {
+            if (packageInfo != null) {
+                cleanUp(packageInfo, context);
+            }
+        }
+    }
+
+    private void cleanUp(PackageInfo packageInfo, ImportingContext context) {
+        try {
+            importer.cleanUp(packageInfo, context);
+        } catch (Throwable exception) {
+            LOGGER.warn(String.format("Unable to clean up after importing '%s'",
+                    packageInfo.getSource().getFile()), exception);
+        }
+    }
+
+    private synchronized void dispatch() {
+        for (Iterator<PendingSource> candidates = pending.iterator();
+                (inFlight < concurrency) && candidates.hasNext(); ) {
+            PendingSource candidate = candidates.next();
+            if ((bytesInFlight + candidate.bytes <= maxBytesInFlight) || (inFlight == 0)) {
+                candidates.remove();
+                start(candidate);
+            }
+        }
+    }
+
+    private void start(final PendingSource source) {
+        inFlight++;
+        bytesInFlight += source.bytes;
+        try {
+            workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        BatchImportResult result = doImport(source.source);
+                        source.batch.results.add(result);
+                        completed(source.bytes);
+                        if (result.failure instanceof Error) {
+                            throw (Error) result.failure;
+                        }
+                    }
+                });
+        } catch (RejectedExecutionException exception) {
+            // e.g. after close()
+            inFlight--;
+            bytesInFlight -= source.bytes;
+            source.batch.results.add(BatchImportResult.failure(source.source, exception));
+        }
+    }
+
+    private synchronized void completed(long bytes) {
+        inFlight--;
+        bytesInFlight -= bytes;
+        dispatch();
+    }
+
+    private static class Batch {
+        private final int size;
+        private final BlockingQueue<BatchImportResult> results =
+            new LinkedBlockingQueue<BatchImportResult>();
+
+        private Batch(int size) {
+            this.size = size;
+        }
+    }
+
+    private static class PendingSource {
+        private final Batch batch;
+        private final ImportSource source;
+        private final long bytes;
+
+        private PendingSource(Batch batch, ImportSource source, long bytes) {
+            this.batch = batch;
+            this.source = source;
+            this.bytes = bytes;
+        }
+    }
+
+    public static class BatchImportResult {
+        public final ImportSource source;
+        public final ImportedPackage importedPackage;
+        public final Throwable failure;
+
+        private BatchImportResult(ImportSource source, ImportedPackage importedPackage,
+                Throwable failure) {
+            this.source = source;
+            this.importedPackage = importedPackage;
+            this.failure = failure;
+        }
+
+        private static BatchImportResult success(ImportSource source,
+                ImportedPackage importedPackage) {
+            return new BatchImportResult(source, importedPackage, null);
+        }
+
+        private static BatchImportResult failure(ImportSource source,
+                Throwable failure) {
+            return new BatchImportResult(source, null, failure);
+        }
+
+        public boolean isSuccessful() {
+            return (failure == null);
+        }
+    }
+}
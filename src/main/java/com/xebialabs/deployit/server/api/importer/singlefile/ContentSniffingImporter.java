@@ -0,0 +1,82 @@
+/*
+ * @(#)ContentSniffingImporter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.FileFormat;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.FormatSniffer;
+
+/**
+ * Supports files by their content rather than their extension, so that e.g. a WAR
+ * named {@code .zip} or an extensionless artifact is recognised. A file is
+ * supported if its {@link FileFormat format} is one of the given formats or a
+ * specialisation of one of them.
+ */
+public abstract class ContentSniffingImporter extends SingleFileImporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentSniffingImporter.class);
+    private static final FormatSniffer SHARED_SNIFFER = new FormatSniffer(10000);
+
+    protected final EnumSet<FileFormat> supportedFormats;
+
+    protected ContentSniffingImporter(Type type, FileFormat... supportedFormats) {
+        super(type);
+        checkArgument(supportedFormats.length > 0, "At least one format is required");
+        this.supportedFormats = EnumSet.noneOf(FileFormat.class);
+        for (FileFormat supportedFormat : supportedFormats) {
+            this.supportedFormats.add(supportedFormat);
+        }
+    }
+
+    @Override
+    protected boolean isSupportedFile(File file) {
+        FileFormat format;
+        try {
+            format = getFormatSniffer().sniff(file);
+        } catch (IOException exception) {
+            LOGGER.debug("Unable to determine format of '{}': {}", file, exception);
+            return false;
+        }
+        for (FileFormat supportedFormat : supportedFormats) {
+            if (format.isA(supportedFormat)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The sniffer, and so the cache of sniffed formats, is shared by all importers
+     * by default.
+     */
+    // override me!
+    protected FormatSniffer getFormatSniffer() {
+        return SHARED_SNIFFER;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * @(#)DeployableFactory.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+
+import com.xebialabs.deployit.plugin.api.reflect.Descriptor;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.ConfigurationItem;
+import com.xebialabs.deployit.plugin.api.util.TypeHierarchyIndex;
+
+/**
+ * Creates configuration items, resolving the {@link Descriptor} of each type from
+ * the {@link DescriptorRegistry} only once per {@link TypeHierarchyIndex#getGeneration()
+ * generation} of the type hierarchy, so descriptors are resolved again once the
+ * registry has changed. Instances are still created by the descriptor, so that they
+ * are initialised as the registry requires.
+ */
+public class DeployableFactory {
+    private final ConcurrentMap<Type, ResolvedDescriptor> descriptors = 
+        new ConcurrentHashMap<Type, ResolvedDescriptor>();
+    
+    public @Nonnull Descriptor getDescriptor(@Nonnull Type type) {
+        long generation = TypeHierarchyIndex.get().getGeneration();
+        ResolvedDescriptor resolved = descriptors.get(type);
+        if ((resolved == null) || (resolved.generation != generation)) {
+            // resolving twice in a race is harmless
+            resolved = new ResolvedDescriptor(DescriptorRegistry.getDescriptor(type),
+                    generation);
+            descriptors.put(type, resolved);
+        }
+        return resolved.descriptor;
+    }
+    
+    public @Nonnull <T extends ConfigurationItem> T newInstance(@Nonnull Type type, 
+            @Nonnull String id) {
+        T instance = getDescriptor(type).<T>newInstance();
+        instance.setId(id);
+        return instance;
+    }
+    
+    /**
+     * @return the ID of the child with the given name of the item with the given ID
+     */
+    public static @Nonnull String childId(@Nonnull String parentId, @Nonnull String name) {
+        return new StringBuilder(parentId.length() + 1 + name.length())
+            .append(parentId).append('/').append(name).toString();
+    }
+
+    private static class ResolvedDescriptor {
+        private final Descriptor descriptor;
+        private final long generation;
+
+        private ResolvedDescriptor(Descriptor descriptor, long generation) {
+            this.descriptor = descriptor;
+            this.generation = generation;
+        }
+    }
+}
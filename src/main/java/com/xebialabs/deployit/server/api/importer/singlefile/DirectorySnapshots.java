@@ -0,0 +1,168 @@
+/*
+ * @(#)DirectorySnapshots.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.collect.Maps.newHashMapWithExpectedSize;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Lists directories incrementally: keeps a snapshot of the last listing of each
+ * directory and only applies the filter to entries that were added or whose size
+ * or modification time changed since. If nothing moved, the previous result is
+ * returned as-is.
+ * <p>
+ * If the directory's modification time and number of entries match the snapshot,
+ * the previous result is returned without reading the attributes of any entry,
+ * unless entries are to be checked. Files modified in place, which does not change
+ * the directory's modification time, are then only noticed once the directory 
+ * changes. Snapshots taken within {@link #SETTLE_MILLIS} of the directory's last
+ * modification are not trusted, since the modification time may be too coarse
+ * to reflect later changes.
+ */
+class DirectorySnapshots {
+    static final long SETTLE_MILLIS = 2000;
+
+    private final ConcurrentMap<Path, Snapshot> snapshots = new ConcurrentHashMap<Path, Snapshot>();
+
+    ImmutableList<String> list(Path directory, Predicate<File> filter) throws IOException {
+        return list(directory, filter, false);
+    }
+
+    /**
+     * @param checkEntries whether to compare the size and modification time of
+     *        every entry with the snapshot even if the directory is unchanged
+     */
+    ImmutableList<String> list(Path directory, Predicate<File> filter, boolean checkEntries)
+            throws IOException {
+        long listed = System.currentTimeMillis();
+        FileTime directoryModified = Files.getLastModifiedTime(directory);
+        Snapshot previous = snapshots.get(directory);
+        if (!checkEntries && (previous != null) && previous.isSettled()
+                && previous.directoryModified.equals(directoryModified)
+                && (countEntries(directory) == previous.entries.size())) {
+            return previous.supportedFiles;
+        }
+
+        boolean changed = ((previous == null)
+                || !previous.directoryModified.equals(directoryModified));
+
+        Map<String, Entry> entries = newHashMapWithExpectedSize(
+                (previous == null) ? 16 : previous.entries.size());
+        ImmutableList.Builder<String> supportedFiles = ImmutableList.builder();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException exception) {
+                    // removed while we were listing
+                    changed = true;
+                    continue;
+                }
+
+                String name = path.getFileName().toString();
+                Entry entry = ((previous != null) ? previous.entries.get(name) : null);
+                if ((entry == null) || !entry.matches(attributes)) {
+                    entry = new Entry(attributes, filter.apply(path.toFile()));
+                    changed = true;
+                }
+                entries.put(name, entry);
+                if (entry.supported) {
+                    supportedFiles.add(name);
+                }
+            }
+        }
+
+        // same mtime and entry count, and no new or modified entries: nothing moved
+        boolean unchanged = (!changed && (entries.size() == previous.entries.size()));
+        Snapshot snapshot = new Snapshot(directoryModified, listed, entries, 
+                (unchanged ? previous.supportedFiles : supportedFiles.build()));
+        snapshots.put(directory, snapshot);
+        return snapshot.supportedFiles;
+    }
+
+    // without reading any attributes
+    private static int countEntries(Path directory) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Iterator<Path> entries = stream.iterator(); entries.hasNext(); entries.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void invalidate(Path directory) {
+        snapshots.remove(directory);
+    }
+
+    private static class Snapshot {
+        private final FileTime directoryModified;
+        private final long listed;
+        private final Map<String, Entry> entries;
+        private final ImmutableList<String> supportedFiles;
+
+        private Snapshot(FileTime directoryModified, long listed, Map<String, Entry> entries,
+                ImmutableList<String> supportedFiles) {
+            this.directoryModified = directoryModified;
+            this.listed = listed;
+            this.entries = entries;
+            this.supportedFiles = supportedFiles;
+        }
+
+        // whether the directory was last modified well before the snapshot was taken
+        private boolean isSettled() {
+            return (directoryModified.toMillis() < listed - SETTLE_MILLIS);
+        }
+    }
+
+    private static class Entry {
+        private final long size;
+        private final FileTime lastModified;
+        private final boolean supported;
+
+        private Entry(BasicFileAttributes attributes, boolean supported) {
+            size = attributes.size();
+            lastModified = attributes.lastModifiedTime();
+            this.supported = supported;
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return (size == attributes.size())
+                    && lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
@@ -36,6 +36,8 @@ public abstract class ExtensionBasedImporter extends SingleFileImporter {
     
     @Override
     protected boolean isSupportedFile(File file) {
-        return file.getName().toLowerCase().endsWith(fileSuffix);
+        String name = file.getName();
+        return name.regionMatches(true, name.length() - fileSuffix.length(), 
+                fileSuffix, 0, fileSuffix.length());
     }
 }
@@ -0,0 +1,190 @@
+/*
+ * @(#)ExtensionDispatchingImporter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.copyOf;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.xebialabs.deployit.server.api.importer.ImportSource;
+import com.xebialabs.deployit.server.api.importer.ImportedPackage;
+import com.xebialabs.deployit.server.api.importer.ImportingContext;
+import com.xebialabs.deployit.server.api.importer.ListableImporter;
+import com.xebialabs.deployit.server.api.importer.PackageInfo;
+
+/**
+ * Dispatches to one of several {@link ExtensionBasedImporter}s by file extension.
+ * The extensions are held in a case-insensitive trie of reversed suffixes, so the
+ * owning importer is found in a single pass over the end of the file name without
+ * allocating. If several extensions match, e.g. {@code .gz} and {@code .tar.gz},
+ * the longest wins.
+ * <p>
+ * Only the importers' extensions are considered: overrides of
+ * {@link ExtensionBasedImporter#isSupportedFile(File)} are not consulted.
+ */
+public class ExtensionDispatchingImporter implements ListableImporter {
+    private static final Logger LOGGER = 
+        LoggerFactory.getLogger(ExtensionDispatchingImporter.class);
+    
+    private final ImmutableList<ExtensionBasedImporter> importers;
+    private final SuffixNode suffixTrie = new SuffixNode();
+    
+    public ExtensionDispatchingImporter(@Nonnull List<? extends ExtensionBasedImporter> importers) {
+        this.importers = copyOf(importers);
+        for (ExtensionBasedImporter importer : importers) {
+            suffixTrie.add(importer.fileSuffix, importer);
+        }
+    }
+    
+    public ExtensionDispatchingImporter(@Nonnull ExtensionBasedImporter... importers) {
+        this(Arrays.asList(importers));
+    }
+    
+    public @Nonnull List<ExtensionBasedImporter> getImporters() {
+        return importers;
+    }
+    
+    /**
+     * @return the importer registered for the longest matching extension of the
+     *         file, or {@code null} if there is none
+     */
+    public @CheckForNull ExtensionBasedImporter getImporter(@Nonnull File file) {
+        return getImporter(file.getPath());
+    }
+    
+    // only looks at the last segment of the path
+    @CheckForNull ExtensionBasedImporter getImporter(String path) {
+        ExtensionBasedImporter owner = null;
+        SuffixNode node = suffixTrie;
+        for (int i = path.length() - 1; i >= 0; i--) {
+            char c = path.charAt(i);
+            if ((c == File.separatorChar) || (c == '/')) {
+                break;
+            }
+            node = node.child(c);
+            if (node == null) {
+                break;
+            }
+            if (node.importer != null) {
+                owner = node.importer;
+            }
+        }
+        return owner;
+    }
+    
+    @Override
+    public List<String> list(File directory) {
+        ImmutableList<String> supportedFiles = copyOf(directory.list(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return (getImporter(name) != null);
+                }
+            }));
+        LOGGER.debug("Found supported files in package directory: {}", supportedFiles);
+        return supportedFiles;
+    }
+    
+    @Override
+    public boolean canHandle(ImportSource source) {
+        return (getImporter(source.getFile()) != null);
+    }
+    
+    @Override
+    public PackageInfo preparePackage(ImportSource source, ImportingContext context) {
+        return getOwner(source).preparePackage(source, context);
+    }
+    
+    @Override
+    public ImportedPackage importEntities(PackageInfo packageInfo, ImportingContext context) {
+        return getOwner(packageInfo.getSource()).importEntities(packageInfo, context);
+    }
+    
+    @Override
+    public void cleanUp(PackageInfo packageInfo, ImportingContext context) {
+        getOwner(packageInfo.getSource()).cleanUp(packageInfo, context);
+    }
+    
+    private ExtensionBasedImporter getOwner(ImportSource source) {
+        ExtensionBasedImporter owner = getImporter(source.getFile());
+        checkArgument(owner != null, "No importer registered for '%s'", source.getFile());
+        return owner;
+    }
+    
+    // same folding as String.regionMatches(true, ...)
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+    
+    private static class SuffixNode {
+        private char[] labels = new char[0];
+        private SuffixNode[] children = new SuffixNode[0];
+        private ExtensionBasedImporter importer;
+        
+        private SuffixNode child(char c) {
+            int index = Arrays.binarySearch(labels, fold(c));
+            return ((index >= 0) ? children[index] : null);
+        }
+        
+        private void add(String suffix, ExtensionBasedImporter suffixImporter) {
+            SuffixNode node = this;
+            for (int i = suffix.length() - 1; i >= 0; i--) {
+                node = node.getOrAddChild(fold(suffix.charAt(i)));
+            }
+            checkArgument(node.importer == null,
+                    "Extension '%s' registered by both %s and %s", suffix, node.importer,
+                    suffixImporter);
+            node.importer = suffixImporter;
+        }
+        
+        private SuffixNode getOrAddChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            
+            int insertionPoint = -(index + 1);
+            char[] newLabels = new char[labels.length + 1];
+            SuffixNode[] newChildren = new SuffixNode[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertionPoint);
+            System.arraycopy(children, 0, newChildren, 0, insertionPoint);
+            newLabels[insertionPoint] = label;
+            newChildren[insertionPoint] = new SuffixNode();
+            System.arraycopy(labels, insertionPoint, newLabels, insertionPoint + 1, 
+                    labels.length - insertionPoint);
+            System.arraycopy(children, insertionPoint, newChildren, insertionPoint + 1, 
+                    children.length - insertionPoint);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertionPoint];
+        }
+    }
+}
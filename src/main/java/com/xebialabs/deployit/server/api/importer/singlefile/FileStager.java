@@ -0,0 +1,300 @@
+/*
+ * @(#)FileStager.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+
+/**
+ * Stages files into a work directory so that imports are not affected by the
+ * source file being replaced. Each file is staged as {@code <key>/<name>}, where
+ * the key is derived from the source's path, file key, size and modification time,
+ * so staging never reads the file if the file system supports hard links: the 
+ * staged file is hard-linked to the source if possible and copied using 
+ * {@link FileChannel#transferTo} otherwise.
+ * <p>
+ * A staged copy is reused by further imports of the unchanged source, including
+ * retries after it was {@link #release(File) released} and imports by later runs,
+ * and is kept until it is {@link #evict(Path, long) evicted}. Staged copies are 
+ * only evicted once no import is using them.
+ * <p>
+ * Note that a hard link only protects against the source being replaced, not
+ * against it being modified in place.
+ */
+class FileStager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileStager.class);
+    
+    // e.g. "3f2a9c0d1e4b5a67-1c00-13a5e2f1b08"
+    private static final Pattern KEY_PATTERN = 
+        Pattern.compile("[0-9a-f]{16}-[0-9a-f]+-[0-9a-f]+");
+    
+    // guarded by "this"; only staged files that are in use
+    private final Map<File, StagedFile> stagedFiles = Maps.newHashMap();
+    
+    StagedFile stage(Path stagingDirectory, File source) throws IOException {
+        BasicFileAttributes sourceAttributes = readAttributes(source.toPath());
+        File staged = stagingDirectory.resolve(getKey(source, sourceAttributes))
+            .resolve(source.getName()).toAbsolutePath().toFile();
+        StagedFile stagedFile;
+        boolean create = false;
+        synchronized (this) {
+            stagedFile = stagedFiles.get(staged);
+            if (stagedFile == null) {
+                stagedFile = new StagedFile(staged, source, sourceAttributes);
+                stagedFiles.put(staged, stagedFile);
+                create = true;
+            }
+            stagedFile.references++;
+        }
+        
+        // linked or copied outside the lock; concurrent imports of the source wait
+        if (create) {
+            stagedFile.creation.run();
+        } else {
+            LOGGER.debug("Reusing staged copy '{}' of '{}'", stagedFile.file, source);
+        }
+        try {
+            stagedFile.creation.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            release(stagedFile.file);
+            throw new InterruptedIOException(format("Interrupted while staging '%s'", source));
+        } catch (ExecutionException exception) {
+            discard(stagedFile);
+            Throwables.propagateIfInstanceOf(exception.getCause(), IOException.class);
+            throw Throwables.propagate(exception.getCause());
+        }
+        return stagedFile;
+    }
+    
+    // the path and file key distinguish sources, the size and time their versions
+    private static String getKey(File source, BasicFileAttributes attributes) {
+        MessageDigest sha1;
+        try {
+            sha1 = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new AssertionError(exception);
+        }
+        sha1.update(source.getAbsolutePath().getBytes(Charsets.UTF_8));
+        Object fileKey = attributes.fileKey();
+        if (fileKey != null) {
+            sha1.update(fileKey.toString().getBytes(Charsets.UTF_8));
+        }
+        StringBuilder key = new StringBuilder(48);
+        byte[] hash = sha1.digest();
+        for (int i = 0; i < 8; i++) {
+            key.append(Character.forDigit((hash[i] >> 4) & 0xf, 16))
+                .append(Character.forDigit(hash[i] & 0xf, 16));
+        }
+        return key.append('-').append(Long.toHexString(attributes.size()))
+            .append('-').append(Long.toHexString(attributes.lastModifiedTime().toMillis()))
+            .toString();
+    }
+    
+    private static void create(Path staged, Path source, 
+            BasicFileAttributes sourceAttributes) throws IOException {
+        Files.createDirectories(staged.getParent());
+        // marks the staged copy as used, for eviction
+        Files.setLastModifiedTime(staged.getParent(), 
+                FileTime.fromMillis(System.currentTimeMillis()));
+        if (isCopyOf(staged, sourceAttributes)) {
+            LOGGER.debug("Reusing staged copy '{}' of '{}' from an earlier import",
+                    staged, source);
+            return;
+        }
+        // e.g. a copy of a source that was modified in place
+        Files.deleteIfExists(staged);
+        if (!link(staged, source)) {
+            copy(staged, source);
+            Files.setLastModifiedTime(staged, sourceAttributes.lastModifiedTime());
+        }
+    }
+    
+    // copies are only moved into place once complete
+    private static boolean isCopyOf(Path staged, BasicFileAttributes sourceAttributes) 
+            throws IOException {
+        BasicFileAttributes stagedAttributes;
+        try {
+            stagedAttributes = readAttributes(staged);
+        } catch (NoSuchFileException exception) {
+            return false;
+        }
+        return stagedAttributes.isRegularFile()
+               && (stagedAttributes.size() == sourceAttributes.size())
+               && stagedAttributes.lastModifiedTime().equals(
+                       sourceAttributes.lastModifiedTime());
+    }
+    
+    private static boolean link(Path staged, Path source) throws IOException {
+        try {
+            Files.createLink(staged, source);
+            LOGGER.debug("Staged '{}' as hard link '{}'", source, staged);
+            return true;
+        } catch (FileAlreadyExistsException exception) {
+            throw exception;
+        } catch (UnsupportedOperationException | FileSystemException exception) {
+            // e.g. a different file store
+            LOGGER.debug("Unable to hard link '{}' to '{}', copying: {}", 
+                    new Object[] { staged, source, exception });
+            return false;
+        }
+    }
+    
+    private static void copy(Path staged, Path source) throws IOException {
+        Path partial = staged.resolveSibling(staged.getFileName() + ".part");
+        Files.deleteIfExists(partial);
+        try (FileChannel in = FileChannel.open(source, READ);
+                FileChannel out = FileChannel.open(partial, CREATE_NEW, WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+        Files.move(partial, staged, ATOMIC_MOVE);
+        LOGGER.debug("Staged '{}' as copy '{}'", source, staged);
+    }
+    
+    /**
+     * @return the staged file for the given file, if it is one that is in use
+     */
+    synchronized StagedFile get(File file) {
+        return stagedFiles.get(file.getAbsoluteFile());
+    }
+    
+    /**
+     * Ends the use of a staged file by an import. The staged file is kept for 
+     * later imports of the same source until it is {@link #evict evicted}.
+     */
+    synchronized void release(File file) {
+        StagedFile stagedFile = stagedFiles.get(file.getAbsoluteFile());
+        if ((stagedFile != null) && (--stagedFile.references == 0)) {
+            stagedFiles.remove(stagedFile.file);
+        }
+    }
+    
+    // drops a staged file whose creation failed, for all imports waiting for it
+    private synchronized void discard(StagedFile stagedFile) {
+        if (stagedFiles.get(stagedFile.file) == stagedFile) {
+            stagedFiles.remove(stagedFile.file);
+        }
+    }
+    
+    /**
+     * Deletes the staged copies in the staging directory that are not in use and 
+     * were last used at least the given time ago. Other files in the staging 
+     * directory are left alone.
+     * 
+     * @return the number of staged sources whose copies were deleted
+     */
+    synchronized int evict(Path stagingDirectory, long unusedMillis) throws IOException {
+        if (!Files.isDirectory(stagingDirectory)) {
+            return 0;
+        }
+        long lastUsedBefore = System.currentTimeMillis() - unusedMillis;
+        int evicted = 0;
+        try (DirectoryStream<Path> keys = Files.newDirectoryStream(stagingDirectory)) {
+            for (Path key : keys) {
+                if (!KEY_PATTERN.matcher(key.getFileName().toString()).matches()
+                        || !Files.isDirectory(key) || isInUse(key)
+                        || (Files.getLastModifiedTime(key).toMillis() > lastUsedBefore)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(key)) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(key);
+                evicted++;
+                LOGGER.debug("Evicted staged copies in '{}'", key);
+            }
+        }
+        return evicted;
+    }
+    
+    // whether a staged file, possibly still being created, is in the directory
+    private boolean isInUse(Path directory) {
+        File parent = directory.toAbsolutePath().toFile();
+        for (File stagedFile : stagedFiles.keySet()) {
+            if (parent.equals(stagedFile.getParentFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+    }
+    
+    static class StagedFile {
+        final File file;
+        final File source;
+        // run by the first import of the source
+        private final FutureTask<Void> creation;
+        // guarded by the stager
+        private int references;
+        
+        private StagedFile(final File file, final File source, 
+                final BasicFileAttributes sourceAttributes) {
+            this.file = file;
+            this.source = source;
+            creation = new FutureTask<Void>(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        create(file.toPath(), source.toPath(), sourceAttributes);
+                        return null;
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * @(#)ImportDirectoryWatcher.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Keeps an always-current list of the files in an import directory that are
+ * supported by a {@link SingleFileImporter}, based on {@link WatchService} events
+ * rather than polling. New or modified files are only listed once their size and
+ * modification time have been stable for the configured quiet period, so files
+ * that are still being written are not picked up. On {@link
+ * java.nio.file.StandardWatchEventKinds#OVERFLOW OVERFLOW} the directory is
+ * rescanned.
+ * <p>
+ * Use {@link SingleFileImporter#watch(java.io.File, long)} to create a watcher
+ * that {@link SingleFileImporter#list(java.io.File)} will serve from.
+ */
+public class ImportDirectoryWatcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportDirectoryWatcher.class);
+
+    private final SingleFileImporter importer;
+    private final Path directory;
+    private final long quietPeriodNanos;
+    private final WatchService watchService;
+    private final Thread watcherThread;
+
+    // only accessed from the watcher thread
+    private final Set<String> supportedFiles = Sets.newLinkedHashSet();
+    private final Map<String, PendingFile> pendingFiles = Maps.newHashMap();
+
+    private volatile ImmutableList<String> supportedFilesSnapshot = ImmutableList.of();
+    private volatile boolean running;
+
+    ImportDirectoryWatcher(SingleFileImporter importer, Path directory,
+            long quietPeriodMillis) throws IOException {
+        checkArgument(quietPeriodMillis >= 0, "Quiet period must be non-negative");
+        this.importer = importer;
+        this.directory = directory;
+        quietPeriodNanos = MILLISECONDS.toNanos(quietPeriodMillis);
+        watchService = directory.getFileSystem().newWatchService();
+        try {
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException | RuntimeException exception) {
+            watchService.close();
+            throw exception;
+        }
+        watcherThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    watch();
+                }
+            }, "import-directory-watcher-" + directory);
+        watcherThread.setDaemon(true);
+    }
+
+    void start() throws IOException {
+        checkState(!running, "Watcher for '%s' is already running", directory);
+        running = true;
+        // register first, then scan, so nothing created in between is missed
+        rescan();
+        watcherThread.start();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public ImmutableList<String> list() {
+        return supportedFilesSnapshot;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (running) {
+                WatchKey key = (pendingFiles.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(Math.max(quietPeriodNanos / 2, 1), NANOSECONDS));
+                if (key != null) {
+                    processEvents(key);
+                    if (!key.reset()) {
+                        LOGGER.warn("Import directory '{}' is no longer accessible", directory);
+                        running = false;
+                    }
+                }
+                checkPendingFiles();
+            }
+        } catch (ClosedWatchServiceException exception) {
+            // closed
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (IOException exception) {
+            LOGGER.error(String.format("Unable to watch import directory '%s'", directory),
+                    exception);
+        } finally {
+            running = false;
+        }
+    }
+
+    private void processEvents(WatchKey key) throws IOException {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOGGER.debug("Missed events for import directory '{}', rescanning", directory);
+                rescan();
+                return;
+            }
+            String name = ((Path) event.context()).toString();
+            if (event.kind() == ENTRY_DELETE) {
+                pendingFiles.remove(name);
+            } else if (!pendingFiles.containsKey(name)) {
+                pendingFiles.put(name, null);
+            }
+            // partially written files are only listed again once stable
+            changed |= supportedFiles.remove(name);
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    private void rescan() throws IOException {
+        supportedFiles.clear();
+        pendingFiles.clear();
+        long now = System.nanoTime();
+        long quietSince = System.currentTimeMillis() - NANOSECONDS.toMillis(quietPeriodNanos);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException exception) {
+                    continue;
+                }
+                // files untouched for the quiet period are not being written to
+                boolean quiet = (attributes.lastModifiedTime().toMillis() <= quietSince);
+                pendingFiles.put(path.getFileName().toString(), new PendingFile(attributes, 
+                        (quiet ? now - quietPeriodNanos : now)));
+            }
+        }
+        checkPendingFiles();
+        publish();
+    }
+
+    private void checkPendingFiles() throws IOException {
+        boolean changed = false;
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<String, PendingFile>> pending =
+                pendingFiles.entrySet().iterator(); pending.hasNext(); ) {
+            Map.Entry<String, PendingFile> pendingFile = pending.next();
+            Path path = directory.resolve(pendingFile.getKey());
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException exception) {
+                pending.remove();
+                continue;
+            }
+
+            PendingFile lastSeen = pendingFile.getValue();
+            if ((lastSeen == null) || !lastSeen.matches(attributes)) {
+                pendingFile.setValue(new PendingFile(attributes, now));
+            }
+            if ((now - pendingFile.getValue().firstSeen) >= quietPeriodNanos) {
+                pending.remove();
+                if (!attributes.isDirectory() && importer.isSupportedFile(path.toFile())) {
+                    changed |= supportedFiles.add(pendingFile.getKey());
+                }
+            }
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    private void publish() {
+        supportedFilesSnapshot = ImmutableList.copyOf(supportedFiles);
+        LOGGER.debug("Supported files in import directory '{}': {}", directory,
+                supportedFilesSnapshot);
+    }
+
+    private static class PendingFile {
+        private final long size;
+        private final long lastModified;
+        // when the current size and modification time were first seen
+        private final long firstSeen;
+
+        private PendingFile(BasicFileAttributes attributes, long firstSeen) {
+            size = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+            this.firstSeen = firstSeen;
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return (size == attributes.size())
+                    && (lastModified == attributes.lastModifiedTime().toMillis());
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * @(#)ImportIndex.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import com.xebialabs.deployit.server.api.importer.singlefile.SingleFileImporter.PackageMetadata;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest;
+
+/**
+ * A persistent index of the files in an import directory, mapping each file's
+ * name, size and modification time to the metadata derived from it, its content
+ * digest (if known) and whether it was imported.
+ * <p>
+ * The index is an append-only log of checksummed records, so a crash while
+ * writing can at most lose the records not yet written to disk, which are
+ * discarded on load. Records are not forced to disk individually: a lost record
+ * only means the file's metadata is derived again. The log is compacted once it
+ * contains more superseded records than live ones, dropping the entries of files
+ * that no longer exist.
+ * <p>
+ * The index of a directory is stored in it, as a hidden file that is skipped by
+ * listings, and is shared by all importers in the JVM for as long as it is in use
+ * or memory permits.
+ */
+class ImportIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportIndex.class);
+
+    private static final int MAGIC = 0x53464949; // "SFII"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+    private static final int MIN_COMPACTION_RECORDS = 64;
+    private static final String INDEX_FILE_NAME = ".single-file-importer.idx";
+
+    // keyed by the real path of the import directory
+    private static final Map<Path, ImportIndex> INDEXES = 
+        new MapMaker().softValues().makeMap();
+
+    private final Path indexFile;
+    // if set, entries of files no longer in this directory are dropped
+    private final Path directory;
+
+    // guarded by "this", in the order in which entries were last recorded
+    private final Map<String, Entry> entries = Maps.newLinkedHashMap();
+    private int records;
+
+    private ImportIndex(Path indexFile, Path directory) {
+        this.indexFile = indexFile;
+        this.directory = directory;
+    }
+
+    /**
+     * @return the index of the given import directory
+     */
+    static @Nonnull ImportIndex forDirectory(@Nonnull Path directory) throws IOException {
+        Path realDirectory = directory.toRealPath();
+        synchronized (INDEXES) {
+            ImportIndex index = INDEXES.get(realDirectory);
+            if (index == null) {
+                index = new ImportIndex(getIndexFile(realDirectory), realDirectory);
+                index.load();
+                INDEXES.put(realDirectory, index);
+            }
+            return index;
+        }
+    }
+
+    // e.g. "/srv/imports/.single-file-importer.idx" for "/srv/imports"
+    static @Nonnull Path getIndexFile(@Nonnull Path directory) {
+        return directory.resolve(INDEX_FILE_NAME);
+    }
+
+    /**
+     * Opens an index file independently of the {@link #forDirectory shared}
+     * indexes, e.g. to read it as a restarted JVM would.
+     */
+    static @Nonnull ImportIndex open(@Nonnull Path indexFile, @Nullable Path directory)
+            throws IOException {
+        ImportIndex index = new ImportIndex(indexFile, directory);
+        index.load();
+        return index;
+    }
+
+    /**
+     * @return the entry for the file, if the file has not changed since it was
+     *         recorded
+     */
+    synchronized @CheckForNull Entry lookup(@Nonnull String name,
+            @Nonnull BasicFileAttributes attributes) {
+        Entry entry = entries.get(name);
+        return (((entry != null) && entry.matches(attributes)) ? entry : null);
+    }
+
+    /**
+     * @return an imported entry for a file with the given digest and application
+     *         name and version, if any
+     */
+    synchronized @CheckForNull Entry findImported(@Nonnull ContentDigest digest,
+            @Nonnull PackageMetadata metadata) {
+        for (Entry entry : entries.values()) {
+            if (entry.imported && digest.equals(entry.digest)
+                    && metadata.appName.equals(entry.metadata.appName)
+                    && metadata.appVersion.equals(entry.metadata.appVersion)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the most recently recorded imported entry with the given application
+     *         name and a different version, if any
+     */
+    synchronized @CheckForNull Entry findLatestImported(@Nonnull String appName,
+            @Nonnull String excludedVersion) {
+        Entry latest = null;
+        for (Entry entry : entries.values()) {
+            if (entry.imported && appName.equals(entry.metadata.appName)
+                    && !excludedVersion.equals(entry.metadata.appVersion)) {
+                latest = entry;
+            }
+        }
+        return latest;
+    }
+
+    synchronized void record(@Nonnull Entry entry) throws IOException {
+        put(entry);
+        records++;
+        if (shouldCompact()) {
+            compact();
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(indexFile, CREATE, WRITE, APPEND)) {
+            if (channel.size() == 0) {
+                channel.write(header());
+            }
+            writeFully(channel, encode(entry));
+        }
+    }
+
+    private boolean shouldCompact() {
+        return (records >= MIN_COMPACTION_RECORDS) && (records > 2 * entries.size());
+    }
+
+    private void compact() throws IOException {
+        if (directory != null) {
+            for (Iterator<String> names = entries.keySet().iterator(); names.hasNext(); ) {
+                if (!Files.exists(directory.resolve(names.next()))) {
+                    names.remove();
+                }
+            }
+        }
+        Path compacted = Files.createTempFile(indexFile.getParent(),
+                indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(compacted, WRITE)) {
+                channel.write(header());
+                for (Entry entry : entries.values()) {
+                    writeFully(channel, encode(entry));
+                }
+                channel.force(false);
+            }
+            Files.move(compacted, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(compacted);
+        }
+        LOGGER.debug("Compacted import index '{}' from {} to {} records",
+                new Object[] { indexFile, records, entries.size() });
+        records = entries.size();
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+
+        long validLength = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(indexFile))) {
+            DataInputStream log = new DataInputStream(in);
+            if ((log.readInt() != MAGIC) || (log.readInt() != VERSION)) {
+                LOGGER.warn("Discarding import index '{}' with unknown format", indexFile);
+            } else {
+                validLength = HEADER_LENGTH;
+                while (true) {
+                    int length = log.readInt();
+                    long checksum = log.readInt() & 0xffffffffL;
+                    if ((length < 0) || (length > MAX_RECORD_LENGTH)) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    log.readFully(payload);
+                    if (crc32(payload) != checksum) {
+                        break;
+                    }
+                    put(decode(payload));
+                    records++;
+                    validLength += 8 + length;
+                }
+            }
+        } catch (EOFException exception) {
+            // end of log, possibly a partially written last record
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn(String.format("Unable to read import index '%s' beyond offset %d",
+                    indexFile, validLength), exception);
+        }
+
+        if (validLength < Files.size(indexFile)) {
+            LOGGER.warn("Discarding corrupt tail of import index '{}' from offset {}", 
+                    indexFile, validLength);
+            try (FileChannel channel = FileChannel.open(indexFile, WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+        if (shouldCompact() || hasDeletedFiles()) {
+            compact();
+        }
+    }
+
+    private boolean hasDeletedFiles() {
+        if (directory != null) {
+            for (String name : entries.keySet()) {
+                if (!Files.exists(directory.resolve(name))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void put(Entry entry) {
+        // move the entry to the end
+        entries.remove(entry.name);
+        entries.put(entry.name, entry);
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+
+    private static ByteBuffer encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeUTF(entry.name);
+        payload.writeLong(entry.size);
+        payload.writeLong(entry.lastModified);
+        payload.writeUTF(entry.metadata.appName);
+        payload.writeUTF(entry.metadata.appVersion);
+        payload.writeBoolean(entry.imported);
+        if (entry.digest == null) {
+            payload.writeInt(-1);
+        } else {
+            Map<String, String> digests = entry.digest.getDigests();
+            payload.writeInt(digests.size());
+            payload.writeLong(entry.digest.size);
+            for (Map.Entry<String, String> digest : digests.entrySet()) {
+                payload.writeUTF(digest.getKey());
+                payload.writeUTF(digest.getValue());
+            }
+        }
+        payload.flush();
+
+        byte[] encoded = bytes.toByteArray();
+        ByteBuffer record = ByteBuffer.allocate(8 + encoded.length);
+        record.putInt(encoded.length).putInt((int) crc32(encoded)).put(encoded).flip();
+        return record;
+    }
+
+    private static Entry decode(byte[] encoded) throws IOException {
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(encoded));
+        String name = payload.readUTF();
+        long size = payload.readLong();
+        long lastModified = payload.readLong();
+        PackageMetadata metadata = new PackageMetadata(payload.readUTF(), payload.readUTF());
+        boolean imported = payload.readBoolean();
+        ContentDigest digest = null;
+        int digestCount = payload.readInt();
+        if (digestCount >= 0) {
+            long digestedSize = payload.readLong();
+            Map<String, String> digests = Maps.newLinkedHashMap();
+            for (int i = 0; i < digestCount; i++) {
+                digests.put(payload.readUTF(), payload.readUTF());
+            }
+            digest = new ContentDigest(digestedSize, digests);
+        }
+        return new Entry(name, size, lastModified, metadata, digest, imported);
+    }
+
+    private static long crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    static class Entry {
+        final String name;
+        final long size;
+        final long lastModified;
+        final PackageMetadata metadata;
+        final ContentDigest digest;
+        final boolean imported;
+
+        Entry(String name, BasicFileAttributes attributes, PackageMetadata metadata) {
+            this(name, attributes.size(), attributes.lastModifiedTime().toMillis(), metadata,
+                    null, false);
+        }
+
+        private Entry(String name, long size, long lastModified, PackageMetadata metadata,
+                ContentDigest digest, boolean imported) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.metadata = metadata;
+            this.digest = digest;
+            this.imported = imported;
+        }
+
+        Entry withDigest(ContentDigest digest) {
+            return new Entry(name, size, lastModified, metadata, digest, imported);
+        }
+
+        Entry asImported() {
+            return new Entry(name, size, lastModified, metadata, digest, true);
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return (size == attributes.size())
+                    && (lastModified == attributes.lastModifiedTime().toMillis());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * @(#)ImportStatistics.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.CaseFormat;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.PhaseStatistics;
+
+/**
+ * {@link PhaseStatistics} for each {@link Phase} of the imports done by one 
+ * importer class, shared by all instances of the class. Each phase is published
+ * as an MBean named {@value #DOMAIN}{@code :type=ImportStatistics,importer=<class 
+ * name>,phase=<phase>}.
+ * <p>
+ * Statistics are kept by class name, without holding on to the class. If a 
+ * different class of the same name, e.g. from a redeployed class loader, asks for
+ * statistics, it gets new ones that replace the published MBeans. Call {@link 
+ * #unregister(Class)} when an importer class is unloaded.
+ */
+public final class ImportStatistics {
+    public static final String DOMAIN = "com.xebialabs.deployit.importer";
+    
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportStatistics.class);
+    
+    private static final ConcurrentMap<String, ImportStatistics> STATISTICS = 
+        new ConcurrentHashMap<String, ImportStatistics>();
+    
+    public enum Phase {
+        LIST, CAN_HANDLE, PREPARE_PACKAGE, GET_PACKAGE_METADATA, GET_DEPLOYABLES, CLEAN_UP;
+        
+        private final String mbeanName = 
+            CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, name());
+    }
+    
+    private final String importerClassName;
+    private final WeakReference<Class<?>> importerClass;
+    private final PhaseStatistics[] phases = new PhaseStatistics[Phase.values().length];
+    
+    private ImportStatistics(Class<?> importerClass) {
+        importerClassName = importerClass.getName();
+        this.importerClass = new WeakReference<Class<?>>(importerClass);
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new PhaseStatistics();
+        }
+    }
+    
+    public static @Nonnull ImportStatistics forImporter(@Nonnull Class<?> importerClass) {
+        ImportStatistics statistics = STATISTICS.get(importerClass.getName());
+        if ((statistics != null) && statistics.isFor(importerClass)) {
+            return statistics;
+        }
+        synchronized (STATISTICS) {
+            statistics = STATISTICS.get(importerClass.getName());
+            if ((statistics != null) && statistics.isFor(importerClass)) {
+                return statistics;
+            }
+            // none yet, or those of a stale class of the same name
+            ImportStatistics newStatistics = new ImportStatistics(importerClass);
+            newStatistics.register(ManagementFactory.getPlatformMBeanServer());
+            STATISTICS.put(importerClass.getName(), newStatistics);
+            return newStatistics;
+        }
+    }
+    
+    /**
+     * Forgets the statistics of the importer class and unregisters their MBeans.
+     */
+    public static void unregister(@Nonnull Class<?> importerClass) {
+        synchronized (STATISTICS) {
+            ImportStatistics statistics = STATISTICS.get(importerClass.getName());
+            if ((statistics == null) || !statistics.isFor(importerClass)) {
+                return;
+            }
+            STATISTICS.remove(importerClass.getName());
+            statistics.unregister(ManagementFactory.getPlatformMBeanServer());
+        }
+    }
+    
+    private boolean isFor(Class<?> importerClass) {
+        return (this.importerClass.get() == importerClass);
+    }
+    
+    public @Nonnull PhaseStatistics get(@Nonnull Phase phase) {
+        return phases[phase.ordinal()];
+    }
+    
+    public @Nonnull Map<Phase, PhaseStatistics> getAll() {
+        Map<Phase, PhaseStatistics> all = new EnumMap<Phase, PhaseStatistics>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            all.put(phase, get(phase));
+        }
+        return all;
+    }
+    
+    static @Nonnull ObjectName getObjectName(@Nonnull Class<?> importerClass, 
+            @Nonnull Phase phase) throws JMException {
+        return getObjectName(importerClass.getName(), phase);
+    }
+    
+    private static ObjectName getObjectName(String importerClassName, Phase phase) 
+            throws JMException {
+        return new ObjectName(String.format("%s:type=ImportStatistics,importer=%s,phase=%s", 
+                DOMAIN, ObjectName.quote(importerClassName), phase.mbeanName));
+    }
+    
+    private void register(MBeanServer server) {
+        for (Phase phase : Phase.values()) {
+            try {
+                ObjectName name = getObjectName(importerClassName, phase);
+                // e.g. left by an earlier class of the same name
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(get(phase), name);
+            } catch (JMException exception) {
+                // statistics are still recorded, just not published
+                LOGGER.warn(String.format("Unable to register %s statistics of %s", phase, 
+                        importerClassName), exception);
+            }
+        }
+    }
+    
+    private void unregister(MBeanServer server) {
+        for (Phase phase : Phase.values()) {
+            try {
+                server.unregisterMBean(getObjectName(importerClassName, phase));
+            } catch (JMException exception) {
+                LOGGER.debug("Unable to unregister {} statistics of {}: {}", new Object[] { 
+                        phase, importerClassName, exception });
+            }
+        }
+    }
+}
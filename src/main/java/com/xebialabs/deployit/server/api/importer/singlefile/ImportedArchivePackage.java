@@ -0,0 +1,56 @@
+/*
+ * @(#)ImportedArchivePackage.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.xebialabs.deployit.server.api.importer.ImportedPackage;
+import com.xebialabs.deployit.server.api.importer.PackageInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ArchiveDelta;
+
+/**
+ * An imported package carrying the {@link ArchiveDelta delta} to the previously 
+ * imported version of the same application, if any.
+ */
+public class ImportedArchivePackage extends ImportedPackage {
+    private final String previousVersion;
+    private final ArchiveDelta delta;
+    
+    public ImportedArchivePackage(@Nonnull PackageInfo packageInfo, 
+            @CheckForNull String previousVersion, @CheckForNull ArchiveDelta delta) {
+        super(packageInfo);
+        this.previousVersion = previousVersion;
+        this.delta = delta;
+    }
+    
+    /**
+     * @return the version the {@link #getDelta() delta} is relative to, or 
+     *         {@code null} if there is no previous version
+     */
+    public @CheckForNull String getPreviousVersion() {
+        return previousVersion;
+    }
+    
+    public @CheckForNull ArchiveDelta getDelta() {
+        return delta;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * @(#)RecursiveLister.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveTask;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Lists the supported files in a directory tree, up to a maximum depth, on a
+ * fork/join pool: each directory is listed by its own task, which also applies
+ * the filter to the directory's files. Hidden and temporary files and directories
+ * are skipped, and symbolic links to directories are not followed.
+ * <p>
+ * Files are returned as paths relative to the root, using {@code '/'} as the 
+ * separator.
+ */
+class RecursiveLister {
+    private final ForkJoinPool pool;
+    private final int maxDepth;
+    private final Predicate<File> filter;
+
+    RecursiveLister(ForkJoinPool pool, int maxDepth, Predicate<File> filter) {
+        checkArgument(maxDepth > 0, "Maximum depth must be positive");
+        this.pool = pool;
+        this.maxDepth = maxDepth;
+        this.filter = filter;
+    }
+
+    /**
+     * @return the supported files, ordered by path
+     */
+    ImmutableList<String> list(Path root) throws IOException {
+        try {
+            return ImmutableList.copyOf(pool.invoke(new ListDirectory(root, "", 1, null)));
+        } catch (RuntimeException exception) {
+            throw unwrap(exception);
+        }
+    }
+
+    /**
+     * @return the supported files, in the order in which they are found. The walk
+     *         continues in the background; an error is thrown by the iterator once
+     *         the files found before it have been returned.
+     */
+    Iterator<String> stream(Path root) {
+        final BlockingQueue<Object> found = new LinkedBlockingQueue<Object>();
+        final Object endOfWalk = new Object();
+        final ListDirectory walk = new ListDirectory(root, "", 1, found) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected List<String> compute() {
+                /*
+                 * The failure is handed over with the marker: the task is only marked
+                 * as completed abnormally after compute returns, i.e. possibly after
+                 * the iterator has seen the marker.
+                 */
+                try {
+                    List<String> files = super.compute();
+                    found.add(endOfWalk);
+                    return files;
+                } catch (RuntimeException | Error exception) {
+                    found.add(new WalkFailure(exception));
+                    throw exception;
+                }
+            }
+        };
+        pool.execute(walk);
+        return new AbstractIterator<String>() {
+            @Override
+            protected String computeNext() {
+                Object next;
+                try {
+                    next = found.take();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw Throwables.propagate(exception);
+                }
+                if (next == endOfWalk) {
+                    return endOfData();
+                }
+                if (next instanceof WalkFailure) {
+                    throw Throwables.propagate(unwrap(((WalkFailure) next).cause));
+                }
+                return (String) next;
+            }
+        };
+    }
+
+    static boolean isExcluded(String name) {
+        String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+        return name.startsWith(".") || name.endsWith("~") || name.startsWith("~$")
+               || lowerCaseName.endsWith(".tmp") || lowerCaseName.endsWith(".part")
+               || lowerCaseName.endsWith(".swp");
+    }
+
+    private static IOException unwrap(Throwable exception) {
+        // the pool may rethrow a copy of the original exception
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return (IOException) cause;
+            }
+        }
+        throw Throwables.propagate(exception);
+    }
+
+    private class ListDirectory extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final String relativePath;
+        private final int depth;
+        // if not null, supported files are also added here as they are found
+        private final BlockingQueue<Object> found;
+
+        private ListDirectory(Path directory, String relativePath, int depth,
+                BlockingQueue<Object> found) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+            this.depth = depth;
+            this.found = found;
+        }
+
+        @Override
+        protected List<String> compute() {
+            try {
+                return listDirectory();
+            } catch (IOException exception) {
+                throw new DirectoryListingException(exception);
+            }
+        }
+
+        private List<String> listDirectory() throws IOException {
+            List<String> names = Lists.newArrayList();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    if (!isExcluded(name)) {
+                        names.add(name);
+                    }
+                }
+            } catch (NoSuchFileException exception) {
+                // removed while we were walking
+                if (depth > 1) {
+                    return Collections.emptyList();
+                }
+                throw exception;
+            }
+            Collections.sort(names);
+
+            // entries are files, or subdirectory listings to be joined
+            List<Object> entries = Lists.newArrayListWithCapacity(names.size());
+            for (String name : names) {
+                Path path = directory.resolve(name);
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class,
+                            NOFOLLOW_LINKS);
+                } catch (NoSuchFileException exception) {
+                    continue;
+                }
+                String relativeName = relativePath + name;
+                if (attributes.isDirectory()) {
+                    if (depth < maxDepth) {
+                        ListDirectory subdirectory = new ListDirectory(path, 
+                                relativeName + '/', depth + 1, found);
+                        subdirectory.fork();
+                        entries.add(subdirectory);
+                    }
+                } else if ((attributes.isRegularFile() 
+                            || (attributes.isSymbolicLink() && Files.isRegularFile(path)))
+                        && filter.apply(path.toFile())) {
+                    if (found != null) {
+                        found.add(relativeName);
+                    }
+                    entries.add(relativeName);
+                }
+            }
+
+            List<String> supportedFiles = Lists.newArrayList();
+            for (Object entry : entries) {
+                if (entry instanceof ListDirectory) {
+                    supportedFiles.addAll(((ListDirectory) entry).join());
+                } else {
+                    supportedFiles.add((String) entry);
+                }
+            }
+            return supportedFiles;
+        }
+    }
+
+    private static class WalkFailure {
+        private final Throwable cause;
+
+        private WalkFailure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private static class DirectoryListingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private DirectoryListingException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -22,19 +22,32 @@ package com.xebialabs.deployit.server.api.importer.singlefile;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.copyOf;
-import static com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry.getDescriptor;
 import static java.lang.String.format;
 
 import java.io.File;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.Manifest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.xebialabs.deployit.plugin.api.reflect.Descriptor;
+import com.xebialabs.deployit.plugin.api.reflect.PropertyDescriptor;
 import com.xebialabs.deployit.plugin.api.reflect.Type;
 import com.xebialabs.deployit.plugin.api.udm.Deployable;
 import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
@@ -44,17 +57,51 @@ import com.xebialabs.deployit.server.api.importer.ImportedPackage;
 import com.xebialabs.deployit.server.api.importer.ImportingContext;
 import com.xebialabs.deployit.server.api.importer.ListableImporter;
 import com.xebialabs.deployit.server.api.importer.PackageInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.ImportStatistics.Phase;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ArchiveDelta;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ChunkConsumer;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigester;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.FusedAnalyzer;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.FusedAnalyzer.Task;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ManifestNameVersionParser;
 import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion;
 import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ZipIntegrityVerifier;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ZipStreamVerifier;
 import com.xebialabs.overthere.local.LocalFile;
 
 public abstract class SingleFileImporter implements ListableImporter {
     private static final String DEFAULT_APP_VERSION = "1.0";
     private static final NameVersionParser NAME_VERSION_PARSER = new NameVersionParser();
-
+    private static final ManifestNameVersionParser MANIFEST_NAME_VERSION_PARSER = 
+        new ManifestNameVersionParser(NAME_VERSION_PARSER);
+    private static final FusedAnalyzer FUSED_ANALYZER = new FusedAnalyzer();
+    // shared, so that staged copies in use by any importer are not evicted
+    private static final FileStager FILE_STAGER = new FileStager();
+    
+    protected static final String CHECKSUM_PROPERTY = "checksum";
+    protected static final String CHECKSUM_ALGORITHM_PROPERTY = "checksumAlgorithm";
+    protected static final String MD5_CHECKSUM_PROPERTY = "md5Checksum";
+    
+    /**
+     * Set to {@code true} in the importing context if the file being imported was 
+     * already imported under the same application name and version.
+     */
+    public static final String DUPLICATE_ATTRIBUTE = "singleFileImporter.duplicate";
+    
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileImporter.class);
     
     protected final Type type;
+    private final DirectorySnapshots directorySnapshots = new DirectorySnapshots();
+    private final ConcurrentMap<File, ImportDirectoryWatcher> watchers = 
+        new ConcurrentHashMap<File, ImportDirectoryWatcher>();
+    private final DeployableFactory deployableFactory = new DeployableFactory();
+    private final ConcurrentMap<File, AnalysisResult> analysisResults = 
+        new ConcurrentHashMap<File, AnalysisResult>();
+    // the size of each prepared package's file when it was prepared, until cleaned up
+    private final ConcurrentMap<File, Long> preparedSizes = 
+        new ConcurrentHashMap<File, Long>();
     
     protected SingleFileImporter(Type type) {
         checkArgument(isBaseDeployableFileType(type), "'%s' must be a subtype of %s", 
@@ -68,39 +115,543 @@ public abstract class SingleFileImporter implements ListableImporter {
     
     @Override
     public List<String> list(File directory) {
-        ImmutableList<String> supportedFiles = copyOf(directory.list(new FilenameFilter() {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            List<String> supportedFiles = listSupportedFiles(directory);
+            succeeded = true;
+            return supportedFiles;
+        } finally {
+            record(Phase.LIST, start, 0, succeeded);
+        }
+    }
+    
+    private List<String> listSupportedFiles(File directory) {
+        ImportDirectoryWatcher watcher = watchers.get(directory.getAbsoluteFile());
+        if ((watcher != null) && watcher.isRunning()) {
+            return watcher.list();
+        }
+        
+        ImmutableList<String> supportedFiles;
+        if (getListingDepth() > 1) {
+            supportedFiles = listRecursively(directory);
+        } else if (isIncrementalListingEnabled()) {
+            supportedFiles = listIncrementally(directory);
+        } else {
+            supportedFiles = copyOf(directory.list(new FilenameFilter() {
                     @Override
                     public boolean accept(File dir, String name) {
                         return isSupportedFile(new File(dir, name));
                     }
                 }));
+        }
         LOGGER.debug("Found supported files in package directory: {}", supportedFiles);
         return supportedFiles;
     }
     
+    /**
+     * Lists the supported files in the directory as for {@link #list(File)}, with 
+     * the application name and version of each as returned by {@link 
+     * #getPackageMetadata(File)}.
+     */
+    public VersionedListing listVersioned(File directory) {
+        List<String> supportedFiles = list(directory);
+        List<VersionedListing.Entry> entries = 
+            Lists.newArrayListWithCapacity(supportedFiles.size());
+        for (String supportedFile : supportedFiles) {
+            entries.add(new VersionedListing.Entry(supportedFile, 
+                    timedGetPackageMetadata(new File(directory, supportedFile))));
+        }
+        return new VersionedListing(entries);
+    }
+    
+    private ImmutableList<String> listRecursively(File directory) {
+        try {
+            return newRecursiveLister().list(directory.toPath());
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    /**
+     * Lists the supported files in the directory tree up to the {@link 
+     * #getListingDepth() listing depth}, returning them as they are found so that
+     * callers can start importing before the walk completes. Unlike {@link 
+     * #list(File)}, the files are not in a stable order.
+     */
+    public Iterator<String> listStreaming(File directory) {
+        return newRecursiveLister().stream(directory.toPath());
+    }
+    
+    private RecursiveLister newRecursiveLister() {
+        return new RecursiveLister(getListingPool(), getListingDepth(), 
+                new Predicate<File>() {
+                    @Override
+                    public boolean apply(File input) {
+                        return isSupportedFile(input);
+                    }
+                });
+    }
+    
+    /**
+     * If greater than 1, {@link #list(File)} walks the directory tree up to this 
+     * depth, in parallel on the {@link #getListingPool() listing pool}, and 
+     * returns the supported files as relative paths ordered by path. Hidden and 
+     * temporary files and directories are skipped. {@link #isSupportedFile(File)} 
+     * is called on the pool's threads.
+     */
+    // override me!
+    protected int getListingDepth() {
+        return 1;
+    }
+    
+    // override me!
+    protected ForkJoinPool getListingPool() {
+        return ListingPoolHolder.POOL;
+    }
+    
+    private static class ListingPoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+    
+    private ImmutableList<String> listIncrementally(File directory) {
+        try {
+            return directorySnapshots.list(directory.toPath(), new Predicate<File>() {
+                    @Override
+                    public boolean apply(File input) {
+                        return isSupportedFile(input);
+                    }
+                }, isIncrementalListingEntryCheckEnabled());
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    /**
+     * If {@code true}, {@link #list(File)} keeps a snapshot of each directory and
+     * only calls {@link #isSupportedFile(File)} for entries that were added or 
+     * changed since the previous call. Only enable this if the result of 
+     * {@code isSupportedFile} depends on nothing but the file's name, size and 
+     * modification time.
+     */
+    // override me!
+    protected boolean isIncrementalListingEnabled() {
+        return false;
+    }
+    
+    /**
+     * If {@code true}, {@link #isIncrementalListingEnabled() incremental listing} 
+     * compares the size and modification time of every entry with the snapshot, 
+     * so that files modified in place are noticed, even if the directory itself 
+     * has not changed. Otherwise, an unchanged directory's entries are not read.
+     */
+    // override me!
+    protected boolean isIncrementalListingEntryCheckEnabled() {
+        return false;
+    }
+    
+    /**
+     * Starts watching the given directory for changes, after which {@link #list(File)}
+     * serves the directory's supported files from the watcher rather than scanning 
+     * it. Files are only listed once their size and modification time have been 
+     * stable for {@code quietPeriodMillis}. Close the returned watcher to stop 
+     * watching.
+     */
+    public ImportDirectoryWatcher watch(File directory, long quietPeriodMillis) 
+            throws IOException {
+        File key = directory.getAbsoluteFile();
+        while (true) {
+            ImportDirectoryWatcher watcher = watchers.get(key);
+            if ((watcher != null) && watcher.isRunning()) {
+                return watcher;
+            }
+            // only started watchers are published
+            ImportDirectoryWatcher newWatcher = 
+                new ImportDirectoryWatcher(this, key.toPath(), quietPeriodMillis);
+            try {
+                newWatcher.start();
+            } catch (IOException | RuntimeException exception) {
+                closeWatcher(newWatcher);
+                throw exception;
+            }
+            if ((watcher == null) 
+                    ? (watchers.putIfAbsent(key, newWatcher) == null) 
+                    : watchers.replace(key, watcher, newWatcher)) {
+                if (watcher != null) {
+                    // stopped, but not necessarily closed
+                    closeWatcher(watcher);
+                }
+                LOGGER.debug("Watching package directory '{}'", key);
+                return newWatcher;
+            }
+            // lost the race to another caller, whose watcher is checked next
+            closeWatcher(newWatcher);
+        }
+    }
+    
+    private static void closeWatcher(ImportDirectoryWatcher watcher) {
+        try {
+            watcher.close();
+        } catch (IOException exception) {
+            LOGGER.warn(format("Unable to close watcher of '%s'", watcher.getDirectory()), 
+                    exception);
+        }
+    }
+    
     protected abstract boolean isSupportedFile(File file);
 
     @Override
     public boolean canHandle(ImportSource source) {
-        return isSupportedFile(source.getFile());
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            boolean supported = isSupportedFile(source.getFile());
+            succeeded = true;
+            return supported;
+        } finally {
+            record(Phase.CAN_HANDLE, start, 0, succeeded);
+        }
     }
     
     @Override
     public PackageInfo preparePackage(ImportSource source, ImportingContext context) {
-        PackageMetadata packageMetadata = getPackageMetadata(source.getFile());
-        PackageInfo packageInfo = new PackageInfo(source);
-        packageInfo.setApplicationName(packageMetadata.appName);
-        packageInfo.setApplicationVersion(packageMetadata.appVersion);
-        return packageInfo;
+        long start = System.nanoTime();
+        long size = source.getFile().length();
+        boolean succeeded = false;
+        try {
+            AdmissionController.Permit permit = admit(source.getFile(), size);
+            try {
+                PackageInfo packageInfo = prepare(source, context);
+                preparedSizes.put(packageInfo.getSource().getFile(), size);
+                succeeded = true;
+                return packageInfo;
+            } finally {
+                release(permit);
+            }
+        } finally {
+            record(Phase.PREPARE_PACKAGE, start, size, succeeded);
+        }
+    }
+    
+    private AdmissionController.Permit admit(File file, long size) {
+        AdmissionController admissionController = getAdmissionController();
+        return ((admissionController != null) 
+                ? admissionController.acquire(size, file.getPath()) 
+                : null);
+    }
+    
+    private static void release(AdmissionController.Permit permit) {
+        if (permit != null) {
+            permit.release();
+        }
+    }
+    
+    /**
+     * @return the controller that limits the total size of the files being 
+     *         prepared or imported at the same time, or {@code null} if imports 
+     *         should not be limited. Return the same controller from all importers 
+     *         that should share a budget.
+     */
+    // override me!
+    protected AdmissionController getAdmissionController() {
+        return null;
+    }
+    
+    private PackageInfo prepare(ImportSource source, ImportingContext context) {
+        File stagingDirectory = getStagingDirectory();
+        ImportSource importSource = ((stagingDirectory != null) 
+                ? stage(source, stagingDirectory) 
+                : source);
+        boolean prepared = false;
+        try {
+            ZipIntegrityVerifier archiveVerifier = getArchiveVerifier();
+            if (isFusedAnalysisEnabled()) {
+                analyze(importSource.getFile(), (archiveVerifier != null));
+            } else if (archiveVerifier != null) {
+                verifyArchive(importSource.getFile(), archiveVerifier);
+            }
+            PackageMetadata packageMetadata = (isImportIndexEnabled() 
+                    ? getIndexedPackageMetadata(source.getFile(), context) 
+                    : timedGetPackageMetadata(importSource.getFile()));
+            PackageInfo packageInfo = new PackageInfo(importSource);
+            packageInfo.setApplicationName(packageMetadata.appName);
+            packageInfo.setApplicationVersion(packageMetadata.appVersion);
+            prepared = true;
+            return packageInfo;
+        } finally {
+            // cleanUp is not called for packages that could not be prepared
+            if (!prepared) {
+                analysisResults.remove(getSourceFile(importSource.getFile()));
+                releaseStagedFile(importSource.getFile());
+            }
+        }
+    }
+    
+    private ImportSource stage(ImportSource source, File stagingDirectory) {
+        try {
+            FileStager.StagedFile stagedFile = 
+                FILE_STAGER.stage(stagingDirectory.toPath(), source.getFile());
+            return new StagedImportSource(source, stagedFile.file);
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    /**
+     * @return the work directory into which files are staged before being imported,
+     *         so that the imported artifacts are not affected if the source file is
+     *         replaced, or {@code null} if files should be imported in place. Staged
+     *         copies are reused by later imports of the unchanged source, and kept
+     *         until {@link #evictStagedFiles(long) evicted}.
+     */
+    // override me!
+    protected File getStagingDirectory() {
+        return null;
+    }
+    
+    /**
+     * Deletes the staged copies in the {@link #getStagingDirectory() staging 
+     * directory} that no import is using and that were last used at least 
+     * {@code unusedMillis} ago.
+     * 
+     * @return the number of staged sources whose copies were deleted
+     */
+    public int evictStagedFiles(long unusedMillis) {
+        File stagingDirectory = getStagingDirectory();
+        if (stagingDirectory == null) {
+            return 0;
+        }
+        try {
+            return FILE_STAGER.evict(stagingDirectory.toPath(), unusedMillis);
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    // the file in the import directory for a staged file
+    private File getSourceFile(File file) {
+        FileStager.StagedFile stagedFile = FILE_STAGER.get(file);
+        return ((stagedFile != null) ? stagedFile.source : file);
+    }
+    
+    private static class StagedImportSource implements ImportSource {
+        private final ImportSource source;
+        private final File stagedFile;
+        
+        private StagedImportSource(ImportSource source, File stagedFile) {
+            this.source = source;
+            this.stagedFile = stagedFile;
+        }
+        
+        @Override
+        public File getFile() {
+            return stagedFile;
+        }
+        
+        @Override
+        public void cleanUp() {
+            source.cleanUp();
+        }
+    }
+    
+    private void analyze(File file, boolean verify) {
+        ContentDigester contentDigester = getContentDigester();
+        ChunkConsumer<ContentDigest> digestConsumer = ((contentDigester != null) 
+                ? contentDigester.newConsumer() 
+                : null);
+        Task<ContentDigest> digestTask = 
+            ((digestConsumer != null) ? FusedAnalyzer.async(digestConsumer) : null);
+        Task<Integer> verifyTask = 
+            (verify ? FusedAnalyzer.async(new ZipStreamVerifier()) : null);
+        Task<Manifest> manifestTask = (isManifestMetadataEnabled() 
+                ? FusedAnalyzer.async(ManifestNameVersionParser.newManifestReader()) 
+                : null);
+        List<Task<?>> tasks = Lists.newArrayList();
+        for (Task<?> task : Arrays.asList(digestTask, verifyTask, manifestTask)) {
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+        
+        try {
+            getFusedAnalyzer().analyze(file, tasks);
+            if (verifyTask != null) {
+                LOGGER.debug("Verified {} entries of archive '{}'", verifyTask.getResult(), 
+                        file);
+            }
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+        analysisResults.put(getSourceFile(file), new AnalysisResult(
+                getOptionalResult(digestTask, file), 
+                ((manifestTask != null) && !manifestTask.isFailed()), 
+                getOptionalResult(manifestTask, file)));
+    }
+    
+    private static <R> R getOptionalResult(Task<R> task, File file) {
+        if (task == null) {
+            return null;
+        }
+        try {
+            return task.getResult();
+        } catch (IOException exception) {
+            // recomputed separately when needed
+            LOGGER.warn(format("Analysis %s of '%s' failed", task, file), exception);
+            return null;
+        }
+    }
+    
+    /**
+     * If {@code true}, the file is read only once while preparing the package to 
+     * verify it (if there is an {@link #getArchiveVerifier() archive verifier}), 
+     * compute its digest (if the {@link #getContentDigester() content digester} 
+     * supports it) and read its manifest (if {@link #isManifestMetadataEnabled() 
+     * manifest metadata} is enabled), each analysis running on its own thread. 
+     * Archives are then verified as they are streamed, rather than through their 
+     * central directory.
+     */
+    // override me!
+    protected boolean isFusedAnalysisEnabled() {
+        return false;
+    }
+    
+    /**
+     * The analyzer used for {@link #isFusedAnalysisEnabled() fused analysis}. The
+     * default is shared by all importers and holds at most {@link
+     * FusedAnalyzer#DEFAULT_RING_COUNT} rings of buffers; return a differently sized
+     * analyzer to change its memory use.
+     */
+    // override me!
+    protected FusedAnalyzer getFusedAnalyzer() {
+        return FUSED_ANALYZER;
+    }
+    
+    // the results of the fused analysis of a file, if any
+    private static class AnalysisResult {
+        private final ContentDigest digest;
+        private final boolean manifestRead;
+        private final Manifest manifest;
+        
+        private AnalysisResult(ContentDigest digest, boolean manifestRead, 
+                Manifest manifest) {
+            this.digest = digest;
+            this.manifestRead = manifestRead;
+            this.manifest = manifest;
+        }
+    }
+    
+    private static void verifyArchive(File file, ZipIntegrityVerifier archiveVerifier) {
+        try {
+            archiveVerifier.verify(file);
+            LOGGER.debug("Verified integrity of archive '{}'", file);
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    /**
+     * @return the verifier used to check the integrity of archives before they are
+     *         imported, or {@code null} if they should not be verified. Only return
+     *         a verifier for ZIP-based files such as EARs, WARs and JARs.
+     */
+    // override me!
+    protected ZipIntegrityVerifier getArchiveVerifier() {
+        return null;
+    }
+    
+    private PackageMetadata timedGetPackageMetadata(File file) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            PackageMetadata packageMetadata = getPackageMetadata(file);
+            succeeded = true;
+            return packageMetadata;
+        } finally {
+            record(Phase.GET_PACKAGE_METADATA, start, 0, succeeded);
+        }
     }
     
     // override me!
     protected PackageMetadata getPackageMetadata(File file) {
-        NameAndVersion nameAndVersion = 
-            NAME_VERSION_PARSER.parse(file.getName(), DEFAULT_APP_VERSION);
+        NameAndVersion nameAndVersion = (isManifestMetadataEnabled() 
+                ? parseManifest(file) 
+                : NAME_VERSION_PARSER.parse(file.getName(), DEFAULT_APP_VERSION));
         return new PackageMetadata(nameAndVersion.name, nameAndVersion.version);
     }
     
+    private NameAndVersion parseManifest(File file) {
+        AnalysisResult analysisResult = analysisResults.get(getSourceFile(file));
+        if ((analysisResult != null) && analysisResult.manifestRead) {
+            return MANIFEST_NAME_VERSION_PARSER.parse(file.getName(), 
+                    analysisResult.manifest, DEFAULT_APP_VERSION);
+        }
+        try {
+            return MANIFEST_NAME_VERSION_PARSER.parse(file, DEFAULT_APP_VERSION);
+        } catch (IOException exception) {
+            LOGGER.warn(format("Unable to read manifest of '%s', using file name", file), 
+                    exception);
+            return NAME_VERSION_PARSER.parse(file.getName(), DEFAULT_APP_VERSION);
+        }
+    }
+    
+    /**
+     * If {@code true}, the default {@link #getPackageMetadata(File)} takes the 
+     * application name and version from the {@code Implementation-Title} and 
+     * {@code Implementation-Version} of the file's manifest, if present. Only 
+     * enable this for ZIP-based files such as EARs, WARs and JARs.
+     */
+    // override me!
+    protected boolean isManifestMetadataEnabled() {
+        return false;
+    }
+    
+    private PackageMetadata getIndexedPackageMetadata(File file, ImportingContext context) {
+        try {
+            ImportIndex importIndex = getImportIndex(file);
+            BasicFileAttributes attributes = readAttributes(file);
+            ImportIndex.Entry entry = importIndex.lookup(file.getName(), attributes);
+            if (entry == null) {
+                entry = new ImportIndex.Entry(file.getName(), attributes, 
+                        timedGetPackageMetadata(file));
+                importIndex.record(entry);
+            } else if (entry.imported) {
+                LOGGER.info("'{}' is unchanged since it was imported as {}/{}", new Object[] {
+                        file, entry.metadata.appName, entry.metadata.appVersion });
+                context.setAttribute(DUPLICATE_ATTRIBUTE, Boolean.TRUE);
+            }
+            return entry.metadata;
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    public static boolean isDuplicate(ImportingContext context) {
+        return Boolean.TRUE.equals(context.<Boolean>getAttribute(DUPLICATE_ATTRIBUTE));
+    }
+    
+    /**
+     * If {@code true}, the importer keeps an index of the metadata and digests of 
+     * the files in each import directory, stored in the directory as a hidden file, and
+     * does not recompute them for files that have not changed since. Files that
+     * were already imported are flagged as {@link #isDuplicate(ImportingContext) 
+     * duplicates}.
+     */
+    // override me!
+    protected boolean isImportIndexEnabled() {
+        return false;
+    }
+    
+    private static ImportIndex getImportIndex(File file) throws IOException {
+        return ImportIndex.forDirectory(file.getAbsoluteFile().getParentFile().toPath());
+    }
+    
+    private static BasicFileAttributes readAttributes(File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    }
+    
     public static class PackageMetadata {
         public final String appName;
         public final String appVersion;
@@ -113,24 +664,234 @@ public abstract class SingleFileImporter implements ListableImporter {
     
     @Override
     public ImportedPackage importEntities(PackageInfo packageInfo, ImportingContext context) {
-        ImportedPackage importedPackage = new ImportedPackage(packageInfo);
-        for (Deployable deployable : getDeployables(importedPackage)) {
+        File file = packageInfo.getSource().getFile();
+        AdmissionController.Permit permit = admit(file, getPreparedSize(file));
+        try {
+            return importPackage(packageInfo, context);
+        } finally {
+            release(permit);
+        }
+    }
+    
+    // as recorded when the package was prepared, to avoid reading it again
+    private long getPreparedSize(File file) {
+        Long size = preparedSizes.get(file);
+        return ((size != null) ? size : file.length());
+    }
+    
+    private ImportedPackage importPackage(PackageInfo packageInfo, ImportingContext context) {
+        ImportedPackage importedPackage = ((isImportIndexEnabled() && isDeltaReportEnabled()) 
+                ? newImportedArchivePackage(packageInfo) 
+                : new ImportedPackage(packageInfo));
+        for (Deployable deployable : timedGetDeployables(importedPackage)) {
             LOGGER.debug("Adding deployable '{}' to package '{}'", deployable, packageInfo);
             importedPackage.addDeployable(deployable);
         }
+        if (isImportIndexEnabled()) {
+            recordImport(packageInfo, context);
+        }
         return importedPackage;
     }
     
+    /**
+     * If {@code true} and the {@link #isImportIndexEnabled() import index} is 
+     * enabled, imported packages are {@link ImportedArchivePackage}s carrying the 
+     * delta to the most recently imported other version of the same application, 
+     * if its file is still present and unchanged. Only enable this for ZIP-based 
+     * files such as EARs, WARs and JARs.
+     */
+    // override me!
+    protected boolean isDeltaReportEnabled() {
+        return false;
+    }
+    
+    private ImportedArchivePackage newImportedArchivePackage(PackageInfo packageInfo) {
+        File importedFile = packageInfo.getSource().getFile();
+        File file = getSourceFile(importedFile);
+        try {
+            ImportIndex.Entry previousImport = getImportIndex(file).findLatestImported(
+                    packageInfo.getApplicationName(), packageInfo.getApplicationVersion());
+            if (previousImport == null) {
+                return new ImportedArchivePackage(packageInfo, null, null);
+            }
+            
+            String previousVersion = previousImport.metadata.appVersion;
+            File previousFile = 
+                new File(file.getAbsoluteFile().getParentFile(), previousImport.name);
+            if (!previousFile.isFile() || (getImportIndex(previousFile).lookup(
+                    previousImport.name, readAttributes(previousFile)) == null)) {
+                LOGGER.debug("Previous version {} of '{}' was removed or changed", 
+                        previousVersion, file);
+                return new ImportedArchivePackage(packageInfo, previousVersion, null);
+            }
+            return new ImportedArchivePackage(packageInfo, previousVersion, 
+                    getDelta(previousFile, importedFile, previousVersion));
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    private static ArchiveDelta getDelta(File previousFile, File file, 
+            String previousVersion) {
+        try {
+            ArchiveDelta delta = ArchiveDelta.between(previousFile, file);
+            LOGGER.info("Delta of '{}' to version {}: {}", 
+                    new Object[] { file, previousVersion, delta });
+            return delta;
+        } catch (IOException exception) {
+            // the delta is informational only
+            LOGGER.warn(format("Unable to compare '%s' to '%s'", file, previousFile), 
+                    exception);
+            return null;
+        }
+    }
+    
+    private void recordImport(PackageInfo packageInfo, ImportingContext context) {
+        File file = getSourceFile(packageInfo.getSource().getFile());
+        try {
+            ImportIndex importIndex = getImportIndex(file);
+            BasicFileAttributes attributes = readAttributes(file);
+            ImportIndex.Entry entry = importIndex.lookup(file.getName(), attributes);
+            if (entry == null) {
+                PackageMetadata packageMetadata = new PackageMetadata(
+                        packageInfo.getApplicationName(), packageInfo.getApplicationVersion());
+                entry = new ImportIndex.Entry(file.getName(), attributes, packageMetadata);
+            } else if (entry.imported) {
+                return;
+            }
+            
+            if ((entry.digest != null) 
+                    && (importIndex.findImported(entry.digest, entry.metadata) != null)) {
+                LOGGER.info("Content of '{}' was already imported as {}/{}", new Object[] {
+                        file, entry.metadata.appName, entry.metadata.appVersion });
+                context.setAttribute(DUPLICATE_ATTRIBUTE, Boolean.TRUE);
+            }
+            importIndex.record(entry.asImported());
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+    }
+    
+    private Set<Deployable> timedGetDeployables(ImportedPackage importedPackage) {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            Set<Deployable> deployables = getDeployables(importedPackage);
+            succeeded = true;
+            return deployables;
+        } finally {
+            record(Phase.GET_DEPLOYABLES, start, getPreparedSize(
+                    importedPackage.getPackageInfo().getSource().getFile()), succeeded);
+        }
+    }
+    
     // override me!
     protected Set<Deployable> getDeployables(ImportedPackage importedPackage) {
         File importedFile = importedPackage.getPackageInfo().getSource().getFile();
-        BaseDeployableFileArtifact fileArtifact = 
-            getDescriptor(getDeployableType(importedFile)).newInstance();
-        fileArtifact.setId(format("%s/%s", importedPackage.getDeploymentPackage().getId(),
-                importedPackage.getApplication().getName()));
-        fileArtifact.setFile(LocalFile.valueOf(importedFile));
+        return ImmutableSet.<Deployable>of(newFileArtifact(importedPackage, 
+                getDeployableType(importedFile), 
+                importedPackage.getApplication().getName(), importedFile));
+    }
+    
+    /**
+     * Creates a file artifact with the given name in the imported package, for 
+     * subclasses that return several deployables per file, and {@link 
+     * #attachDigest(BaseDeployableFileArtifact, File) attaches} the file's digest.
+     */
+    protected BaseDeployableFileArtifact newFileArtifact(ImportedPackage importedPackage, 
+            Type type, String name, File file) {
+        BaseDeployableFileArtifact fileArtifact = deployableFactory.newInstance(type, 
+                DeployableFactory.childId(importedPackage.getDeploymentPackage().getId(), 
+                        name));
+        fileArtifact.setFile(LocalFile.valueOf(file));
+        attachDigest(fileArtifact, file);
         LOGGER.debug("Created file artifact with ID '{}'", fileArtifact.getId());
-        return ImmutableSet.<Deployable>of(fileArtifact);
+        return fileArtifact;
+    }
+    
+    protected DeployableFactory getDeployableFactory() {
+        return deployableFactory;
+    }
+    
+    /**
+     * Computes the digest of the file using the {@link #getContentDigester() 
+     * content digester}, if any, and stores it in the artifact's {@value 
+     * #CHECKSUM_PROPERTY}, {@value #CHECKSUM_ALGORITHM_PROPERTY} and {@value 
+     * #MD5_CHECKSUM_PROPERTY} properties, if the artifact's type declares them.
+     */
+    protected void attachDigest(BaseDeployableFileArtifact fileArtifact, File file) {
+        ContentDigester contentDigester = getContentDigester();
+        if (contentDigester == null) {
+            return;
+        }
+        // the file is only read if there is somewhere to put its digest
+        Descriptor descriptor = deployableFactory.getDescriptor(fileArtifact.getType());
+        if ((descriptor.getPropertyDescriptor(CHECKSUM_PROPERTY) == null)
+                && (descriptor.getPropertyDescriptor(MD5_CHECKSUM_PROPERTY) == null)) {
+            return;
+        }
+        
+        ContentDigest digest;
+        try {
+            digest = digest(file, contentDigester);
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+        setIfDeclared(descriptor, fileArtifact, CHECKSUM_PROPERTY, digest.getValue());
+        setIfDeclared(descriptor, fileArtifact, CHECKSUM_ALGORITHM_PROPERTY, 
+                digest.getAlgorithm());
+        setIfDeclared(descriptor, fileArtifact, MD5_CHECKSUM_PROPERTY, digest.getMd5());
+    }
+    
+    private ContentDigest digest(File file, ContentDigester contentDigester) 
+            throws IOException {
+        if (!isImportIndexEnabled()) {
+            return computeDigest(file, contentDigester);
+        }
+        
+        // staged copies have the size and modification time of their source
+        File sourceFile = getSourceFile(file);
+        ImportIndex importIndex = getImportIndex(sourceFile);
+        ImportIndex.Entry entry = importIndex.lookup(sourceFile.getName(), 
+                readAttributes(file));
+        if ((entry != null) && (entry.digest != null)) {
+            LOGGER.debug("Using indexed digest {} of '{}'", entry.digest, file);
+            return entry.digest;
+        }
+        ContentDigest digest = computeDigest(file, contentDigester);
+        if (entry != null) {
+            importIndex.record(entry.withDigest(digest));
+        }
+        return digest;
+    }
+    
+    private ContentDigest computeDigest(File file, ContentDigester contentDigester) 
+            throws IOException {
+        AnalysisResult analysisResult = analysisResults.get(getSourceFile(file));
+        if ((analysisResult != null) && (analysisResult.digest != null)) {
+            LOGGER.debug("Using analysed digest {} of '{}'", analysisResult.digest, file);
+            return analysisResult.digest;
+        }
+        ContentDigest digest = contentDigester.digest(file);
+        LOGGER.debug("Computed digest {} of '{}'", digest, file);
+        return digest;
+    }
+    
+    private static void setIfDeclared(Descriptor descriptor, 
+            BaseDeployableFileArtifact fileArtifact, String propertyName, String value) {
+        PropertyDescriptor property = descriptor.getPropertyDescriptor(propertyName);
+        if ((property != null) && (value != null)) {
+            property.set(fileArtifact, value);
+        }
+    }
+    
+    /**
+     * @return the digester used to compute checksums of imported files, or 
+     *         {@code null} if no checksums should be computed
+     */
+    // override me!
+    protected ContentDigester getContentDigester() {
+        return null;
     }
     
     // override me!
@@ -140,6 +901,40 @@ public abstract class SingleFileImporter implements ListableImporter {
     
     @Override
     public void cleanUp(PackageInfo packageInfo, ImportingContext context) {
-        // nothing to do
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            File file = packageInfo.getSource().getFile();
+            analysisResults.remove(getSourceFile(file));
+            preparedSizes.remove(file);
+            releaseStagedFile(file);
+            succeeded = true;
+        } finally {
+            record(Phase.CLEAN_UP, start, 0, succeeded);
+        }
+    }
+    
+    private static void releaseStagedFile(File file) {
+        FILE_STAGER.release(file);
+    }
+    
+    private void record(Phase phase, long start, long bytes, boolean succeeded) {
+        long nanos = System.nanoTime() - start;
+        ImportStatistics statistics = getImportStatistics();
+        if (statistics != null) {
+            statistics.get(phase).record(nanos, bytes, !succeeded);
+        }
+    }
+    
+    /**
+     * @return the statistics in which the time spent in, bytes processed by and 
+     *         errors raised by each phase of an import are recorded, or {@code null} 
+     *         if nothing should be recorded. Nothing is recorded by default; return
+     *         {@link ImportStatistics#forImporter(Class)} for the statistics shared
+     *         by all instances of the importer's class, published over JMX.
+     */
+    // override me!
+    protected ImportStatistics getImportStatistics() {
+        return null;
     }
 }
@@ -0,0 +1,246 @@
+/*
+ * @(#)TarArchiveImporter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Throwables;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndex;
+
+/**
+ * Imports tar archives, optionally gzip-compressed, taking the application name
+ * and version from a properties file in the archive if present, and from the file
+ * name otherwise or if the archive cannot be read. The metadata file is found 
+ * using a {@link TarIndex} built in a single pass over the archive stream, without
+ * extracting anything to disk. 
+ * <p>
+ * The index is persisted in the {@link #getIndexDirectory() index directory}, so
+ * that later imports of the same, unchanged, archive do not need to decompress it
+ * again. By default, this is a directory of the current user's in the {@link 
+ * #getStagingDirectory() staging directory} if there is one, and in the system's 
+ * temporary directory otherwise.
+ */
+public abstract class TarArchiveImporter extends ExtensionBasedImporter {
+    public static final String DEFAULT_METADATA_ENTRY = "package.properties";
+    public static final String NAME_PROPERTY = "name";
+    public static final String VERSION_PROPERTY = "version";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TarArchiveImporter.class);
+    private static final String INDEX_DIRECTORY_NAME = "tar-indexes";
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // for the current index directory
+    private volatile TarIndexStore indexStore;
+
+    protected TarArchiveImporter(String extension, Type type) {
+        super(extension, type);
+    }
+
+    @Override
+    protected PackageMetadata getPackageMetadata(File file) {
+        PackageMetadata defaultMetadata = super.getPackageMetadata(file);
+        String metadataEntryName = getMetadataEntryName();
+        if (metadataEntryName == null) {
+            return defaultMetadata;
+        }
+
+        byte[] metadata;
+        try {
+            metadata = readEntry(file, metadataEntryName);
+        } catch (IOException exception) {
+            LOGGER.warn(format("Unable to read metadata entry '%s' of '%s', using file name",
+                    metadataEntryName, file), exception);
+            return defaultMetadata;
+        }
+        if (metadata == null) {
+            LOGGER.debug("No metadata entry '{}' in '{}', using file name",
+                    metadataEntryName, file);
+            return defaultMetadata;
+        }
+        return parseMetadata(metadata, defaultMetadata);
+    }
+
+    /**
+     * @return the content of the regular file in the archive with the given name,
+     *         or {@code null} if there is none
+     */
+    protected @CheckForNull byte[] readEntry(@Nonnull File file, @Nonnull String name)
+            throws IOException {
+        try (RandomAccessFile archive = new RandomAccessFile(file, "r")) {
+            boolean gzipped = isGzipped(archive);
+            TarIndex tarIndex = getTarIndex(file, archive, gzipped, name);
+            TarIndex.Entry entry = tarIndex.find(name);
+            if ((entry == null) || !entry.isFile()) {
+                return null;
+            }
+            byte[] content = tarIndex.getCapturedContent(name);
+            if (content != null) {
+                return content;
+            }
+            if (gzipped) {
+                throw new IOException(format(
+                        "Entry '%s' in '%s' of size %d exceeds maximum size %d", name, file,
+                        entry.size, TarIndex.MAX_CAPTURED_SIZE));
+            }
+            return TarIndex.read(archive.getChannel(), entry, TarIndex.MAX_CAPTURED_SIZE);
+        }
+    }
+
+    /**
+     * @return the index of the archive, capturing the content of the entry with
+     *         the given name from compressed archives. The stored index is used if
+     *         the archive is unchanged and, if compressed, the entry was captured.
+     */
+    protected @Nonnull TarIndex getTarIndex(@Nonnull File file,
+            @CheckForNull String capturedEntryName) throws IOException {
+        try (RandomAccessFile archive = new RandomAccessFile(file, "r")) {
+            return getTarIndex(file, archive, isGzipped(archive), capturedEntryName);
+        }
+    }
+
+    private TarIndex getTarIndex(File file, RandomAccessFile archive, boolean gzipped,
+            String capturedEntryName) throws IOException {
+        TarIndexStore indexStore = getIndexStore();
+        if (indexStore != null) {
+            TarIndex tarIndex = indexStore.get(file);
+            if ((tarIndex != null) && !(gzipped && (capturedEntryName != null)
+                    && isUncaptured(tarIndex, capturedEntryName))) {
+                return tarIndex;
+            }
+        }
+
+        TarIndex tarIndex = buildTarIndex(archive, gzipped, capturedEntryName);
+        if (indexStore != null) {
+            try {
+                indexStore.put(file, tarIndex);
+            } catch (IOException exception) {
+                LOGGER.warn(format("Unable to store tar index of '%s'", file), exception);
+            }
+        }
+        return tarIndex;
+    }
+
+    private TarIndexStore getIndexStore() {
+        File indexDirectory = getIndexDirectory();
+        if (indexDirectory == null) {
+            return null;
+        }
+        TarIndexStore store = indexStore;
+        if ((store == null) || !store.getDirectory().equals(indexDirectory.toPath())) {
+            store = new TarIndexStore(indexDirectory);
+            indexStore = store;
+        }
+        return store;
+    }
+
+    // whether the entry could have been, but was not, captured
+    private static boolean isUncaptured(TarIndex tarIndex, String name) {
+        TarIndex.Entry entry = tarIndex.find(name);
+        return (entry != null) && entry.isFile() && (entry.size <= TarIndex.MAX_CAPTURED_SIZE)
+                && !tarIndex.isCaptured(name);
+    }
+
+    private static TarIndex buildTarIndex(RandomAccessFile archive, boolean gzipped,
+            String capturedEntryName) throws IOException {
+        // uncompressed archives can be read at the entry's offset
+        Predicate<String> capture = ((gzipped && (capturedEntryName != null))
+                ? Predicates.equalTo(capturedEntryName)
+                : Predicates.<String>alwaysFalse());
+        archive.seek(0);
+        // not closed: the archive is closed by the caller
+        InputStream in = Channels.newInputStream(archive.getChannel());
+        InputStream tar = (gzipped
+                ? new GZIPInputStream(in, BUFFER_SIZE)
+                : new BufferedInputStream(in, BUFFER_SIZE));
+        return TarIndex.build(tar, capture);
+    }
+
+    private static boolean isGzipped(RandomAccessFile archive) throws IOException {
+        archive.seek(0);
+        return (archive.length() >= 2)
+            && ((archive.read() | (archive.read() << 8)) == GZIP_MAGIC);
+    }
+
+    /**
+     * Reads the metadata as a properties file, taking the application name and
+     * version from the {@link #NAME_PROPERTY} and {@link #VERSION_PROPERTY}
+     * properties. Missing properties are taken from the given defaults.
+     */
+    // override me!
+    protected PackageMetadata parseMetadata(byte[] metadata, PackageMetadata defaults) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new ByteArrayInputStream(metadata));
+        } catch (IOException exception) {
+            throw Throwables.propagate(exception);
+        }
+        return new PackageMetadata(
+                properties.getProperty(NAME_PROPERTY, defaults.appName).trim(),
+                properties.getProperty(VERSION_PROPERTY, defaults.appVersion).trim());
+    }
+
+    /**
+     * @return the name of the archive entry holding the application metadata, or
+     *         {@code null} if the metadata should only be taken from the file name
+     */
+    // override me!
+    protected String getMetadataEntryName() {
+        return DEFAULT_METADATA_ENTRY;
+    }
+
+    /**
+     * @return the directory in which archive indexes are kept, or {@code null} if
+     *         they should not be persisted. Stored indexes are only used if the 
+     *         directory and index are private to the current user. By default, 
+     *         {@code tar-indexes} in the {@link #getStagingDirectory() staging 
+     *         directory} if there is one, and in a directory named for the current
+     *         user in the system's temporary directory otherwise.
+     */
+    // override me!
+    protected File getIndexDirectory() {
+        File stagingDirectory = getStagingDirectory();
+        File parent = ((stagingDirectory != null) 
+                ? stagingDirectory 
+                : new File(System.getProperty("java.io.tmpdir"), 
+                        "single-file-importer-" + System.getProperty("user.name")));
+        return new File(parent, INDEX_DIRECTORY_NAME);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * @(#)TarIndexStore.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.toHex;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.attribute.PosixFilePermission.GROUP_WRITE;
+import static java.nio.file.attribute.PosixFilePermission.OTHERS_WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndex;
+
+/**
+ * Persists the {@link TarIndex indexes} of tar archives in a directory, one file
+ * per archive, so that unchanged archives need not be read again. An index is
+ * only returned if the archive's size and modification time match those it was
+ * built for.
+ * <p>
+ * Index files are written to a temporary file and moved into place, and are
+ * checksummed, so a crash while writing at most loses the index being written.
+ * <p>
+ * Since a stored index determines the metadata of an import, indexes are only
+ * read if the directory and index file are owned by the current user and not
+ * writable by anyone else, where the file system supports POSIX permissions. A
+ * directory that does not exist yet is created accessible only to the current
+ * user. Once there are more than the maximum number of indexes, the least
+ * recently used ones are deleted.
+ */
+class TarIndexStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TarIndexStore.class);
+
+    private static final int MAGIC = 0x53465449; // "SFTI"
+    private static final int VERSION = 1;
+    private static final String INDEX_SUFFIX = ".tidx";
+    static final int DEFAULT_MAX_INDEXES = 1000;
+
+    private final Path directory;
+    private final int maxIndexes;
+
+    TarIndexStore(@Nonnull File directory) {
+        this(directory, DEFAULT_MAX_INDEXES);
+    }
+
+    TarIndexStore(@Nonnull File directory, int maxIndexes) {
+        this.directory = directory.toPath();
+        this.maxIndexes = maxIndexes;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return the stored index of the archive, or {@code null} if there is none or
+     *         the archive has changed since it was stored
+     */
+    @CheckForNull TarIndex get(@Nonnull File archive) throws IOException {
+        Path indexFile = getIndexFile(archive);
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        if (!isTrusted(directory) || !isTrusted(indexFile)) {
+            LOGGER.warn("Ignoring tar index '{}' that may have been written by another user",
+                    indexFile);
+            return null;
+        }
+
+        BasicFileAttributes attributes = readAttributes(archive);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(indexFile))) {
+            DataInputStream index = new DataInputStream(in);
+            if ((index.readInt() != MAGIC) || (index.readInt() != VERSION)
+                    || !index.readUTF().equals(getKey(archive))
+                    || (index.readLong() != attributes.size())
+                    || (index.readLong() != attributes.lastModifiedTime().toMillis())) {
+                return null;
+            }
+            long checksum = index.readInt() & 0xffffffffL;
+            int length = index.readInt();
+            if ((length < 0) || (length > Files.size(indexFile))) {
+                LOGGER.warn("Ignoring corrupt tar index '{}'", indexFile);
+                return null;
+            }
+            byte[] payload = new byte[length];
+            index.readFully(payload);
+            if (crc32(payload) != checksum) {
+                LOGGER.warn("Ignoring corrupt tar index '{}'", indexFile);
+                return null;
+            }
+            TarIndex tarIndex = 
+                TarIndex.readFrom(new DataInputStream(new ByteArrayInputStream(payload)));
+            // for eviction
+            Files.setLastModifiedTime(indexFile, 
+                    FileTime.fromMillis(System.currentTimeMillis()));
+            return tarIndex;
+        } catch (IOException | RuntimeException exception) {
+            LOGGER.warn(String.format("Unable to read tar index '%s'", indexFile), exception);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the index for the archive as it currently is.
+     */
+    void put(@Nonnull File archive, @Nonnull TarIndex tarIndex) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        tarIndex.writeTo(payloadOut);
+        payloadOut.flush();
+        byte[] encoded = payload.toByteArray();
+
+        BasicFileAttributes attributes = readAttributes(archive);
+        createDirectory();
+        if (!isTrusted(directory)) {
+            LOGGER.warn("Not storing tar index of '{}' in '{}', which other users can write",
+                    archive, directory);
+            return;
+        }
+        Path indexFile = getIndexFile(archive);
+        // created readable and writable only by the current user
+        Path tempFile = Files.createTempFile(directory, indexFile.getFileName().toString(),
+                ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                DataOutputStream index = new DataOutputStream(out);
+                index.writeInt(MAGIC);
+                index.writeInt(VERSION);
+                index.writeUTF(getKey(archive));
+                index.writeLong(attributes.size());
+                index.writeLong(attributes.lastModifiedTime().toMillis());
+                index.writeInt((int) crc32(encoded));
+                index.writeInt(encoded.length);
+                index.write(encoded);
+                index.flush();
+            }
+            Files.move(tempFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        evict();
+    }
+
+    private void createDirectory() throws IOException {
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+        Files.createDirectories(directory.getParent());
+        if (Files.getFileAttributeView(directory.getParent(), 
+                PosixFileAttributeView.class) != null) {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rwx------")));
+        } else {
+            Files.createDirectory(directory);
+        }
+    }
+
+    // whether only the current user can have written the file
+    private static boolean isTrusted(Path path) throws IOException {
+        PosixFileAttributeView view = 
+            Files.getFileAttributeView(path, PosixFileAttributeView.class);
+        if (view == null) {
+            return true;
+        }
+        PosixFileAttributes attributes = view.readAttributes();
+        Set<PosixFilePermission> permissions = attributes.permissions();
+        return attributes.owner().equals(getCurrentUser()) 
+            && !permissions.contains(GROUP_WRITE) && !permissions.contains(OTHERS_WRITE);
+    }
+
+    private static UserPrincipal getCurrentUser() throws IOException {
+        return FileSystems.getDefault().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+    }
+
+    // deletes the least recently used indexes beyond the maximum
+    private void evict() throws IOException {
+        final Map<Path, FileTime> lastUsed = Maps.newHashMap();
+        try (DirectoryStream<Path> indexFiles = 
+                Files.newDirectoryStream(directory, "*" + INDEX_SUFFIX)) {
+            for (Path indexFile : indexFiles) {
+                lastUsed.put(indexFile, Files.getLastModifiedTime(indexFile));
+            }
+        }
+        if (lastUsed.size() <= maxIndexes) {
+            return;
+        }
+        List<Path> indexFiles = Lists.newArrayList(lastUsed.keySet());
+        Collections.sort(indexFiles, new Comparator<Path>() {
+                @Override
+                public int compare(Path first, Path second) {
+                    return lastUsed.get(first).compareTo(lastUsed.get(second));
+                }
+            });
+        for (Path indexFile : indexFiles.subList(0, indexFiles.size() - maxIndexes)) {
+            LOGGER.debug("Evicting tar index '{}'", indexFile);
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    private Path getIndexFile(File archive) {
+        return directory.resolve(toHex(sha1(getKey(archive))) + INDEX_SUFFIX);
+    }
+
+    private static String getKey(File archive) {
+        return archive.getAbsolutePath();
+    }
+
+    private static BasicFileAttributes readAttributes(File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    }
+
+    private static byte[] sha1(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(value.getBytes(Charsets.UTF_8));
+        } catch (NoSuchAlgorithmException exception) {
+            // every Java platform is required to support SHA-1
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static long crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * @(#)VersionedListing.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.xebialabs.deployit.server.api.importer.singlefile.SingleFileImporter.PackageMetadata;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.VersionKey;
+
+/**
+ * The supported files in a directory with their application name and version,
+ * each parsed once. The {@link #getEntries() entries} are grouped by application 
+ * name, newest version first, and are only sorted when first requested; the
+ * {@link #latest(String) latest} version of an application is found without 
+ * sorting.
+ */
+public class VersionedListing {
+    private final ImmutableList<Entry> unsortedEntries;
+    
+    // lazily sorted
+    private volatile ImmutableList<Entry> sortedEntries;
+    
+    VersionedListing(@Nonnull List<Entry> entries) {
+        unsortedEntries = ImmutableList.copyOf(entries);
+    }
+    
+    public @Nonnull List<Entry> getEntries() {
+        ImmutableList<Entry> entries = sortedEntries;
+        if (entries == null) {
+            List<Entry> sorted = Lists.newArrayList(unsortedEntries);
+            Collections.sort(sorted, NAME_THEN_NEWEST_FIRST);
+            entries = ImmutableList.copyOf(sorted);
+            sortedEntries = entries;
+        }
+        return entries;
+    }
+    
+    /**
+     * @return the entry with the newest version of the application, or {@code null}
+     *         if there is none
+     */
+    public @CheckForNull Entry latest(@Nonnull String appName) {
+        Entry latest = null;
+        for (Entry entry : unsortedEntries) {
+            if (appName.equals(entry.metadata.appName) 
+                    && ((latest == null) || (NEWEST_FIRST.compare(entry, latest) < 0))) {
+                latest = entry;
+            }
+        }
+        return latest;
+    }
+    
+    public int size() {
+        return unsortedEntries.size();
+    }
+    
+    private static final Comparator<Entry> NEWEST_FIRST = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry entry1, Entry entry2) {
+                int comparison = entry2.versionKey.compareTo(entry1.versionKey);
+                // equivalent versions, e.g. 1.0 and 1.0.0, by file name
+                return ((comparison != 0) 
+                        ? comparison 
+                        : entry1.filename.compareTo(entry2.filename));
+            }
+        };
+    
+    private static final Comparator<Entry> NAME_THEN_NEWEST_FIRST = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry entry1, Entry entry2) {
+                int comparison = entry1.metadata.appName.compareTo(entry2.metadata.appName);
+                return ((comparison != 0) ? comparison : NEWEST_FIRST.compare(entry1, entry2));
+            }
+        };
+    
+    public static class Entry {
+        public final String filename;
+        public final PackageMetadata metadata;
+        public final VersionKey versionKey;
+        
+        Entry(String filename, PackageMetadata metadata) {
+            this.filename = filename;
+            this.metadata = metadata;
+            versionKey = VersionKey.of(metadata.appVersion);
+        }
+        
+        @Override
+        public String toString() {
+            return filename;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * @(#)ArchiveDelta.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * The entries that changed, were added or were removed between two versions of a
+ * ZIP archive, comparing the name, size and CRC of each entry as recorded in the
+ * archives' {@link ZipCentralDirectory central directories}. Neither archive is
+ * decompressed.
+ */
+public class ArchiveDelta {
+    public final ImmutableList<String> changed;
+    public final ImmutableList<String> added;
+    public final ImmutableList<String> removed;
+    public final int unchangedCount;
+
+    private ArchiveDelta(ImmutableList<String> changed, ImmutableList<String> added,
+            ImmutableList<String> removed, int unchangedCount) {
+        this.changed = changed;
+        this.added = added;
+        this.removed = removed;
+        this.unchangedCount = unchangedCount;
+    }
+
+    public static @Nonnull ArchiveDelta between(@Nonnull File previous, @Nonnull File current)
+            throws IOException {
+        return between(readEntries(previous), readEntries(current));
+    }
+
+    private static List<ZipCentralDirectory.Entry> readEntries(File archive)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(archive.toPath(), READ)) {
+            return ZipCentralDirectory.locate(channel).getEntries();
+        }
+    }
+
+    public static @Nonnull ArchiveDelta between(
+            @Nonnull List<ZipCentralDirectory.Entry> previousEntries,
+            @Nonnull List<ZipCentralDirectory.Entry> currentEntries) {
+        Map<String, ZipCentralDirectory.Entry> previous =
+            Maps.newHashMapWithExpectedSize(previousEntries.size());
+        for (ZipCentralDirectory.Entry entry : previousEntries) {
+            previous.put(entry.name, entry);
+        }
+
+        ImmutableList.Builder<String> changed = ImmutableList.builder();
+        ImmutableList.Builder<String> added = ImmutableList.builder();
+        int unchangedCount = 0;
+        for (ZipCentralDirectory.Entry entry : currentEntries) {
+            ZipCentralDirectory.Entry previousEntry = previous.remove(entry.name);
+            if (previousEntry == null) {
+                added.add(entry.name);
+            } else if ((previousEntry.size != entry.size) || (previousEntry.crc != entry.crc)) {
+                changed.add(entry.name);
+            } else {
+                unchangedCount++;
+            }
+        }
+        ImmutableList.Builder<String> removed = ImmutableList.builder();
+        // in the order of the previous archive
+        for (ZipCentralDirectory.Entry entry : previousEntries) {
+            if (previous.containsKey(entry.name)) {
+                removed.add(entry.name);
+            }
+        }
+        return new ArchiveDelta(changed.build(), added.build(), removed.build(),
+                unchangedCount);
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && added.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return format("%d changed, %d added, %d removed, %d unchanged", changed.size(),
+                added.size(), removed.size(), unchangedCount);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * @(#)ChunkConsumer.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Analyses a file chunk by chunk as it is read by a {@link FusedAnalyzer}.
+ */
+public interface ChunkConsumer<R> {
+    
+    /**
+     * Called with the successive chunks of the file. The chunk is a read-only view
+     * of a buffer shared with other consumers and reused once this method returns,
+     * so it may not be retained.
+     */
+    void accept(@Nonnull ByteBuffer chunk) throws IOException;
+    
+    /**
+     * Called once the whole file has been passed to {@link #accept(ByteBuffer)}.
+     */
+    @CheckForNull R finish() throws IOException;
+}
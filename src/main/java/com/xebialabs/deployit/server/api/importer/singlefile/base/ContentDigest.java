@@ -0,0 +1,116 @@
+/*
+ * @(#)ContentDigest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The hex-encoded digests of a file's content, by algorithm name.
+ */
+public class ContentDigest {
+    public static final String SHA_256 = "SHA-256";
+    public static final String MD5 = "MD5";
+    public static final String SHA_256_TREE = "SHA-256-TREE";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    public final long size;
+    private final ImmutableMap<String, String> digests;
+
+    /**
+     * @param digests the file's digests by algorithm name. The first is considered
+     *                the primary digest
+     */
+    public ContentDigest(long size, @Nonnull Map<String, String> digests) {
+        checkArgument(!digests.isEmpty(), "At least one digest is required");
+        this.size = size;
+        this.digests = ImmutableMap.copyOf(digests);
+    }
+
+    /**
+     * @return the name of the algorithm of the file's primary digest, e.g. 
+     *         {@value #SHA_256}
+     */
+    public @Nonnull String getAlgorithm() {
+        return digests.keySet().iterator().next();
+    }
+
+    /**
+     * @return the file's primary digest
+     */
+    public @Nonnull String getValue() {
+        return digests.values().iterator().next();
+    }
+
+    public @CheckForNull String get(@Nonnull String algorithm) {
+        return digests.get(algorithm);
+    }
+
+    public @CheckForNull String getSha256() {
+        return get(SHA_256);
+    }
+
+    public @CheckForNull String getMd5() {
+        return get(MD5);
+    }
+
+    public @Nonnull Map<String, String> getDigests() {
+        return digests;
+    }
+
+    public static @Nonnull String toHex(@Nonnull byte[] digest) {
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ContentDigest)) {
+            return false;
+        }
+        ContentDigest other = (ContentDigest) obj;
+        return (size == other.size) && digests.equals(other.digests);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (int) (size ^ (size >>> 32)) + digests.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return digests.toString();
+    }
+}
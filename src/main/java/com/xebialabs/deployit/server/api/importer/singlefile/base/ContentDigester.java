@@ -0,0 +1,147 @@
+/*
+ * @(#)ContentDigester.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.MD5;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.SHA_256;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.toHex;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Computes the SHA-256 and, optionally, MD5 digests of a file in a single pass,
+ * reading through a fixed-size direct buffer.
+ */
+public class ContentDigester {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFERS = new ThreadLocal<ByteBuffer>() {
+            @Override
+            protected ByteBuffer initialValue() {
+                return ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+        };
+
+    private final boolean includeMd5;
+
+    public ContentDigester() {
+        this(false);
+    }
+
+    public ContentDigester(boolean includeMd5) {
+        this.includeMd5 = includeMd5;
+    }
+
+    /**
+     * @return a direct buffer of {@link #BUFFER_SIZE} bytes owned by the current thread
+     */
+    static ByteBuffer threadBuffer() {
+        ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+        return buffer;
+    }
+
+    public @Nonnull ContentDigest digest(@Nonnull File file) throws IOException {
+        MessageDigest sha256 = newMessageDigest(SHA_256);
+        MessageDigest md5 = (includeMd5 ? newMessageDigest(MD5) : null);
+        ByteBuffer buffer = threadBuffer();
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                size += buffer.remaining();
+                if (md5 != null) {
+                    buffer.mark();
+                    md5.update(buffer);
+                    buffer.reset();
+                }
+                sha256.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        Map<String, String> digests = Maps.newLinkedHashMap();
+        digests.put(SHA_256, toHex(sha256.digest()));
+        if (md5 != null) {
+            digests.put(MD5, toHex(md5.digest()));
+        }
+        return new ContentDigest(size, digests);
+    }
+
+    /**
+     * @return a consumer computing the same digest as {@link #digest(File)} from 
+     *         the chunks of a {@link FusedAnalyzer}, or {@code null} if this 
+     *         digester cannot digest a file chunk by chunk
+     */
+    public @CheckForNull ChunkConsumer<ContentDigest> newConsumer() {
+        final MessageDigest sha256 = newMessageDigest(SHA_256);
+        final MessageDigest md5 = (includeMd5 ? newMessageDigest(MD5) : null);
+        return new ChunkConsumer<ContentDigest>() {
+                // the digests would otherwise each copy read-only chunks internally
+                private final byte[] buffer = new byte[BUFFER_SIZE];
+                private long size;
+                
+                @Override
+                public void accept(ByteBuffer chunk) {
+                    size += chunk.remaining();
+                    while (chunk.hasRemaining()) {
+                        int length = Math.min(chunk.remaining(), buffer.length);
+                        chunk.get(buffer, 0, length);
+                        if (md5 != null) {
+                            md5.update(buffer, 0, length);
+                        }
+                        sha256.update(buffer, 0, length);
+                    }
+                }
+                
+                @Override
+                public ContentDigest finish() {
+                    Map<String, String> digests = Maps.newLinkedHashMap();
+                    digests.put(SHA_256, toHex(sha256.digest()));
+                    if (md5 != null) {
+                        digests.put(MD5, toHex(md5.digest()));
+                    }
+                    return new ContentDigest(size, digests);
+                }
+            };
+    }
+
+    static MessageDigest newMessageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException exception) {
+            // every Java platform is required to support MD5 and SHA-256
+            throw new IllegalStateException(exception);
+        }
+    }
+}
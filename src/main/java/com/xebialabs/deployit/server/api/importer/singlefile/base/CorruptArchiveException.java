@@ -0,0 +1,49 @@
+/*
+ * @(#)CorruptArchiveException.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.util.zip.ZipException;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Signals that an entry of an archive is truncated or does not match its CRC.
+ */
+public class CorruptArchiveException extends ZipException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entryName;
+
+    public CorruptArchiveException(@Nonnull String entryName, @Nonnull String message) {
+        super(String.format("Entry '%s' is corrupt: %s", entryName, message));
+        this.entryName = entryName;
+    }
+
+    public CorruptArchiveException(@Nonnull String entryName, @Nonnull String message,
+            @Nonnull Throwable cause) {
+        this(entryName, message);
+        initCause(cause);
+    }
+
+    public @Nonnull String getEntryName() {
+        return entryName;
+    }
+}
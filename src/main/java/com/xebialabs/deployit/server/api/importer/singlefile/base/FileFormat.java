@@ -0,0 +1,59 @@
+/*
+ * @(#)FileFormat.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import javax.annotation.Nonnull;
+
+/**
+ * File formats recognised by the {@link FormatSniffer}. Some formats are
+ * specialisations of others, e.g. every {@link #WAR} is a {@link #JAR} and a
+ * {@link #ZIP}.
+ */
+public enum FileFormat {
+    ZIP(null),
+    JAR(ZIP),
+    WAR(JAR),
+    EAR(JAR),
+    GZIP(null),
+    TAR_GZIP(GZIP),
+    TAR(null),
+    RPM(null),
+    UNKNOWN(null);
+
+    private final FileFormat parent;
+
+    private FileFormat(FileFormat parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return {@code true} if this format is the given format or a specialisation
+     *         of it
+     */
+    public boolean isA(@Nonnull FileFormat format) {
+        for (FileFormat ancestor = this; ancestor != null; ancestor = ancestor.parent) {
+            if (ancestor == format) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
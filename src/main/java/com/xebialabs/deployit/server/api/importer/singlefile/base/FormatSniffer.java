@@ -0,0 +1,292 @@
+/*
+ * @(#)FormatSniffer.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Identifies the {@link FileFormat format} of a file from the first
+ * {@value #HEADER_SIZE} bytes of its content, read with a single positional read.
+ * ZIP archives are told apart by the names of their first entries, e.g.
+ * {@code WEB-INF/} for WARs, so archives whose marker entries do not appear near
+ * the start are identified as plain JARs or ZIPs. A gzipped tar is recognised by
+ * inflating the start of the gzip stream.
+ * <p>
+ * Results are cached per file, path, size and modification time, so sniffing an
+ * unchanged file again only reads its attributes. The cache holds at most a given
+ * number of files, evicting the least recently used.
+ */
+public class FormatSniffer {
+    static final int HEADER_SIZE = 512;
+
+    private static final int ZIP_LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int ZIP_LOCAL_HEADER_LENGTH = 30;
+    private static final int ZIP_DATA_DESCRIPTOR_FLAG = 1 << 3;
+    private static final int JAR_MAGIC_EXTRA_FIELD_ID = 0xcafe;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int GZIP_FLAG_EXTRA = 1 << 2;
+    private static final int GZIP_FLAG_NAME = 1 << 3;
+    private static final int GZIP_FLAG_COMMENT = 1 << 4;
+    private static final int GZIP_FLAG_HEADER_CRC = 1 << 1;
+    private static final int TAR_MAGIC_OFFSET = 257;
+    private static final byte[] TAR_MAGIC = "ustar".getBytes(Charsets.US_ASCII);
+    private static final int RPM_LEAD_MAGIC = 0xedabeedb;
+
+    private final int maximumSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // guarded by "this"
+    private final Map<Path, SniffedFile> sniffedFiles;
+
+    public FormatSniffer(int maximumSize) {
+        checkArgument(maximumSize > 0, "Maximum size must be positive");
+        this.maximumSize = maximumSize;
+        sniffedFiles = new LinkedHashMap<Path, SniffedFile>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, SniffedFile> eldest) {
+                return (size() > FormatSniffer.this.maximumSize);
+            }
+        };
+    }
+
+    public @Nonnull FileFormat sniff(@Nonnull File file) throws IOException {
+        Path path = file.toPath().toAbsolutePath();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        synchronized (this) {
+            SniffedFile sniffedFile = sniffedFiles.get(path);
+            if ((sniffedFile != null) && sniffedFile.matches(attributes)) {
+                hits.incrementAndGet();
+                return sniffedFile.format;
+            }
+        }
+
+        misses.incrementAndGet();
+        FileFormat format = (attributes.isRegularFile() ? sniff(path) : FileFormat.UNKNOWN);
+        synchronized (this) {
+            sniffedFiles.put(path, new SniffedFile(attributes, format));
+        }
+        return format;
+    }
+
+    private static FileFormat sniff(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            // a single read; a short read just means less to go on
+            channel.read(header, 0);
+        }
+        header.flip();
+        return identify(header);
+    }
+
+    static FileFormat identify(ByteBuffer header) {
+        ByteBuffer littleEndian = header.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int length = header.limit();
+        if ((length >= 4) && (littleEndian.getInt(0) == ZIP_LOCAL_HEADER_SIGNATURE)) {
+            return identifyZip(littleEndian);
+        }
+        if ((length >= 2) && ((littleEndian.getShort(0) & 0xffff) == GZIP_MAGIC)) {
+            return (isTar(inflateGzip(littleEndian)) ? FileFormat.TAR_GZIP : FileFormat.GZIP);
+        }
+        if (isTar(header)) {
+            return FileFormat.TAR;
+        }
+        if ((length >= 4) && (header.duplicate().order(ByteOrder.BIG_ENDIAN).getInt(0)
+                == RPM_LEAD_MAGIC)) {
+            return FileFormat.RPM;
+        }
+        return FileFormat.UNKNOWN;
+    }
+
+    // looks at the names of the local headers that fit in the header
+    private static FileFormat identifyZip(ByteBuffer header) {
+        FileFormat format = FileFormat.ZIP;
+        int offset = 0;
+        while ((offset >= 0) && (offset + ZIP_LOCAL_HEADER_LENGTH <= header.limit())) {
+            int flags = header.getShort(offset + 6) & 0xffff;
+            long compressedSize = header.getInt(offset + 18) & 0xffffffffL;
+            int nameLength = header.getShort(offset + 26) & 0xffff;
+            int extraLength = header.getShort(offset + 28) & 0xffff;
+            int nameOffset = offset + ZIP_LOCAL_HEADER_LENGTH;
+            if (nameOffset + nameLength > header.limit()) {
+                break;
+            }
+            byte[] nameBytes = new byte[nameLength];
+            for (int i = 0; i < nameLength; i++) {
+                nameBytes[i] = header.get(nameOffset + i);
+            }
+            String name = new String(nameBytes, Charsets.UTF_8);
+            if (name.startsWith("WEB-INF/")) {
+                return FileFormat.WAR;
+            } else if (name.equalsIgnoreCase("META-INF/application.xml")) {
+                return FileFormat.EAR;
+            } else if (name.startsWith("META-INF/")
+                    || hasExtraField(header, nameOffset + nameLength, extraLength,
+                            JAR_MAGIC_EXTRA_FIELD_ID)) {
+                format = FileFormat.JAR;
+            }
+
+            int dataOffset = nameOffset + nameLength + extraLength;
+            offset = (((flags & ZIP_DATA_DESCRIPTOR_FLAG) != 0)
+                    // the size follows the data, so look for the next header
+                    ? nextLocalHeader(header, dataOffset)
+                    : (int) Math.min(dataOffset + compressedSize, Integer.MAX_VALUE));
+        }
+        return format;
+    }
+
+    private static boolean hasExtraField(ByteBuffer header, int offset, int length, int id) {
+        int end = Math.min(offset + length, header.limit());
+        for (int i = offset; i + 4 <= end; i += 4 + (header.getShort(i + 2) & 0xffff)) {
+            if ((header.getShort(i) & 0xffff) == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int nextLocalHeader(ByteBuffer header, int from) {
+        for (int i = from; i + 4 <= header.limit(); i++) {
+            if (header.getInt(i) == ZIP_LOCAL_HEADER_SIGNATURE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isTar(ByteBuffer header) {
+        if (header.limit() < TAR_MAGIC_OFFSET + TAR_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < TAR_MAGIC.length; i++) {
+            if (header.get(TAR_MAGIC_OFFSET + i) != TAR_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // inflates as much of the gzip stream as the header contains
+    private static ByteBuffer inflateGzip(ByteBuffer header) {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        if (header.limit() < GZIP_HEADER_LENGTH) {
+            return empty;
+        }
+        int flags = header.get(3) & 0xff;
+        int offset = GZIP_HEADER_LENGTH;
+        if ((flags & GZIP_FLAG_EXTRA) != 0) {
+            if (offset + 2 > header.limit()) {
+                return empty;
+            }
+            offset += 2 + (header.getShort(offset) & 0xffff);
+        }
+        if ((flags & GZIP_FLAG_NAME) != 0) {
+            offset = skipZeroTerminated(header, offset);
+        }
+        if ((flags & GZIP_FLAG_COMMENT) != 0) {
+            offset = skipZeroTerminated(header, offset);
+        }
+        if ((flags & GZIP_FLAG_HEADER_CRC) != 0) {
+            offset += 2;
+        }
+        if (offset >= header.limit()) {
+            return empty;
+        }
+
+        byte[] input = new byte[header.limit() - offset];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = header.get(offset + i);
+        }
+        byte[] output = new byte[HEADER_SIZE];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(input);
+            int inflated = 0;
+            while ((inflated < output.length) && !inflater.finished()
+                    && !inflater.needsInput()) {
+                int count = inflater.inflate(output, inflated, output.length - inflated);
+                if (count == 0) {
+                    break;
+                }
+                inflated += count;
+            }
+            return ByteBuffer.wrap(output, 0, inflated).slice();
+        } catch (DataFormatException exception) {
+            return empty;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int skipZeroTerminated(ByteBuffer header, int offset) {
+        while ((offset < header.limit()) && (header.get(offset) != 0)) {
+            offset++;
+        }
+        return offset + 1;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static class SniffedFile {
+        private final long size;
+        private final long lastModified;
+        private final FileFormat format;
+
+        private SniffedFile(BasicFileAttributes attributes, FileFormat format) {
+            size = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+            this.format = format;
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return (size == attributes.size())
+                   && (lastModified == attributes.lastModifiedTime().toMillis());
+        }
+    }
+}
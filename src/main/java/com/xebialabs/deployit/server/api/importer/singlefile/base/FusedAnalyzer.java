@@ -0,0 +1,576 @@
+/*
+ * @(#)FusedAnalyzer.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reads a file once and passes its content to several analyses, such as digesting,
+ * verification and metadata extraction. The file is read into a ring of direct 
+ * buffers; every {@link Task task} sees the same buffers through read-only views,
+ * so the reader does not copy content for each task. Tasks needing the content in
+ * an array, such as digests, copy it themselves.
+ * <p>
+ * {@link #inline(ChunkConsumer) Inline} tasks run on the reading thread, so should
+ * be cheap. {@link #async(ChunkConsumer) Asynchronous} tasks run on the analyzer's
+ * bounded pool of threads, each following the reader through the ring at its own 
+ * pace. The reader only waits for a slow task once it is a whole ring ahead of it, 
+ * so the ring size determines how much jitter in the tasks is absorbed. An analysis
+ * only starts once a thread is free for each of its asynchronous tasks and a ring
+ * is available, so at most {@code ringCount} rings of {@code slotCount} chunks are
+ * ever allocated, whether tasks are inline or asynchronous. Rings are reused by 
+ * later analyses.
+ * <p>
+ * A task that fails is dropped without affecting the others; its failure is 
+ * reported by {@link Task#getResult()}.
+ */
+public class FusedAnalyzer {
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+    public static final int DEFAULT_SLOT_COUNT = 8;
+    public static final int DEFAULT_THREAD_COUNT = 
+        Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_RING_COUNT = 4;
+    
+    private final int chunkSize;
+    private final int slotCount;
+    private final int threadCount;
+    private final ThreadPoolExecutor executor;
+    // one per running asynchronous task, so that every submitted task has a thread
+    private final Semaphore threads;
+    // one per running analysis, so that at most "ringCount" rings are allocated
+    private final Semaphore rings;
+    private final BlockingQueue<ByteBuffer[]> idleBuffers;
+    
+    public FusedAnalyzer() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_SLOT_COUNT);
+    }
+    
+    public FusedAnalyzer(int chunkSize, int slotCount) {
+        this(chunkSize, slotCount, DEFAULT_THREAD_COUNT);
+    }
+    
+    public FusedAnalyzer(int chunkSize, int slotCount, int threadCount) {
+        this(chunkSize, slotCount, threadCount, DEFAULT_RING_COUNT);
+    }
+    
+    public FusedAnalyzer(int chunkSize, int slotCount, int threadCount, int ringCount) {
+        checkArgument(chunkSize > 0, "Chunk size must be positive");
+        checkArgument(slotCount > 0, "Slot count must be positive");
+        checkArgument(threadCount > 0, "Thread count must be positive");
+        checkArgument(ringCount > 0, "Ring count must be positive");
+        this.chunkSize = chunkSize;
+        this.slotCount = slotCount;
+        this.threadCount = threadCount;
+        executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS, 
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactoryBuilder()
+                    .setNameFormat("fused-analyzer-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        threads = new Semaphore(threadCount, true);
+        rings = new Semaphore(ringCount, true);
+        idleBuffers = new ArrayBlockingQueue<ByteBuffer[]>(ringCount);
+    }
+    
+    public static @Nonnull <R> Task<R> inline(@Nonnull ChunkConsumer<R> consumer) {
+        return new ChunkTask<R>(consumer, false);
+    }
+    
+    public static @Nonnull <R> Task<R> async(@Nonnull ChunkConsumer<R> consumer) {
+        return new ChunkTask<R>(consumer, true);
+    }
+    
+    public static @Nonnull <R> Task<R> async(@Nonnull StreamConsumer<R> consumer) {
+        return new StreamTask<R>(consumer);
+    }
+    
+    public long analyze(@Nonnull File file, @Nonnull Task<?>... tasks) throws IOException {
+        return analyze(file, ImmutableList.copyOf(tasks));
+    }
+    
+    /**
+     * Runs the tasks, which may only be run once, over the content of the file.
+     * 
+     * @return the number of bytes read
+     * @throws IOException if the file could not be read, in which case all tasks
+     *         fail
+     */
+    public long analyze(@Nonnull File file, @Nonnull List<? extends Task<?>> tasks) 
+            throws IOException {
+        List<ChunkTask<?>> inlineTasks = Lists.newArrayList();
+        List<Task<?>> asyncTasks = Lists.newArrayList();
+        for (Task<?> task : tasks) {
+            checkArgument(task.ring == null, "Task %s was already run", task);
+            if (task.asynchronous) {
+                asyncTasks.add(task);
+            } else {
+                // only chunk tasks run inline
+                inlineTasks.add((ChunkTask<?>) task);
+            }
+        }
+        checkArgument(asyncTasks.size() <= threadCount, 
+                "%s asynchronous tasks exceed the %s analysis threads", asyncTasks.size(), 
+                threadCount);
+        try {
+            threads.acquire(asyncTasks.size());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a thread");
+        }
+        try {
+            rings.acquire();
+        } catch (InterruptedException exception) {
+            threads.release(asyncTasks.size());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a ring");
+        }
+        
+        ByteBuffer[] buffers = idleBuffers.poll();
+        Ring ring = new Ring(((buffers != null) ? buffers : allocateBuffers()), tasks);
+        for (Task<?> task : tasks) {
+            task.ring = ring;
+        }
+        for (Task<?> task : asyncTasks) {
+            start(task);
+        }
+        
+        try {
+            return read(file, ring, inlineTasks);
+        } catch (IOException | RuntimeException | Error exception) {
+            ring.abort(exception);
+            throw exception;
+        } finally {
+            ring.finish();
+            ring.awaitTasks();
+            for (ChunkTask<?> task : inlineTasks) {
+                task.finish();
+            }
+            // no task can still be using them
+            idleBuffers.offer(ring.buffers);
+            rings.release();
+        }
+    }
+    
+    private ByteBuffer[] allocateBuffers() {
+        ByteBuffer[] buffers = new ByteBuffer[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(chunkSize);
+        }
+        return buffers;
+    }
+    
+    private void start(final Task<?> task) {
+        try {
+            executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            threads.release();
+                        }
+                    }
+                });
+        } catch (RejectedExecutionException exception) {
+            threads.release();
+            task.fail(exception);
+        }
+    }
+    
+    private long read(File file, Ring ring, List<ChunkTask<?>> inlineTasks) 
+            throws IOException {
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            for (long sequence = 0; ; sequence++) {
+                ring.awaitFreeSlot(sequence);
+                int slot = ring.slotOf(sequence);
+                ByteBuffer buffer = ring.buffers[slot];
+                buffer.clear();
+                while (buffer.hasRemaining() && (channel.read(buffer) != -1)) {
+                    // fill the buffer unless the end of the file is reached
+                }
+                int length = buffer.position();
+                if (length == 0) {
+                    return size;
+                }
+                size += length;
+                for (ChunkTask<?> task : inlineTasks) {
+                    task.acceptInline(ring.view(task, slot, length));
+                }
+                ring.publish(sequence, length);
+                if (length < chunkSize) {
+                    return size;
+                }
+            }
+        }
+    }
+    
+    // the ring buffer shared by the reader and tasks of one analysis
+    private class Ring {
+        private final ByteBuffer[] buffers;
+        private final int[] lengths = new int[slotCount];
+        private final List<? extends Task<?>> tasks;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        // guarded by "lock"
+        private long published;
+        private boolean finished;
+        private Throwable abortCause;
+        
+        private Ring(ByteBuffer[] buffers, List<? extends Task<?>> tasks) {
+            this.buffers = buffers;
+            this.tasks = tasks;
+            for (Task<?> task : tasks) {
+                task.views = new ByteBuffer[slotCount];
+                for (int i = 0; i < slotCount; i++) {
+                    task.views[i] = buffers[i].asReadOnlyBuffer();
+                }
+            }
+        }
+        
+        private int slotOf(long sequence) {
+            return (int) (sequence % slotCount);
+        }
+        
+        private ByteBuffer view(Task<?> task, int slot, int length) {
+            ByteBuffer view = task.views[slot];
+            view.clear();
+            view.limit(length);
+            return view;
+        }
+        
+        private void awaitFreeSlot(long sequence) throws InterruptedIOException {
+            lock.lock();
+            try {
+                while (isSlotInUse(sequence)) {
+                    changed.await();
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for analyses");
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private boolean isSlotInUse(long sequence) {
+            for (Task<?> task : tasks) {
+                if (task.asynchronous && !task.done 
+                        && (sequence - task.released >= slotCount)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private void publish(long sequence, int length) {
+            lock.lock();
+            try {
+                lengths[slotOf(sequence)] = length;
+                published = sequence + 1;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void finish() {
+            lock.lock();
+            try {
+                finished = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void abort(Throwable cause) {
+            lock.lock();
+            try {
+                if (abortCause == null) {
+                    abortCause = cause;
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        /**
+         * Releases the task's previous chunk and waits for the chunk with the given
+         * sequence number.
+         * 
+         * @return the chunk, or {@code null} at the end of the file
+         */
+        private ByteBuffer take(Task<?> task, long sequence) throws IOException {
+            lock.lock();
+            try {
+                task.released = sequence;
+                changed.signalAll();
+                while ((published <= sequence) && !finished && (abortCause == null)) {
+                    changed.await();
+                }
+                if (abortCause != null) {
+                    throw new IOException("Reading the file failed", abortCause);
+                }
+                if (published <= sequence) {
+                    return null;
+                }
+                int slot = slotOf(sequence);
+                return view(task, slot, lengths[slot]);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for content");
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        private void done(Task<?> task) {
+            lock.lock();
+            try {
+                task.done = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        
+        // waits for the asynchronous tasks to release the buffers
+        private void awaitTasks() {
+            boolean interrupted = false;
+            lock.lock();
+            try {
+                for (Task<?> task : tasks) {
+                    while (task.asynchronous && !task.done) {
+                        try {
+                            changed.await();
+                        } catch (InterruptedException exception) {
+                            // stop the tasks, but still wait for them
+                            interrupted = true;
+                            if (abortCause == null) {
+                                abortCause = exception;
+                            }
+                            changed.signalAll();
+                        }
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * An analysis run by a {@link FusedAnalyzer}, holding its result once run.
+     */
+    public abstract static class Task<R> {
+        final boolean asynchronous;
+        Ring ring;
+        ByteBuffer[] views;
+        // guarded by the ring's lock
+        long released;
+        boolean done;
+        
+        volatile R result;
+        volatile Throwable failure;
+        volatile boolean completed;
+        
+        Task(boolean asynchronous) {
+            this.asynchronous = asynchronous;
+        }
+        
+        /**
+         * @return the result of the analysis
+         * @throws IOException if the analysis, or reading the file, failed
+         */
+        public @CheckForNull R getResult() throws IOException {
+            checkState(completed, "Task %s has not been run", this);
+            if (failure != null) {
+                Throwables.propagateIfPossible(failure, IOException.class);
+                throw Throwables.propagate(failure);
+            }
+            return result;
+        }
+        
+        public boolean isFailed() {
+            return (failure != null);
+        }
+        
+        void run() {
+            try {
+                result = runAsynchronously();
+            } catch (IOException | RuntimeException | Error exception) {
+                failure = exception;
+            } finally {
+                completed = true;
+                ring.done(this);
+            }
+        }
+        
+        // if the task could not be started
+        void fail(Throwable cause) {
+            failure = cause;
+            completed = true;
+            ring.done(this);
+        }
+        
+        abstract R runAsynchronously() throws IOException;
+        
+        ByteBuffer take(long sequence) throws IOException {
+            return ring.take(this, sequence);
+        }
+    }
+    
+    private static class ChunkTask<R> extends Task<R> {
+        private final ChunkConsumer<R> consumer;
+        
+        private ChunkTask(ChunkConsumer<R> consumer, boolean asynchronous) {
+            super(asynchronous);
+            this.consumer = consumer;
+        }
+        
+        @Override
+        R runAsynchronously() throws IOException {
+            for (long sequence = 0; ; sequence++) {
+                ByteBuffer chunk = take(sequence);
+                if (chunk == null) {
+                    return consumer.finish();
+                }
+                consumer.accept(chunk);
+            }
+        }
+        
+        private void acceptInline(ByteBuffer chunk) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                consumer.accept(chunk);
+            } catch (IOException | RuntimeException exception) {
+                failure = exception;
+            }
+        }
+        
+        private void finish() {
+            try {
+                if ((failure == null) && (ring.abortCause == null)) {
+                    result = consumer.finish();
+                } else if (failure == null) {
+                    failure = new IOException("Reading the file failed", 
+                            ring.abortCause);
+                }
+            } catch (IOException | RuntimeException exception) {
+                failure = exception;
+            } finally {
+                completed = true;
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return consumer.toString();
+        }
+    }
+    
+    private static class StreamTask<R> extends Task<R> {
+        private final StreamConsumer<R> consumer;
+        
+        private StreamTask(StreamConsumer<R> consumer) {
+            super(true);
+            this.consumer = consumer;
+        }
+        
+        @Override
+        R runAsynchronously() throws IOException {
+            return consumer.consume(new ChunkInputStream());
+        }
+        
+        @Override
+        public String toString() {
+            return consumer.toString();
+        }
+        
+        private class ChunkInputStream extends InputStream {
+            private long sequence;
+            private ByteBuffer chunk = ByteBuffer.allocate(0);
+            
+            @Override
+            public int read() throws IOException {
+                return (nextChunk() ? (chunk.get() & 0xff) : -1);
+            }
+            
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!nextChunk()) {
+                    return -1;
+                }
+                int count = Math.min(length, chunk.remaining());
+                chunk.get(bytes, offset, count);
+                return count;
+            }
+            
+            @Override
+            public int available() {
+                return ((chunk != null) ? chunk.remaining() : 0);
+            }
+            
+            // false at the end of the file
+            private boolean nextChunk() throws IOException {
+                while ((chunk != null) && !chunk.hasRemaining()) {
+                    chunk = take(sequence++);
+                }
+                return (chunk != null);
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * @(#)ManifestNameVersionParser.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.io.LimitInputStream;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser;
+
+/**
+ * Takes the name and version of an archive from the {@code Implementation-Title}
+ * and {@code Implementation-Version} attributes of its manifest. Only the manifest
+ * entry is read, located through the archive's {@link ZipCentralDirectory central
+ * directory}. Attributes that are missing, or archives without a manifest, fall
+ * back to parsing the file name.
+ */
+public class ManifestNameVersionParser {
+    public static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+    private static final int MAX_MANIFEST_SIZE = 1024 * 1024;
+    
+    private final NameVersionParser filenameParser;
+    
+    public ManifestNameVersionParser() {
+        this(new NameVersionParser());
+    }
+    
+    public ManifestNameVersionParser(@Nonnull NameVersionParser filenameParser) {
+        this.filenameParser = filenameParser;
+    }
+    
+    /**
+     * @throws IOException if the file cannot be read or is not a valid ZIP archive 
+     */
+    public @Nonnull NameAndVersion parse(@Nonnull File archive, 
+            @Nonnull String defaultVersion) throws IOException {
+        return parse(archive.getName(), readManifest(archive), defaultVersion);
+    }
+    
+    /**
+     * @param manifest the archive's manifest, or {@code null} if it has none
+     */
+    public @Nonnull NameAndVersion parse(@Nonnull String filename, 
+            @CheckForNull Manifest manifest, @Nonnull String defaultVersion) {
+        NameAndVersion fromFilename = filenameParser.parse(filename, defaultVersion);
+        if (manifest == null) {
+            return fromFilename;
+        }
+        
+        Attributes attributes = manifest.getMainAttributes();
+        String title = trimToNull(attributes.getValue(Attributes.Name.IMPLEMENTATION_TITLE));
+        String version = 
+            trimToNull(attributes.getValue(Attributes.Name.IMPLEMENTATION_VERSION));
+        return new NameAndVersion(((title != null) ? title : fromFilename.name), 
+                ((version != null) ? version : fromFilename.version));
+    }
+    
+    /**
+     * @return the archive's manifest, or {@code null} if it has none
+     */
+    public static @CheckForNull Manifest readManifest(@Nonnull File archive) 
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(archive.toPath(), READ)) {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            ZipCentralDirectory.Entry manifestEntry = centralDirectory.find(MANIFEST_NAME);
+            if (manifestEntry == null) {
+                return null;
+            }
+            return new Manifest(new ByteArrayInputStream(
+                    centralDirectory.read(manifestEntry, MAX_MANIFEST_SIZE)));
+        }
+    }
+    
+    /**
+     * @return a consumer reading the manifest of an archive streamed by a {@link 
+     *         FusedAnalyzer}, or {@code null} if it has none. Only the entries up 
+     *         to the manifest, usually the first or second, are read.
+     */
+    public static @Nonnull StreamConsumer<Manifest> newManifestReader() {
+        return new StreamConsumer<Manifest>() {
+            @Override
+            public Manifest consume(InputStream in) throws IOException {
+                ZipInputStream zip = new ZipInputStream(in);
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; 
+                        entry = zip.getNextEntry()) {
+                    if (entry.getName().equalsIgnoreCase(MANIFEST_NAME)) {
+                        return new Manifest(new LimitInputStream(zip, MAX_MANIFEST_SIZE));
+                    }
+                }
+                return null;
+            }
+        };
+    }
+    
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return (trimmed.isEmpty() ? null : trimmed);
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * @(#)MultiPatternNameVersionParser.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Parses file names using an ordered list of name/version {@link Rule rules}, the
+ * first matching rule winning. Rather than trying each rule's regex in turn, the
+ * rules are prefiltered on the literal prefix and suffix (if any) that their regex
+ * requires, and the remaining candidates are matched in a single pass using a
+ * combined pattern. Combined patterns are cached per set of candidates.
+ * <p>
+ * As for {@link NameAndVersion.NameVersionParser}, the first group of a rule's
+ * regex is the name and the second group, if present and matched, the version.
+ * Rules may not use numbered back references, since their groups are renumbered
+ * in the combined pattern.
+ */
+public class MultiPatternNameVersionParser {
+    static final int MAX_RULES = 64;
+
+    // flags that change how literals match
+    private static final Pattern LITERAL_FLAGS = Pattern.compile("\\(\\?[a-zA-Z-]*[iuxU]");
+    private static final Pattern BACK_REFERENCE = Pattern.compile("(?<!\\\\)(?:\\\\\\\\)*\\\\[1-9]");
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final ImmutableList<Rule> rules;
+    private final ConcurrentMap<Long, CombinedPattern> combinedPatterns =
+        new ConcurrentHashMap<Long, CombinedPattern>();
+
+    public MultiPatternNameVersionParser(@Nonnull List<Rule> rules) {
+        checkArgument(!rules.isEmpty(), "At least one rule is required");
+        checkArgument(rules.size() <= MAX_RULES, "At most %s rules are supported", MAX_RULES);
+        this.rules = ImmutableList.copyOf(rules);
+    }
+
+    public MultiPatternNameVersionParser(@Nonnull Rule... rules) {
+        this(ImmutableList.copyOf(rules));
+    }
+
+    public @Nonnull NameAndVersion parse(@Nonnull String filename,
+            @Nonnull String defaultVersion) {
+        Classification classification = classify(filename, defaultVersion);
+        return ((classification != null)
+                ? classification.nameAndVersion
+                : new NameAndVersion(filename, defaultVersion));
+    }
+
+    /**
+     * @return the name and version according to the first matching rule, or
+     *         {@code null} if no rule matches
+     */
+    public @CheckForNull Classification classify(@Nonnull String filename,
+            @Nonnull String defaultVersion) {
+        long candidates = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            if (rules.get(i).mayMatch(filename)) {
+                candidates |= (1L << i);
+            }
+        }
+        if (candidates == 0) {
+            return null;
+        }
+
+        CombinedPattern combinedPattern = combinedPatterns.get(candidates);
+        if (combinedPattern == null) {
+            combinedPattern = new CombinedPattern(candidates);
+            combinedPatterns.putIfAbsent(candidates, combinedPattern);
+        }
+        return combinedPattern.classify(filename, defaultVersion);
+    }
+
+    private class CombinedPattern {
+        private final Pattern pattern;
+        private final Rule[] candidates;
+        // group number of each candidate's marker group
+        private final int[] markerGroups;
+
+        private CombinedPattern(long candidateMask) {
+            int candidateCount = Long.bitCount(candidateMask);
+            candidates = new Rule[candidateCount];
+            markerGroups = new int[candidateCount];
+            StringBuilder combined = new StringBuilder();
+            int group = 0;
+            for (int i = 0, candidate = 0; i < rules.size(); i++) {
+                if ((candidateMask & (1L << i)) == 0) {
+                    continue;
+                }
+                Rule rule = rules.get(i);
+                if (candidate > 0) {
+                    combined.append('|');
+                }
+                // the empty marker group shows which alternative matched
+                combined.append("(?:()(?:").append(rule.nameVersionRegex).append("))");
+                candidates[candidate] = rule;
+                markerGroups[candidate] = group + 1;
+                group += 1 + rule.groupCount;
+                candidate++;
+            }
+            pattern = Pattern.compile(combined.toString());
+        }
+
+        private Classification classify(String filename, String defaultVersion) {
+            Matcher matcher = pattern.matcher(filename);
+            if (!matcher.matches()) {
+                return null;
+            }
+            for (int i = 0; i < candidates.length; i++) {
+                int markerGroup = markerGroups[i];
+                if (matcher.start(markerGroup) == -1) {
+                    continue;
+                }
+                Rule rule = candidates[i];
+                String version = ((rule.groupCount > 1) ? matcher.group(markerGroup + 2) : null);
+                return new Classification(rule.id, new NameAndVersion(
+                        matcher.group(markerGroup + 1),
+                        ((version != null) ? version : defaultVersion)));
+            }
+            throw new IllegalStateException(String.format(
+                    "No marker group matched for '%s' in '%s'", filename, pattern));
+        }
+    }
+
+    public static class Rule {
+        public final String id;
+        public final String nameVersionRegex;
+        private final int groupCount;
+        private final String literalPrefix;
+        private final String literalSuffix;
+
+        public Rule(@Nonnull String id, @Nonnull String nameVersionRegex) {
+            checkArgument(!BACK_REFERENCE.matcher(nameVersionRegex).find(),
+                    "Rule '%s' may not use numbered back references", id);
+            this.id = id;
+            this.nameVersionRegex = nameVersionRegex;
+            groupCount = Pattern.compile(nameVersionRegex).matcher("").groupCount();
+            checkArgument(groupCount > 0,
+                    "Name/version regular expression must contain at least one matching group");
+            boolean literalsMatchExactly = !LITERAL_FLAGS.matcher(nameVersionRegex).find()
+                    && !hasUnescaped(nameVersionRegex, '|');
+            literalPrefix = (literalsMatchExactly ? literalPrefix(nameVersionRegex) : "");
+            literalSuffix = (literalsMatchExactly ? literalSuffix(nameVersionRegex) : "");
+        }
+
+        String getLiteralPrefix() {
+            return literalPrefix;
+        }
+
+        String getLiteralSuffix() {
+            return literalSuffix;
+        }
+
+        private boolean mayMatch(String filename) {
+            return filename.startsWith(literalPrefix) && filename.endsWith(literalSuffix);
+        }
+
+        // the literal characters every match must start with
+        private static String literalPrefix(String regex) {
+            StringBuilder prefix = new StringBuilder();
+            int i = (regex.startsWith("^") ? 1 : 0);
+            while (i < regex.length()) {
+                char literal;
+                int next;
+                char c = regex.charAt(i);
+                if (c == '\\') {
+                    if ((i + 1 == regex.length())
+                            || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                        break;
+                    }
+                    literal = regex.charAt(i + 1);
+                    next = i + 2;
+                } else if (METACHARACTERS.indexOf(c) == -1) {
+                    literal = c;
+                    next = i + 1;
+                } else {
+                    break;
+                }
+                // the literal is only required if it is not optional
+                if ((next < regex.length()) && ("?*{".indexOf(regex.charAt(next)) != -1)) {
+                    break;
+                }
+                prefix.append(literal);
+                if ((next < regex.length()) && (regex.charAt(next) == '+')) {
+                    break;
+                }
+                i = next;
+            }
+            return prefix.toString();
+        }
+
+        // the literal characters every match must end with
+        private static String literalSuffix(String regex) {
+            StringBuilder suffix = new StringBuilder();
+            int i = regex.length() - 1;
+            if ((i >= 0) && (regex.charAt(i) == '$') && !isEscaped(regex, i)) {
+                i--;
+            }
+            while (i >= 0) {
+                char c = regex.charAt(i);
+                if (isEscaped(regex, i)) {
+                    if (Character.isLetterOrDigit(c)) {
+                        break;
+                    }
+                    suffix.append(c);
+                    i -= 2;
+                } else if ((c != '\\') && (METACHARACTERS.indexOf(c) == -1)) {
+                    suffix.append(c);
+                    i--;
+                } else {
+                    break;
+                }
+            }
+            return suffix.reverse().toString();
+        }
+
+        private static boolean isEscaped(String regex, int index) {
+            int backslashes = 0;
+            for (int i = index - 1; (i >= 0) && (regex.charAt(i) == '\\'); i--) {
+                backslashes++;
+            }
+            return (backslashes % 2 == 1);
+        }
+
+        private static boolean hasUnescaped(String regex, char c) {
+            for (int i = regex.indexOf(c); i != -1; i = regex.indexOf(c, i + 1)) {
+                if (!isEscaped(regex, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s", id, nameVersionRegex);
+        }
+    }
+
+    public static class Classification {
+        public final String ruleId;
+        public final NameAndVersion nameAndVersion;
+
+        private Classification(String ruleId, NameAndVersion nameAndVersion) {
+            this.ruleId = ruleId;
+            this.nameAndVersion = nameAndVersion;
+        }
+    }
+}
@@ -29,11 +29,12 @@ import javax.annotation.Nonnull;
 
 public class NameAndVersion {
     private static final NameVersionParser PARSER = new NameVersionParser();
+    private static final NameVersionParserCache PARSER_CACHE = new NameVersionParserCache(64);
     
     public final String name;
     public final String version;
 
-    private NameAndVersion(String name, String version) {
+    NameAndVersion(String name, String version) {
         this.name = name;
         this.version = version;
     }
@@ -44,13 +45,22 @@ public class NameAndVersion {
     
     public static NameAndVersion from(String filename, String defaultVersion, 
             String nameVersionRegex) {
-        return new NameVersionParser(nameVersionRegex).parse(filename, defaultVersion);
+        return PARSER_CACHE.get(nameVersionRegex).parse(filename, defaultVersion);
+    }
+    
+    /**
+     * @return the cache of parsers used by {@link #from(String, String, String)}
+     */
+    public static NameVersionParserCache getParserCache() {
+        return PARSER_CACHE;
     }
     
     public static class NameVersionParser {
         // <name>.<ext> or <name>-<version>.<ext>
+        static final String DEFAULT_NAME_VERSION_REGEX = 
+            "([A-Za-z0-9]+)(?:-([^\\.]+))?\\.[A-Za-z0-9]+";
         private static final Pattern DEFAULT_NAME_VERSION_PATTERN = 
-            Pattern.compile("([A-Za-z0-9]+)(?:-([^\\.]+))?\\.[A-Za-z0-9]+");
+            Pattern.compile(DEFAULT_NAME_VERSION_REGEX);
         
         private final Pattern nameVersionPattern;
         
@@ -75,6 +85,10 @@ public class NameAndVersion {
         
         public @Nonnull NameAndVersion parse(@Nonnull String filename, 
                 @Nonnull String defaultVersion) {
+            if (nameVersionPattern == DEFAULT_NAME_VERSION_PATTERN) {
+                return parseDefault(filename, defaultVersion);
+            }
+            
             Matcher nameAndVersion = nameVersionPattern.matcher(filename);
             if (!nameAndVersion.matches()) {
                 return new NameAndVersion(filename, defaultVersion);
@@ -85,5 +99,56 @@ public class NameAndVersion {
                      ? nameAndVersion.group(2) 
                      : defaultVersion); 
         }
+        
+        /*
+         * Equivalent to matching DEFAULT_NAME_VERSION_PATTERN, without the regex: 
+         * the name is the longest alphanumeric prefix, which must be followed by 
+         * either ".<ext>" or "-<version>.<ext>", where the version runs up to the 
+         * first '.' and the extension is alphanumeric.
+         */
+        private static NameAndVersion parseDefault(String filename, String defaultVersion) {
+            int length = filename.length();
+            int nameEnd = 0;
+            while ((nameEnd < length) && isAsciiAlphanumeric(filename.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            if ((nameEnd == 0) || (nameEnd == length)) {
+                return new NameAndVersion(filename, defaultVersion);
+            }
+            
+            int versionEnd;
+            char separator = filename.charAt(nameEnd);
+            if (separator == '.') {
+                versionEnd = nameEnd;
+            } else if (separator == '-') {
+                versionEnd = filename.indexOf('.', nameEnd + 1);
+                if (versionEnd <= nameEnd + 1) {
+                    // no '.' or empty version
+                    return new NameAndVersion(filename, defaultVersion);
+                }
+            } else {
+                return new NameAndVersion(filename, defaultVersion);
+            }
+            
+            int extensionStart = versionEnd + 1;
+            if (extensionStart == length) {
+                return new NameAndVersion(filename, defaultVersion);
+            }
+            for (int i = extensionStart; i < length; i++) {
+                if (!isAsciiAlphanumeric(filename.charAt(i))) {
+                    return new NameAndVersion(filename, defaultVersion);
+                }
+            }
+            
+            return new NameAndVersion(filename.substring(0, nameEnd), 
+                    ((versionEnd > nameEnd) 
+                     ? filename.substring(nameEnd + 1, versionEnd) 
+                     : defaultVersion));
+        }
+        
+        private static boolean isAsciiAlphanumeric(char c) {
+            return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) 
+                   || ((c >= '0') && (c <= '9'));
+        }
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * @(#)NameVersionParserCache.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+
+import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser;
+
+/**
+ * A thread-safe, size-bounded cache of {@link NameVersionParser}s by regular
+ * expression, evicting the least recently used parser when full. Invalid regular
+ * expressions are not cached.
+ */
+public class NameVersionParserCache {
+    private final int maximumSize;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // guarded by "this"
+    private final Map<String, NameVersionParser> parsers;
+
+    public NameVersionParserCache(int maximumSize) {
+        checkArgument(maximumSize > 0, "Maximum size must be positive");
+        this.maximumSize = maximumSize;
+        parsers = new LinkedHashMap<String, NameVersionParser>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, NameVersionParser> eldest) {
+                if (size() > NameVersionParserCache.this.maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public @Nonnull NameVersionParser get(@Nonnull String nameVersionRegex) {
+        synchronized (this) {
+            NameVersionParser parser = parsers.get(nameVersionRegex);
+            if (parser != null) {
+                hits.incrementAndGet();
+                return parser;
+            }
+        }
+
+        misses.incrementAndGet();
+        // compile outside the lock
+        NameVersionParser parser = new NameVersionParser(nameVersionRegex);
+        synchronized (this) {
+            NameVersionParser cachedParser = parsers.get(nameVersionRegex);
+            if (cachedParser != null) {
+                return cachedParser;
+            }
+            parsers.put(nameVersionRegex, parser);
+            return parser;
+        }
+    }
+
+    public synchronized int size() {
+        return parsers.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NameVersionParserCache[size=%d, hits=%d, misses=%d, evictions=%d]",
+                size(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+}
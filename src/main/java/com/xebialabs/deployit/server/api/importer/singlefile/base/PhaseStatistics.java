@@ -0,0 +1,126 @@
+/*
+ * @(#)PhaseStatistics.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts, errors, bytes processed and a latency histogram for one phase of an
+ * import. Recording is lock-free and does not allocate, so it can be left on in
+ * production; reading sums the counters, so values read while recording is in 
+ * progress may be slightly inconsistent with one another.
+ */
+public class PhaseStatistics implements PhaseStatisticsMBean {
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    
+    private final StripedCounter count = new StripedCounter();
+    private final StripedCounter errors = new StripedCounter();
+    private final StripedCounter bytes = new StripedCounter();
+    private final StripedCounter totalNanos = new StripedCounter();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    
+    public void record(long nanos, long bytesProcessed, boolean failed) {
+        count.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (bytesProcessed > 0) {
+            bytes.add(bytesProcessed);
+        }
+        totalNanos.add(nanos);
+        histogram.record(nanos);
+        long max = maxNanos.get();
+        while ((nanos > max) && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+    
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+    
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+    
+    @Override
+    public long getTotalBytes() {
+        return bytes.sum();
+    }
+    
+    @Override
+    public double getMeanMillis() {
+        long recorded = getCount();
+        return ((recorded == 0) ? 0 : totalNanos.sum() / NANOS_PER_MILLI / recorded);
+    }
+    
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getMedianMillis() {
+        return getPercentileMillis(50);
+    }
+    
+    @Override
+    public double get95thPercentileMillis() {
+        return getPercentileMillis(95);
+    }
+    
+    @Override
+    public double get99thPercentileMillis() {
+        return getPercentileMillis(99);
+    }
+    
+    public double getPercentileMillis(double percentile) {
+        return histogram.getPercentile(percentile) / NANOS_PER_MILLI;
+    }
+    
+    @Override
+    public double getThroughputBytesPerSecond() {
+        long nanos = totalNanos.sum();
+        return ((nanos == 0) ? 0 : getTotalBytes() * NANOS_PER_SECOND / nanos);
+    }
+    
+    @Override
+    public void reset() {
+        count.reset();
+        errors.reset();
+        bytes.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        histogram.reset();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("PhaseStatistics[count=%d, errors=%d, bytes=%d, mean=%.3fms, " 
+                + "p99=%.3fms]", getCount(), getErrorCount(), getTotalBytes(), 
+                getMeanMillis(), get99thPercentileMillis());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * @(#)StripedCounter.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that spreads updates over cells selected by thread, so that 
+ * concurrent updates rarely contend. Cells are a cache line apart. Adding neither
+ * locks nor allocates; reading sums the cells, so is not an atomic snapshot.
+ */
+class StripedCounter {
+    // longs per 64-byte cache line
+    private static final int PADDING = 8;
+    
+    private final AtomicLongArray cells;
+    private final int mask;
+    
+    StripedCounter() {
+        int stripes = Integer.highestOneBit(
+                Math.max(1, 2 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        cells = new AtomicLongArray(stripes * PADDING);
+        mask = stripes - 1;
+    }
+    
+    void add(long value) {
+        cells.getAndAdd(cellIndex(), value);
+    }
+    
+    void increment() {
+        add(1);
+    }
+    
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+    
+    void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+    
+    private int cellIndex() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return ((hash >>> 16) & mask) * PADDING;
+    }
+}
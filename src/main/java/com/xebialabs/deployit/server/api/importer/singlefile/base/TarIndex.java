@@ -0,0 +1,451 @@
+/*
+ * @(#)TarIndex.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static java.lang.String.format;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+
+/**
+ * An index of the entries of a tar archive, built in a single pass over the
+ * (decompressed) archive stream. Each entry records the offset of its data in
+ * the stream, so entries of an uncompressed archive can be read with positional
+ * reads. The content of small entries selected while building the index is kept
+ * in the index, so that it can be read from compressed archives without
+ * decompressing them again.
+ * <p>
+ * POSIX ustar archives are supported, as are GNU long names and the {@code path}
+ * and {@code size} PAX extended headers.
+ */
+public class TarIndex {
+    public static final int MAX_CAPTURED_SIZE = 64 * 1024;
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int MAX_NAME_LENGTH = 16 * 1024;
+    private static final int MAX_EXTENDED_HEADER_SIZE = 64 * 1024;
+    private static final byte[] USTAR_MAGIC = { 'u', 's', 't', 'a', 'r', 0 };
+
+    public static final char REGULAR = '0';
+    public static final char DIRECTORY = '5';
+    private static final char OLD_REGULAR = 0;
+    private static final char CONTIGUOUS = '7';
+    private static final char GNU_LONG_NAME = 'L';
+    private static final char GNU_LONG_LINK = 'K';
+    private static final char PAX_HEADER = 'x';
+    private static final char PAX_GLOBAL_HEADER = 'g';
+
+    private final ImmutableList<Entry> entries;
+    private final ImmutableMap<String, Entry> entriesByName;
+    private final ImmutableMap<String, byte[]> capturedContent;
+
+    private TarIndex(List<Entry> entries, Map<String, byte[]> capturedContent) {
+        this.entries = ImmutableList.copyOf(entries);
+        Map<String, Entry> entriesByName = Maps.newHashMap();
+        for (Entry entry : entries) {
+            // later entries replace earlier ones, as when extracting
+            entriesByName.put(entry.name, entry);
+        }
+        this.entriesByName = ImmutableMap.copyOf(entriesByName);
+        this.capturedContent = ImmutableMap.copyOf(capturedContent);
+    }
+
+    /**
+     * Reads the archive to its end, keeping the content of the regular files
+     * matching {@code capture} of at most {@link #MAX_CAPTURED_SIZE} bytes.
+     *
+     * @param tar the decompressed archive stream, which is not closed
+     */
+    public static @Nonnull TarIndex build(@Nonnull InputStream tar,
+            @Nonnull Predicate<String> capture) throws IOException {
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        Map<String, byte[]> capturedContent = Maps.newHashMap();
+        byte[] header = new byte[BLOCK_SIZE];
+        long position = 0;
+        String longName = null;
+        Map<String, String> paxHeaders = ImmutableMap.of();
+        while (readBlock(tar, header, position)) {
+            if (isZeroBlock(header)) {
+                // end of archive marker
+                break;
+            }
+            verifyChecksum(header, position);
+            char type = (char) header[156];
+            long size = parseNumber(header, 124, 12, position);
+            long dataOffset = position + BLOCK_SIZE;
+            long paddedSize = padded(size);
+
+            switch (type) {
+            case GNU_LONG_NAME:
+                longName = trimNul(new String(readData(tar, size, MAX_NAME_LENGTH,
+                        dataOffset), Charsets.UTF_8));
+                ByteStreams.skipFully(tar, paddedSize - size);
+                break;
+            case PAX_HEADER:
+                paxHeaders = parsePaxHeaders(readData(tar, size, MAX_EXTENDED_HEADER_SIZE,
+                        dataOffset), dataOffset);
+                ByteStreams.skipFully(tar, paddedSize - size);
+                break;
+            case GNU_LONG_LINK:
+            case PAX_GLOBAL_HEADER:
+                ByteStreams.skipFully(tar, paddedSize);
+                break;
+            default:
+                String name = paxHeaders.get("path");
+                if (name == null) {
+                    name = ((longName != null) ? longName : headerName(header));
+                }
+                name = normalize(name);
+                if (name.length() > MAX_NAME_LENGTH) {
+                    throw new IOException(format("Tar entry name at %d is too long",
+                            position));
+                }
+                if (paxHeaders.containsKey("size")) {
+                    size = parsePaxSize(paxHeaders.get("size"), dataOffset);
+                    paddedSize = padded(size);
+                }
+                Entry entry = new Entry(name, type, (int) parseNumber(header, 100, 8, position),
+                        dataOffset, size);
+                entries.add(entry);
+                if (entry.isFile() && (size <= MAX_CAPTURED_SIZE) && capture.apply(name)) {
+                    capturedContent.put(name, readData(tar, size, MAX_CAPTURED_SIZE,
+                            dataOffset));
+                    ByteStreams.skipFully(tar, paddedSize - size);
+                } else {
+                    // don't keep the content of an earlier entry with the same name
+                    capturedContent.remove(name);
+                    ByteStreams.skipFully(tar, paddedSize);
+                }
+                longName = null;
+                paxHeaders = ImmutableMap.of();
+            }
+            position = dataOffset + paddedSize;
+        }
+        return new TarIndex(entries.build(), capturedContent);
+    }
+
+    public @Nonnull List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return the last entry with the given name, or {@code null} if there is none
+     */
+    public @CheckForNull Entry find(@Nonnull String name) {
+        return entriesByName.get(normalize(name));
+    }
+
+    /**
+     * @return the content of the entry with the given name if it was captured when
+     *         the index was built, or {@code null} otherwise
+     */
+    public @CheckForNull byte[] getCapturedContent(@Nonnull String name) {
+        byte[] content = capturedContent.get(normalize(name));
+        return ((content != null) ? content.clone() : null);
+    }
+
+    public boolean isCaptured(@Nonnull String name) {
+        return capturedContent.containsKey(normalize(name));
+    }
+
+    /**
+     * Reads the entry's data from an <em>uncompressed</em> archive.
+     *
+     * @throws IOException if the entry is larger than {@code maxSize}
+     */
+    public static @Nonnull byte[] read(@Nonnull FileChannel channel, @Nonnull Entry entry,
+            int maxSize) throws IOException {
+        if (entry.size > maxSize) {
+            throw new IOException(format("Entry '%s' of size %d exceeds maximum size %d",
+                    entry.name, entry.size, maxSize));
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) entry.size);
+        long position = entry.offset;
+        while (data.hasRemaining()) {
+            int read = channel.read(data, position);
+            if (read == -1) {
+                throw new EOFException(format("Unexpected end of archive at %d", position));
+            }
+            position += read;
+        }
+        return data.array();
+    }
+
+    public void writeTo(@Nonnull DataOutput out) throws IOException {
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeUTF(entry.name);
+            out.writeByte(entry.type);
+            out.writeInt(entry.mode);
+            out.writeLong(entry.offset);
+            out.writeLong(entry.size);
+        }
+        out.writeInt(capturedContent.size());
+        for (Map.Entry<String, byte[]> content : capturedContent.entrySet()) {
+            out.writeUTF(content.getKey());
+            out.writeInt(content.getValue().length);
+            out.write(content.getValue());
+        }
+    }
+
+    public static @Nonnull TarIndex readFrom(@Nonnull DataInput in) throws IOException {
+        int entryCount = in.readInt();
+        checkCount(entryCount, Integer.MAX_VALUE);
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new Entry(in.readUTF(), (char) (in.readByte() & 0xff), in.readInt(),
+                    in.readLong(), in.readLong()));
+        }
+        int capturedCount = in.readInt();
+        checkCount(capturedCount, entryCount);
+        Map<String, byte[]> capturedContent = Maps.newHashMap();
+        for (int i = 0; i < capturedCount; i++) {
+            String name = in.readUTF();
+            int length = in.readInt();
+            checkCount(length, MAX_CAPTURED_SIZE);
+            byte[] content = new byte[length];
+            in.readFully(content);
+            capturedContent.put(name, content);
+        }
+        return new TarIndex(entries.build(), capturedContent);
+    }
+
+    private static void checkCount(int count, int max) throws IOException {
+        if ((count < 0) || (count > max)) {
+            throw new IOException(format("Invalid count %d in tar index", count));
+        }
+    }
+
+    // returns false at the end of the stream, which older archivers omit the marker for
+    private static boolean readBlock(InputStream tar, byte[] block, long position)
+            throws IOException {
+        int read = ByteStreams.read(tar, block, 0, BLOCK_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        if (read < BLOCK_SIZE) {
+            throw new EOFException(format("Truncated tar header at %d", position));
+        }
+        return true;
+    }
+
+    private static byte[] readData(InputStream tar, long size, int maxSize, long position)
+            throws IOException {
+        if (size > maxSize) {
+            throw new IOException(format("Tar entry at %d of size %d exceeds maximum size %d",
+                    position, size, maxSize));
+        }
+        byte[] data = new byte[(int) size];
+        ByteStreams.readFully(tar, data);
+        return data;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void verifyChecksum(byte[] header, long position) throws IOException {
+        long expected = parseNumber(header, 148, 8, position);
+        // the checksum field itself counts as spaces
+        long unsignedSum = 8 * ' ';
+        long signedSum = 8 * ' ';
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if ((i < 148) || (i >= 156)) {
+                unsignedSum += (header[i] & 0xff);
+                signedSum += header[i];
+            }
+        }
+        // some old archivers computed the checksum using signed bytes
+        if ((expected != unsignedSum) && (expected != signedSum)) {
+            throw new IOException(format("Invalid tar header checksum at %d", position));
+        }
+    }
+
+    // octal, or base-256 if the high bit of the first byte is set
+    private static long parseNumber(byte[] header, int offset, int length, long position)
+            throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            if ((header[offset] & 0x40) != 0) {
+                throw new IOException(format("Negative number in tar header at %d", position));
+            }
+            long value = header[offset] & 0x3f;
+            for (int i = offset + 1; i < offset + length; i++) {
+                if ((value >>> 55) != 0) {
+                    throw new IOException(format("Number too large in tar header at %d",
+                            position));
+                }
+                value = (value << 8) | (header[i] & 0xff);
+            }
+            return value;
+        }
+
+        long value = 0;
+        int i = offset;
+        int end = offset + length;
+        while ((i < end) && ((header[i] == ' ') || (header[i] == 0))) {
+            i++;
+        }
+        for (; (i < end) && (header[i] != ' ') && (header[i] != 0); i++) {
+            if ((header[i] < '0') || (header[i] > '7')) {
+                throw new IOException(format("Invalid octal number in tar header at %d",
+                        position));
+            }
+            value = (value << 3) + (header[i] - '0');
+        }
+        return value;
+    }
+
+    private static String headerName(byte[] header) {
+        String name = string(header, 0, 100);
+        boolean ustar = true;
+        for (int i = 0; i < USTAR_MAGIC.length; i++) {
+            ustar &= (header[257 + i] == USTAR_MAGIC[i]);
+        }
+        if (ustar) {
+            String prefix = string(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + '/' + name;
+            }
+        }
+        return name;
+    }
+
+    private static String string(byte[] header, int offset, int length) {
+        int end = offset;
+        while ((end < offset + length) && (header[end] != 0)) {
+            end++;
+        }
+        return new String(header, offset, end - offset, Charsets.UTF_8);
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf(0);
+        return ((nul != -1) ? value.substring(0, nul) : value);
+    }
+
+    // records of the form "<length> <key>=<value>\n"
+    private static Map<String, String> parsePaxHeaders(byte[] data, long position)
+            throws IOException {
+        Map<String, String> headers = Maps.newHashMap();
+        int offset = 0;
+        while (offset < data.length) {
+            int space = offset;
+            while ((space < data.length) && (data[space] != ' ')) {
+                space++;
+            }
+            int length;
+            try {
+                length = Integer.parseInt(new String(data, offset, space - offset,
+                        Charsets.US_ASCII));
+            } catch (NumberFormatException exception) {
+                length = -1;
+            }
+            if ((length <= space - offset) || (offset + length > data.length)) {
+                throw new IOException(format("Invalid PAX header at %d", position));
+            }
+            String record = new String(data, space + 1, offset + length - space - 2,
+                    Charsets.UTF_8);
+            int equals = record.indexOf('=');
+            if (equals != -1) {
+                headers.put(record.substring(0, equals), record.substring(equals + 1));
+            }
+            offset += length;
+        }
+        return headers;
+    }
+
+    private static long parsePaxSize(String size, long position) throws IOException {
+        try {
+            long value = Long.parseLong(size);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException exception) {
+            // fall through
+        }
+        throw new IOException(format("Invalid PAX size '%s' at %d", size, position));
+    }
+
+    private static long padded(long size) {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    private static String normalize(String name) {
+        String normalized = name;
+        while (normalized.startsWith("./")) {
+            normalized = normalized.substring(2);
+        }
+        return normalized;
+    }
+
+    public static class Entry {
+        public final String name;
+        public final char type;
+        public final int mode;
+        /** the offset of the entry's data in the uncompressed archive */
+        public final long offset;
+        public final long size;
+
+        Entry(String name, char type, int mode, long offset, long size) {
+            this.name = name;
+            this.type = type;
+            this.mode = mode;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        public boolean isFile() {
+            return (type == REGULAR) || (type == OLD_REGULAR) || (type == CONTIGUOUS);
+        }
+
+        public boolean isDirectory() {
+            return (type == DIRECTORY);
+        }
+
+        @Override
+        public String toString() {
+            return format("%s[type=%s, mode=%o, offset=%d, size=%d]", name, type, mode,
+                    offset, size);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * @(#)TreeDigester.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.SHA_256;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.SHA_256_TREE;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.toHex;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Computes a {@value ContentDigest#SHA_256_TREE} digest of large files by hashing
+ * fixed-size chunks in parallel on a fork/join pool and combining the chunk
+ * digests into a binary hash tree. The shape of the tree only depends on the file
+ * size and chunk size, so the root digest is the same for any degree of
+ * parallelism:
+ * <pre>
+ * leaf(chunk)  = SHA-256(0x00 || chunk)
+ * node(l, r)   = SHA-256(0x01 || l || r)
+ * </pre>
+ * where the left subtree of a node covering {@code n > 1} chunks covers the
+ * largest power of two smaller than {@code n} (as in RFC 6962). Files smaller than
+ * the threshold are digested sequentially as plain {@value ContentDigest#SHA_256}.
+ */
+public class TreeDigester extends ContentDigester {
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    public static final long DEFAULT_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final long threshold;
+
+    public TreeDigester(@Nonnull ForkJoinPool pool) {
+        this(pool, DEFAULT_CHUNK_SIZE, DEFAULT_THRESHOLD);
+    }
+
+    public TreeDigester(@Nonnull ForkJoinPool pool, int chunkSize, long threshold) {
+        checkArgument(chunkSize > 0, "Chunk size must be positive");
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public @Nonnull ContentDigest digest(@Nonnull File file) throws IOException {
+        if (file.length() < threshold) {
+            return super.digest(file);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+            long size = channel.size();
+            // an empty file is a single, empty chunk
+            long chunks = Math.max((size + chunkSize - 1) / chunkSize, 1);
+            byte[] root;
+            try {
+                root = pool.invoke(new SubtreeDigest(channel, size, 0, chunks));
+            } catch (RuntimeException exception) {
+                // the pool may rethrow a copy of the original exception
+                for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                }
+                throw exception;
+            }
+            return new ContentDigest(size, ImmutableMap.of(SHA_256_TREE, toHex(root)));
+        }
+    }
+
+    /**
+     * @return {@code null}, since the digest depends on the size of the file
+     */
+    @Override
+    public ChunkConsumer<ContentDigest> newConsumer() {
+        return null;
+    }
+
+    private class SubtreeDigest extends RecursiveTask<byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long size;
+        private final long fromChunk;
+        private final long toChunk;
+
+        private SubtreeDigest(FileChannel channel, long size, long fromChunk, long toChunk) {
+            this.channel = channel;
+            this.size = size;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected byte[] compute() {
+            long chunks = toChunk - fromChunk;
+            if (chunks == 1) {
+                try {
+                    return digestChunk();
+                } catch (IOException exception) {
+                    throw new ChunkReadException(exception);
+                }
+            }
+
+            long split = fromChunk + Long.highestOneBit(chunks - 1);
+            SubtreeDigest left = new SubtreeDigest(channel, size, fromChunk, split);
+            left.fork();
+            byte[] rightDigest = new SubtreeDigest(channel, size, split, toChunk).compute();
+            byte[] leftDigest = left.join();
+
+            MessageDigest node = newMessageDigest(SHA_256);
+            node.update(NODE_PREFIX);
+            node.update(leftDigest);
+            node.update(rightDigest);
+            return node.digest();
+        }
+
+        private byte[] digestChunk() throws IOException {
+            MessageDigest leaf = newMessageDigest(SHA_256);
+            leaf.update(LEAF_PREFIX);
+            ByteBuffer buffer = threadBuffer();
+            long position = fromChunk * chunkSize;
+            long end = Math.min(position + chunkSize, size);
+            while (position < end) {
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read == -1) {
+                    throw new EOFException(String.format(
+                            "File truncated to %d bytes while digesting", position));
+                }
+                position += read;
+                buffer.flip();
+                leaf.update(buffer);
+                buffer.clear();
+            }
+            return leaf.digest();
+        }
+    }
+
+    private static class ChunkReadException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private ChunkReadException(IOException cause) {
+            super(cause);
+        }
+    }
+}
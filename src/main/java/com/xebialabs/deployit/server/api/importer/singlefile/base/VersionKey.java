@@ -0,0 +1,189 @@
+/*
+ * @(#)VersionKey.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * A comparable key for a version string, computed once so that versions can be
+ * sorted without being parsed again in every comparison. The version is split into
+ * numeric and alphabetic tokens at {@code '.'}, {@code '-'}, {@code '_'} and
+ * {@code '+'} and at transitions between digits and letters. Numeric tokens
+ * compare numerically and are newer than any qualifier; qualifiers are ordered
+ * <pre>
+ * alpha (a) &lt; beta (b) &lt; milestone (m) &lt; rc (cr) &lt; snapshot 
+ *   &lt; release (ga, final) &lt; sp &lt; other qualifiers, alphabetically
+ * </pre>
+ * and missing tokens count as {@code 0} or {@code release}, so {@code 1.0},
+ * {@code 1.0.0} and {@code 1.0-final} are equal.
+ */
+public final class VersionKey implements Comparable<VersionKey> {
+    // numeric tokens are stored as themselves, qualifiers as negative ranks
+    private static final long ALPHA = -8;
+    private static final long BETA = -7;
+    private static final long MILESTONE = -6;
+    private static final long RC = -5;
+    private static final long SNAPSHOT = -4;
+    private static final long RELEASE = -3;
+    private static final long SP = -2;
+    private static final long OTHER = -1;
+    
+    private static final ImmutableMap<String, Long> QUALIFIERS = 
+        ImmutableMap.<String, Long>builder()
+        .put("a", ALPHA).put("alpha", ALPHA).put("b", BETA).put("beta", BETA)
+        .put("m", MILESTONE).put("milestone", MILESTONE).put("rc", RC).put("cr", RC)
+        .put("snapshot", SNAPSHOT).put("ga", RELEASE).put("final", RELEASE)
+        .put("release", RELEASE).put("sp", SP).build();
+    
+    private final String version;
+    private final long[] tokens;
+    // the text of OTHER qualifiers, null elsewhere
+    private final String[] otherQualifiers;
+    
+    private VersionKey(String version, long[] tokens, String[] otherQualifiers) {
+        this.version = version;
+        this.tokens = tokens;
+        this.otherQualifiers = otherQualifiers;
+    }
+    
+    public static @Nonnull VersionKey of(@Nonnull String version) {
+        String lowerCaseVersion = version.toLowerCase(Locale.ENGLISH);
+        int length = lowerCaseVersion.length();
+        long[] tokens = new long[length];
+        String[] otherQualifiers = new String[length];
+        int tokenCount = 0;
+        int tokenStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if ((i < length) && !isSeparator(lowerCaseVersion.charAt(i))
+                    && ((i == tokenStart) || (Character.isDigit(lowerCaseVersion.charAt(i)) 
+                            == Character.isDigit(lowerCaseVersion.charAt(i - 1))))) {
+                continue;
+            }
+            if (i > tokenStart) {
+                String token = lowerCaseVersion.substring(tokenStart, i);
+                if (Character.isDigit(token.charAt(0))) {
+                    tokens[tokenCount] = parseNumber(token);
+                } else {
+                    Long rank = QUALIFIERS.get(token);
+                    tokens[tokenCount] = ((rank != null) ? rank : OTHER);
+                    if (rank == null) {
+                        otherQualifiers[tokenCount] = token;
+                    }
+                }
+                tokenCount++;
+            }
+            tokenStart = ((i < length) && isSeparator(lowerCaseVersion.charAt(i))) ? i + 1 : i;
+        }
+        
+        // drop trailing tokens equal to missing ones so that equal keys are identical
+        while ((tokenCount > 0) && isPadding(tokens[tokenCount - 1])) {
+            tokenCount--;
+        }
+        return new VersionKey(version, Arrays.copyOf(tokens, tokenCount), 
+                Arrays.copyOf(otherQualifiers, tokenCount));
+    }
+    
+    private static boolean isSeparator(char c) {
+        return (c == '.') || (c == '-') || (c == '_') || (c == '+');
+    }
+    
+    private static long parseNumber(String token) {
+        // ignore absurdly long numbers rather than fail
+        return ((token.length() <= 18) ? Long.parseLong(token) : Long.MAX_VALUE);
+    }
+    
+    private static boolean isPadding(long token) {
+        return (token == 0) || (token == RELEASE);
+    }
+    
+    @Override
+    public int compareTo(VersionKey other) {
+        int commonLength = Math.min(tokens.length, other.tokens.length);
+        for (int i = 0; i < commonLength; i++) {
+            int comparison = compareTokens(tokens[i], otherQualifiers[i], 
+                    other.tokens[i], other.otherQualifiers[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        // compare the remaining tokens to missing ones
+        for (int i = commonLength; i < tokens.length; i++) {
+            int comparison = comparePadding(tokens[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        for (int i = commonLength; i < other.tokens.length; i++) {
+            int comparison = comparePadding(other.tokens[i]);
+            if (comparison != 0) {
+                return -comparison;
+            }
+        }
+        return 0;
+    }
+    
+    private static int compareTokens(long token, String otherQualifier, long otherToken, 
+            String otherOtherQualifier) {
+        if ((token == OTHER) && (otherToken == OTHER)) {
+            return otherQualifier.compareTo(otherOtherQualifier);
+        }
+        return ((token < otherToken) ? -1 : ((token == otherToken) ? 0 : 1));
+    }
+    
+    // compares a token to a missing one
+    private static int comparePadding(long token) {
+        if (token >= 0) {
+            return ((token == 0) ? 0 : 1);
+        }
+        return ((token < RELEASE) ? -1 : ((token == RELEASE) ? 0 : 1));
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof VersionKey)) {
+            return false;
+        }
+        VersionKey other = (VersionKey) obj;
+        return Arrays.equals(tokens, other.tokens) 
+               && Arrays.equals(otherQualifiers, other.otherQualifiers);
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(tokens) + Arrays.hashCode(otherQualifiers);
+    }
+    
+    /**
+     * @return the version this key was computed from
+     */
+    @Override
+    public String toString() {
+        return version;
+    }
+}
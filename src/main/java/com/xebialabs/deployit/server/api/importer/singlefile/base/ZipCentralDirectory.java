@@ -0,0 +1,464 @@
+/*
+ * @(#)ZipCentralDirectory.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static java.lang.String.format;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reads the central directory of a ZIP archive (including ZIP64 archives) using
+ * positional reads, so individual entries can be located and read without
+ * streaming through the archive. Entry names are decoded as UTF-8 if their
+ * language encoding flag is set, and as CP437 otherwise. Neither spanned nor
+ * encrypted archives are supported.
+ */
+public class ZipCentralDirectory {
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final int ZIP64_EOCD_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EOCD_LOCATOR_LENGTH = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_EOCD_LENGTH = 56;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_HEADER_LENGTH = 46;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xffffffffL;
+    private static final int ZIP64_MAGIC_COUNT = 0xffff;
+    // general purpose flag: the name is encoded in UTF-8 rather than CP437
+    private static final int UTF8_FLAG = 0x800;
+    private static final Charset CP437 = (Charset.isSupported("IBM437")
+            ? Charset.forName("IBM437")
+            : Charsets.ISO_8859_1);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final int STORED = 0;
+    public static final int DEFLATED = 8;
+
+    private final FileChannel channel;
+    private final long offset;
+    private final long size;
+    private final long entryCount;
+
+    private ZipCentralDirectory(FileChannel channel, long offset, long size, long entryCount) {
+        this.channel = channel;
+        this.offset = offset;
+        this.size = size;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Locates the central directory through the end of central directory record.
+     * The channel must remain open while the central directory is used.
+     *
+     * @throws ZipException if the file is not a ZIP archive
+     */
+    public static @Nonnull ZipCentralDirectory locate(@Nonnull FileChannel channel)
+            throws IOException {
+        long fileSize = channel.size();
+        int tailLength = (int) Math.min(fileSize, EOCD_LENGTH + MAX_COMMENT_LENGTH);
+        if (tailLength < EOCD_LENGTH) {
+            throw new ZipException("Not a ZIP archive: too short");
+        }
+        ByteBuffer tail = read(channel, fileSize - tailLength, tailLength);
+
+        // the record ends with a variable-length comment, so search backwards
+        int eocd = -1;
+        for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+            if ((tail.getInt(i) == EOCD_SIGNATURE)
+                    && (i + EOCD_LENGTH + unsignedShort(tail, i + 20) <= tailLength)) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd == -1) {
+            throw new ZipException("Not a ZIP archive: no end of central directory record");
+        }
+        long eocdPosition = fileSize - tailLength + eocd;
+
+        long entryCount = unsignedShort(tail, eocd + 10);
+        long size = unsignedInt(tail, eocd + 12);
+        long offset = unsignedInt(tail, eocd + 16);
+        if (eocdPosition >= ZIP64_EOCD_LOCATOR_LENGTH) {
+            ByteBuffer locator = read(channel, eocdPosition - ZIP64_EOCD_LOCATOR_LENGTH,
+                    ZIP64_EOCD_LOCATOR_LENGTH);
+            if (locator.getInt(0) == ZIP64_EOCD_LOCATOR_SIGNATURE) {
+                // the record precedes the locator
+                long zip64EocdPosition = locator.getLong(8);
+                if ((zip64EocdPosition < 0) || (zip64EocdPosition > eocdPosition
+                        - ZIP64_EOCD_LOCATOR_LENGTH - ZIP64_EOCD_LENGTH)) {
+                    throw new ZipException(format(
+                            "Invalid ZIP64 end of central directory record offset %d",
+                            zip64EocdPosition));
+                }
+                ByteBuffer zip64Eocd = read(channel, zip64EocdPosition, ZIP64_EOCD_LENGTH);
+                if (zip64Eocd.getInt(0) != ZIP64_EOCD_SIGNATURE) {
+                    throw new ZipException("Invalid ZIP64 end of central directory record");
+                }
+                entryCount = zip64Eocd.getLong(32);
+                size = zip64Eocd.getLong(40);
+                offset = zip64Eocd.getLong(48);
+            }
+        } else if ((entryCount == ZIP64_MAGIC_COUNT) || (size == ZIP64_MAGIC)
+                || (offset == ZIP64_MAGIC)) {
+            throw new ZipException("Missing ZIP64 end of central directory locator");
+        }
+
+        if ((offset < 0) || (size < 0) || (offset + size > eocdPosition)) {
+            throw new ZipException(format("Invalid central directory at %d of size %d",
+                    offset, size));
+        }
+        return new ZipCentralDirectory(channel, offset, size, entryCount);
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the entry with the given name, compared ignoring ASCII case, or
+     *         {@code null} if there is none
+     */
+    public @CheckForNull Entry find(@Nonnull String name) throws IOException {
+        List<Entry> entries = scan(name);
+        return (entries.isEmpty() ? null : entries.get(0));
+    }
+
+    public @Nonnull List<Entry> getEntries() throws IOException {
+        return scan(null);
+    }
+
+    // returns the first entry matching the name, or all entries if the name is null
+    private List<Entry> scan(String name) throws IOException {
+        // entries' names are compared in their own encoding
+        byte[] utf8Name = ((name != null) ? name.getBytes(Charsets.UTF_8) : null);
+        byte[] cp437Name = (((name != null) && CP437.newEncoder().canEncode(name))
+                ? name.getBytes(CP437)
+                : null);
+        ImmutableList.Builder<Entry> entries = ImmutableList.builder();
+        CentralDirectoryReader reader = new CentralDirectoryReader();
+        for (long i = 0; i < entryCount; i++) {
+            ByteBuffer header = reader.next(CENTRAL_HEADER_LENGTH);
+            int start = header.position();
+            if (header.getInt(start) != CENTRAL_HEADER_SIGNATURE) {
+                throw new ZipException(format("Invalid central directory header for entry %d",
+                        i));
+            }
+            int nameLength = unsignedShort(header, start + 28);
+            int extraLength = unsignedShort(header, start + 30);
+            int commentLength = unsignedShort(header, start + 32);
+            header = reader.next(CENTRAL_HEADER_LENGTH + nameLength + extraLength
+                    + commentLength);
+            start = header.position();
+            byte[] encodedName = (((unsignedShort(header, start + 8) & UTF8_FLAG) != 0)
+                    ? utf8Name
+                    : cp437Name);
+            if ((name == null) || ((encodedName != null) && equalsIgnoreAsciiCase(header,
+                    start + CENTRAL_HEADER_LENGTH, nameLength, encodedName))) {
+                entries.add(parseEntry(header, start, nameLength, extraLength));
+                if (name != null) {
+                    break;
+                }
+            }
+            header.position(start + CENTRAL_HEADER_LENGTH + nameLength + extraLength
+                    + commentLength);
+        }
+        return entries.build();
+    }
+
+    private static Entry parseEntry(ByteBuffer header, int start, int nameLength,
+            int extraLength) throws ZipException {
+        byte[] name = new byte[nameLength];
+        for (int i = 0; i < nameLength; i++) {
+            name[i] = header.get(start + CENTRAL_HEADER_LENGTH + i);
+        }
+        int flags = unsignedShort(header, start + 8);
+        int method = unsignedShort(header, start + 10);
+        long crc = unsignedInt(header, start + 16);
+        long compressedSize = unsignedInt(header, start + 20);
+        long uncompressedSize = unsignedInt(header, start + 24);
+        long localHeaderOffset = unsignedInt(header, start + 42);
+
+        String entryName = new String(name,
+                (((flags & UTF8_FLAG) != 0) ? Charsets.UTF_8 : CP437));
+
+        // ZIP64 values are only present for the fields set to the magic value
+        int extraStart = start + CENTRAL_HEADER_LENGTH + nameLength;
+        int extraEnd = extraStart + extraLength;
+        for (int i = extraStart; i + 4 <= extraEnd; ) {
+            int id = unsignedShort(header, i);
+            int length = unsignedShort(header, i + 2);
+            int fieldEnd = i + 4 + length;
+            if (fieldEnd > extraEnd) {
+                throw new ZipException(format(
+                        "Extra field of entry '%s' extends beyond its extra data", entryName));
+            }
+            if (id == ZIP64_EXTRA_FIELD_ID) {
+                int field = i + 4;
+                if (uncompressedSize == ZIP64_MAGIC) {
+                    uncompressedSize = zip64Value(header, field, fieldEnd, entryName);
+                    field += 8;
+                }
+                if (compressedSize == ZIP64_MAGIC) {
+                    compressedSize = zip64Value(header, field, fieldEnd, entryName);
+                    field += 8;
+                }
+                if (localHeaderOffset == ZIP64_MAGIC) {
+                    localHeaderOffset = zip64Value(header, field, fieldEnd, entryName);
+                }
+                break;
+            }
+            i = fieldEnd;
+        }
+        return new Entry(entryName, flags, method, crc, compressedSize, uncompressedSize,
+                localHeaderOffset);
+    }
+
+    private static long zip64Value(ByteBuffer header, int field, int fieldEnd,
+            String entryName) throws ZipException {
+        if (field + 8 > fieldEnd) {
+            throw new ZipException(format("Truncated ZIP64 extra field of entry '%s'",
+                    entryName));
+        }
+        long value = header.getLong(field);
+        if (value < 0) {
+            throw new ZipException(format("Invalid ZIP64 value %d for entry '%s'", value,
+                    entryName));
+        }
+        return value;
+    }
+
+    /**
+     * Reads and, if necessary, inflates the entry's data, verifying its CRC.
+     *
+     * @throws ZipException if the entry is larger than {@code maxSize}, encrypted,
+     *         uses an unsupported compression method or is corrupt
+     */
+    public @Nonnull byte[] read(@Nonnull Entry entry, int maxSize) throws IOException {
+        if ((entry.size > maxSize) || (entry.compressedSize > maxSize)) {
+            throw new ZipException(format("Entry '%s' of size %d exceeds maximum size %d",
+                    entry.name, entry.size, maxSize));
+        }
+        if (entry.isEncrypted()) {
+            throw new ZipException(format("Entry '%s' is encrypted", entry.name));
+        }
+
+        byte[] compressed = new byte[(int) entry.compressedSize];
+        readFully(channel, ByteBuffer.wrap(compressed), getDataOffset(entry));
+
+        byte[] data;
+        switch (entry.method) {
+        case STORED:
+            data = compressed;
+            break;
+        case DEFLATED:
+            data = inflate(entry, compressed);
+            break;
+        default:
+            throw new ZipException(format("Entry '%s' uses unsupported compression method %d",
+                    entry.name, entry.method));
+        }
+        if ((data.length != entry.size) || (crc32(data) != entry.crc)) {
+            throw new ZipException(format("Entry '%s' is corrupt", entry.name));
+        }
+        return data;
+    }
+
+    /**
+     * @return the offset in the archive of the entry's (possibly compressed) data,
+     *         which follows the entry's local header
+     */
+    public long getDataOffset(@Nonnull Entry entry) throws IOException {
+        ByteBuffer localHeader = read(channel, entry.localHeaderOffset, LOCAL_HEADER_LENGTH);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException(format("Invalid local header for entry '%s'", entry.name));
+        }
+        return entry.localHeaderOffset + LOCAL_HEADER_LENGTH
+                + unsignedShort(localHeader, 26) + unsignedShort(localHeader, 28);
+    }
+
+    private static byte[] inflate(Entry entry, byte[] compressed) throws ZipException {
+        byte[] data = new byte[(int) entry.size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (!inflater.finished() && (inflated < data.length)) {
+                int count = inflater.inflate(data, inflated, data.length - inflated);
+                if ((count == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != data.length) {
+                throw new ZipException(format("Entry '%s' is truncated", entry.name));
+            }
+            return data;
+        } catch (DataFormatException exception) {
+            ZipException zipException = new ZipException(format("Entry '%s' is corrupt",
+                    entry.name));
+            zipException.initCause(exception);
+            throw zipException;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long crc32(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    private static boolean equalsIgnoreAsciiCase(ByteBuffer buffer, int start, int length,
+            byte[] name) {
+        if (length != name.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (toAsciiUpperCase(buffer.get(start + i)) != toAsciiUpperCase(name[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toAsciiUpperCase(byte b) {
+        return (((b >= 'a') && (b <= 'z')) ? (byte) (b - ('a' - 'A')) : b);
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int index) {
+        return buffer.getShort(index) & 0xffff;
+    }
+
+    private static long unsignedInt(ByteBuffer buffer, int index) {
+        return buffer.getInt(index) & 0xffffffffL;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, buffer, position);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read == -1) {
+                throw new EOFException(format("Unexpected end of archive at %d", position));
+            }
+            position += read;
+        }
+    }
+
+    // buffers the central directory, which may be too large to read in one go
+    private class CentralDirectoryReader {
+        private ByteBuffer buffer = (ByteBuffer) ByteBuffer.allocate(BUFFER_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN).limit(0);
+        private long position = offset;
+
+        // returns the buffer positioned at the next record, with at least length bytes
+        private ByteBuffer next(int length) throws IOException {
+            if (buffer.remaining() >= length) {
+                return buffer;
+            }
+            if (length > buffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+            long end = offset + size;
+            while (buffer.position() < length) {
+                int toRead = (int) Math.min(buffer.remaining(), end - position);
+                if (toRead == 0) {
+                    throw new ZipException("Truncated central directory");
+                }
+                buffer.limit(buffer.position() + toRead);
+                int read = channel.read(buffer, position);
+                if (read == -1) {
+                    throw new EOFException("Unexpected end of central directory");
+                }
+                position += read;
+                buffer.limit(buffer.capacity());
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+    public static class Entry {
+        public final String name;
+        public final int flags;
+        public final int method;
+        public final long crc;
+        public final long compressedSize;
+        public final long size;
+        public final long localHeaderOffset;
+
+        Entry(String name, int flags, int method, long crc, long compressedSize, long size,
+                long localHeaderOffset) {
+            this.name = name;
+            this.flags = flags;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public boolean isEncrypted() {
+            return ((flags & 1) != 0);
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * @(#)ZipIntegrityVerifier.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+
+/**
+ * Verifies the integrity of a ZIP archive by decompressing every entry listed in
+ * its {@link ZipCentralDirectory central directory} and checking the entry's size
+ * and CRC. Entries are verified in parallel, largest first, by as many workers as
+ * the pool's parallelism, each streaming through its entries with fixed-size
+ * buffers. Verification stops at the first corrupt entry.
+ * <p>
+ * Encrypted entries and entries using compression methods other than stored and
+ * deflated are skipped.
+ */
+public class ZipIntegrityVerifier {
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+
+    public ZipIntegrityVerifier(@Nonnull ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @throws CorruptArchiveException naming the first corrupt entry found
+     * @throws java.util.zip.ZipException if the file is not a valid ZIP archive
+     */
+    public void verify(@Nonnull File archive) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive.toPath(), READ)) {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            List<ZipCentralDirectory.Entry> entries = 
+                Lists.newArrayList(centralDirectory.getEntries());
+            Collections.sort(entries, new Comparator<ZipCentralDirectory.Entry>() {
+                    @Override
+                    public int compare(ZipCentralDirectory.Entry entry1, 
+                            ZipCentralDirectory.Entry entry2) {
+                        return Long.valueOf(entry2.compressedSize).compareTo(
+                                entry1.compressedSize);
+                    }
+                });
+            verify(channel, centralDirectory, entries);
+        }
+    }
+
+    private void verify(FileChannel channel, ZipCentralDirectory centralDirectory,
+            List<ZipCentralDirectory.Entry> entries) throws IOException {
+        VerificationState state = new VerificationState(channel, centralDirectory, entries);
+        int workerCount = Math.max(Math.min(pool.getParallelism(), entries.size()), 1);
+        List<Future<Void>> workers = Lists.newArrayListWithCapacity(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(pool.submit(new Worker(state)));
+        }
+        // wait for all workers, which stop soon after a failure, before closing the file
+        for (Future<Void> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException exception) {
+                state.failure.compareAndSet(null, exception);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while verifying archive");
+            } catch (ExecutionException exception) {
+                // the failure is recorded by the worker
+            }
+        }
+
+        Throwable failure = state.failure.get();
+        if (failure != null) {
+            Throwables.propagateIfPossible(failure, IOException.class);
+            throw new IOException(failure);
+        }
+    }
+
+    private static class VerificationState {
+        private final FileChannel channel;
+        private final ZipCentralDirectory centralDirectory;
+        private final List<ZipCentralDirectory.Entry> entries;
+        private final AtomicInteger nextEntry = new AtomicInteger();
+        // the first failure, which stops all workers
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        private VerificationState(FileChannel channel, ZipCentralDirectory centralDirectory,
+                List<ZipCentralDirectory.Entry> entries) {
+            this.channel = channel;
+            this.centralDirectory = centralDirectory;
+            this.entries = entries;
+        }
+    }
+
+    private static class Worker implements Callable<Void> {
+        private final VerificationState state;
+        private final byte[] input = new byte[BUFFER_SIZE];
+        private final byte[] output = new byte[BUFFER_SIZE];
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+
+        private Worker(VerificationState state) {
+            this.state = state;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            try {
+                int index;
+                while ((state.failure.get() == null)
+                        && ((index = state.nextEntry.getAndIncrement()) < state.entries.size())) {
+                    verify(state.entries.get(index));
+                }
+            } catch (Throwable exception) {
+                state.failure.compareAndSet(null, exception);
+                throw exception;
+            } finally {
+                inflater.end();
+            }
+            return null;
+        }
+
+        private void verify(ZipCentralDirectory.Entry entry) throws IOException {
+            if (entry.isEncrypted() || ((entry.method != ZipCentralDirectory.STORED) 
+                    && (entry.method != ZipCentralDirectory.DEFLATED))) {
+                return;
+            }
+
+            long dataOffset = state.centralDirectory.getDataOffset(entry);
+            if (dataOffset + entry.compressedSize > state.channel.size()) {
+                throw new CorruptArchiveException(entry.name, "truncated");
+            }
+            crc.reset();
+            inflater.reset();
+            long uncompressedSize;
+            try {
+                uncompressedSize = (entry.method == ZipCentralDirectory.STORED)
+                        ? readStored(entry, dataOffset)
+                        : inflate(entry, dataOffset);
+            } catch (EOFException exception) {
+                throw new CorruptArchiveException(entry.name, "truncated", exception);
+            } catch (DataFormatException exception) {
+                throw new CorruptArchiveException(entry.name, "invalid deflate data", 
+                        exception);
+            }
+            if (uncompressedSize != entry.size) {
+                throw new CorruptArchiveException(entry.name, format(
+                        "expected %d bytes but found %d", entry.size, uncompressedSize));
+            }
+            if (crc.getValue() != entry.crc) {
+                throw new CorruptArchiveException(entry.name, "CRC mismatch");
+            }
+        }
+
+        private long readStored(ZipCentralDirectory.Entry entry, long dataOffset) 
+                throws IOException {
+            long position = dataOffset;
+            long end = dataOffset + entry.compressedSize;
+            while ((position < end) && (state.failure.get() == null)) {
+                int read = read(position, (int) Math.min(input.length, end - position));
+                crc.update(input, 0, read);
+                position += read;
+            }
+            return position - dataOffset;
+        }
+
+        private long inflate(ZipCentralDirectory.Entry entry, long dataOffset) 
+                throws IOException, DataFormatException {
+            long position = dataOffset;
+            long end = dataOffset + entry.compressedSize;
+            long uncompressedSize = 0;
+            while (!inflater.finished() && (state.failure.get() == null)) {
+                if (inflater.needsInput()) {
+                    if (position == end) {
+                        throw new EOFException("Unexpected end of deflate data");
+                    }
+                    int read = read(position, (int) Math.min(input.length, end - position));
+                    inflater.setInput(input, 0, read);
+                    position += read;
+                } else if (inflater.needsDictionary()) {
+                    throw new DataFormatException("Preset dictionaries are not supported");
+                }
+                int inflated = inflater.inflate(output);
+                crc.update(output, 0, inflated);
+                uncompressedSize += inflated;
+            }
+            return uncompressedSize;
+        }
+
+        private int read(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(input, 0, length);
+            while (buffer.hasRemaining()) {
+                if (state.channel.read(buffer, position + buffer.position()) == -1) {
+                    throw new EOFException(format("Unexpected end of archive at %d", 
+                            position + buffer.position()));
+                }
+            }
+            return length;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * @(#)ZipStreamVerifier.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Verifies a ZIP archive as it is streamed, inflating every entry and checking its
+ * CRC and sizes against its local header or data descriptor. Unlike the {@link 
+ * ZipIntegrityVerifier}, the central directory is not checked. The result is the 
+ * number of entries.
+ */
+public class ZipStreamVerifier implements StreamConsumer<Integer> {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    @Override
+    public Integer consume(InputStream in) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int entryCount = 0;
+        for (ZipEntry entry = nextEntry(zip, null); entry != null; 
+                entry = nextEntry(zip, entry)) {
+            try {
+                while (zip.read(buffer) != -1) {
+                    // only the checks done while reading matter
+                }
+            } catch (ZipException exception) {
+                throw new CorruptArchiveException(entry.getName(), exception.getMessage(), 
+                        exception);
+            }
+            entryCount++;
+        }
+        if (entryCount == 0) {
+            throw new ZipException("Not a ZIP archive, or an empty one");
+        }
+        return entryCount;
+    }
+    
+    private static ZipEntry nextEntry(ZipInputStream zip, ZipEntry previous) 
+            throws IOException {
+        try {
+            return zip.getNextEntry();
+        } catch (ZipException exception) {
+            // reading the data descriptor of the previous entry also checks it
+            if (previous != null) {
+                throw new CorruptArchiveException(previous.getName(), 
+                        exception.getMessage(), exception);
+            }
+            throw exception;
+        }
+    }
+}
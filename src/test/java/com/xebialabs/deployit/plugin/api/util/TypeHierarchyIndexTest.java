@@ -0,0 +1,106 @@
+/*
+ * @(#)TypeHierarchyIndexTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.plugin.api.util;
+
+import static com.xebialabs.deployit.plugin.api.util.Predicates.subtypeOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.udm.base.BaseDeployableFileArtifact;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+import com.xebialabs.deployit.plugin.jee.artifact.War;
+
+/**
+ * Unit tests for the {@link TypeHierarchyIndex}
+ */
+public class TypeHierarchyIndexTest {
+    private static final Type FILE_ARTIFACT = Type.valueOf(BaseDeployableFileArtifact.class);
+    private static final Type EAR = Type.valueOf(Ear.class);
+    private static final Type WAR = Type.valueOf(War.class);
+    private static final Type UNREGISTERED = Type.valueOf("test.Unregistered");
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @Test
+    public void matchesTypeAndSubtypes() {
+        TypeHierarchyIndex index = TypeHierarchyIndex.get();
+        assertTrue(index.isSubtype(FILE_ARTIFACT, FILE_ARTIFACT));
+        assertTrue(index.isSubtype(EAR, FILE_ARTIFACT));
+        assertTrue(index.isSubtype(WAR, FILE_ARTIFACT));
+        assertFalse(index.isSubtype(FILE_ARTIFACT, EAR));
+        assertFalse(index.isSubtype(WAR, EAR));
+        assertFalse(index.isSubtype(UNREGISTERED, FILE_ARTIFACT));
+    }
+
+    @Test
+    public void matchesUnregisteredTypesByEquality() {
+        assertEquals(-1, TypeHierarchyIndex.get().ordinalOf(UNREGISTERED));
+        assertTrue(subtypeOf(UNREGISTERED).apply(UNREGISTERED));
+        assertFalse(subtypeOf(UNREGISTERED).apply(EAR));
+    }
+
+    @Test
+    public void agreesWithRegistry() {
+        for (Type type : ImmutableSet.of(FILE_ARTIFACT, EAR, WAR)) {
+            Collection<Type> subtypes = DescriptorRegistry.getSubtypes(type);
+            for (Type candidate : ImmutableSet.of(FILE_ARTIFACT, EAR, WAR, UNREGISTERED)) {
+                assertEquals(type + " > " + candidate,
+                        candidate.equals(type) || subtypes.contains(candidate),
+                        subtypeOf(type).apply(candidate));
+            }
+        }
+    }
+
+    @Test
+    public void doesNotModifyRegistry() {
+        int subtypeCount = DescriptorRegistry.getSubtypes(EAR).size();
+        subtypeOf(EAR);
+        assertEquals(subtypeCount, DescriptorRegistry.getSubtypes(EAR).size());
+    }
+
+    @Test
+    public void isSharedUntilInvalidated() {
+        TypeHierarchyIndex index = TypeHierarchyIndex.get();
+        assertSame(index, TypeHierarchyIndex.get());
+        TypeHierarchyIndex.invalidate();
+        TypeHierarchyIndex rebuilt = TypeHierarchyIndex.get();
+        assertNotSame(index, rebuilt);
+        assertEquals(index.size(), rebuilt.size());
+        assertTrue(rebuilt.getGeneration() > index.getGeneration());
+        assertSame(rebuilt, TypeHierarchyIndex.get(EAR));
+        assertSame(rebuilt, TypeHierarchyIndex.get(UNREGISTERED));
+    }
+}
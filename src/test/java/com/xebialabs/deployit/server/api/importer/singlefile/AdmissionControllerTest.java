@@ -0,0 +1,129 @@
+/*
+ * @(#)AdmissionControllerTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for the {@link AdmissionController}
+ */
+public class AdmissionControllerTest {
+
+    @Test
+    public void admitsImportsWithinBudget() {
+        AdmissionController controller = new AdmissionController(100, 0, 0, TimeUnit.SECONDS);
+        AdmissionController.Permit permit1 = controller.acquire(60, "1");
+        AdmissionController.Permit permit2 = controller.acquire(40, "2");
+        assertEquals(0, controller.getAvailableBytes());
+        permit1.release();
+        permit1.release();
+        assertEquals(60, controller.getAvailableBytes());
+        permit2.close();
+        assertEquals(100, controller.getAvailableBytes());
+        assertEquals(2, controller.getAdmittedCount());
+    }
+
+    @Test
+    public void capsWeightAtBudget() {
+        AdmissionController controller = new AdmissionController(100, 0, 0, TimeUnit.SECONDS);
+        assertEquals(100, controller.acquire(1000, "large").getWeight());
+        assertEquals(1, new AdmissionController(100, 0, 0, TimeUnit.SECONDS)
+                .acquire(0, "empty").getWeight());
+    }
+
+    @Test
+    public void rejectsImportsIfQueueIsFull() {
+        AdmissionController controller = new AdmissionController(100, 0, 1, TimeUnit.SECONDS);
+        controller.acquire(100, "1");
+        try {
+            controller.acquire(1, "2");
+            fail("Expected rejection");
+        } catch (ImportRejectedException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().contains("'2'"));
+        }
+        assertEquals(1, controller.getRejectedCount());
+    }
+
+    @Test
+    public void rejectsImportsAfterMaximumWait() {
+        AdmissionController controller = 
+            new AdmissionController(100, 10, 50, TimeUnit.MILLISECONDS);
+        controller.acquire(100, "1");
+        long start = System.nanoTime();
+        try {
+            controller.acquire(1, "2");
+            fail("Expected rejection");
+        } catch (ImportRejectedException exception) {
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertEquals(0, controller.getQueueLength());
+        assertEquals(1, controller.getRejectedCount());
+    }
+
+    @Test
+    public void admitsSmallFilesFirst() throws InterruptedException {
+        final AdmissionController controller = 
+            new AdmissionController(100, 10, 10, TimeUnit.SECONDS);
+        AdmissionController.Permit blocker = controller.acquire(100, "blocker");
+        final List<String> admitted = new CopyOnWriteArrayList<String>();
+        Thread large = importer(controller, 100, "large", admitted);
+        awaitQueueLength(controller, 1);
+        Thread small = importer(controller, 10, "small", admitted);
+        awaitQueueLength(controller, 2);
+
+        blocker.release();
+        large.join();
+        small.join();
+        assertEquals(ImmutableList.of("small", "large"), admitted);
+        assertTrue(controller.getMaxWaitMillis() > 0);
+    }
+
+    private static Thread importer(final AdmissionController controller, final long size,
+            final String name, final List<String> admitted) {
+        Thread importer = new Thread() {
+            @Override
+            public void run() {
+                AdmissionController.Permit permit = controller.acquire(size, name);
+                admitted.add(name);
+                permit.release();
+            }
+        };
+        importer.start();
+        return importer;
+    }
+
+    private static void awaitQueueLength(AdmissionController controller, int length) 
+            throws InterruptedException {
+        while (controller.getQueueLength() < length) {
+            Thread.sleep(5);
+        }
+    }
+}
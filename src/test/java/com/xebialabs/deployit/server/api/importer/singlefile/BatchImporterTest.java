@@ -0,0 +1,293 @@
+/*
+ * @(#)BatchImporterTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.server.api.importer.ImportSource;
+import com.xebialabs.deployit.server.api.importer.ImportedPackage;
+import com.xebialabs.deployit.server.api.importer.Importer;
+import com.xebialabs.deployit.server.api.importer.ImportingContext;
+import com.xebialabs.deployit.server.api.importer.PackageInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.BatchImporter.BatchImportResult;
+
+/**
+ * Unit tests for the {@link BatchImporter}
+ */
+public class BatchImporterTest {
+    private static final Function<ImportSource, ImportingContext> NO_CONTEXT =
+        new Function<ImportSource, ImportingContext>() {
+            @Override
+            public ImportingContext apply(ImportSource input) {
+                return null;
+            }
+        };
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final RecordingImporter importer = new RecordingImporter();
+    private BatchImporter batchImporter;
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @After
+    public void shutdown() {
+        batchImporter.close();
+    }
+
+    @Test
+    public void importsAllSources() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 4, Long.MAX_VALUE);
+        Set<String> imported = Sets.newHashSet();
+        for (BatchImportResult result : toList(batchImporter.importAll(
+                sources("a-1.ear", "b-1.ear", "c-1.ear")))) {
+            assertTrue(result.isSuccessful());
+            imported.add(result.importedPackage.getPackageInfo().getApplicationName());
+        }
+        assertEquals(ImmutableSet.of("a", "b", "c"), imported);
+        assertEquals(3, importer.cleanedUp.get());
+    }
+
+    @Test
+    public void isolatesFailures() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 2, Long.MAX_VALUE);
+        int failures = 0;
+        for (BatchImportResult result : toList(batchImporter.importAll(
+                sources("a-1.ear", "fail-1.ear", "c-1.ear")))) {
+            if (!result.isSuccessful()) {
+                failures++;
+                assertEquals("fail-1.ear", result.source.getFile().getName());
+            }
+        }
+        assertEquals(1, failures);
+        // cleanUp is also called for the failed import
+        assertEquals(3, importer.cleanedUp.get());
+    }
+
+    @Test
+    public void reportsFailingContextsAsFailures() throws IOException {
+        batchImporter = new BatchImporter(importer,
+                new Function<ImportSource, ImportingContext>() {
+                    @Override
+                    public ImportingContext apply(ImportSource input) {
+                        throw new IllegalStateException("no context");
+                    }
+                }, 2, Long.MAX_VALUE);
+        List<BatchImportResult> results = toList(batchImporter.importAll(
+                sources("a-1.ear", "b-1.ear")));
+        assertEquals(2, results.size());
+        for (BatchImportResult result : results) {
+            assertFalse(result.isSuccessful());
+            assertTrue(result.failure instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void reportsSourcesAsFailedOnceClosed() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 2, Long.MAX_VALUE);
+        batchImporter.close();
+        List<BatchImportResult> results = toList(batchImporter.importAll(
+                sources("a-1.ear", "b-1.ear", "c-1.ear")));
+        assertEquals(3, results.size());
+        for (BatchImportResult result : results) {
+            assertFalse(result.isSuccessful());
+        }
+    }
+
+    @Test
+    public void returnsResultsInOrderOfCompletion() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 2, Long.MAX_VALUE);
+        importer.slowFile = "slow-1.ear";
+        Iterator<BatchImportResult> results = batchImporter.importAll(
+                sources("slow-1.ear", "a-1.ear", "b-1.ear", "c-1.ear"));
+        for (int i = 0; i < 3; i++) {
+            assertFalse("slow-1.ear".equals(results.next().source.getFile().getName()));
+        }
+        importer.releaseSlowFile.countDown();
+        assertEquals("slow-1.ear", results.next().source.getFile().getName());
+        assertFalse(results.hasNext());
+    }
+
+    @Test
+    public void limitsConcurrency() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 2, Long.MAX_VALUE);
+        toList(batchImporter.importAll(sources("a-1.ear", "b-1.ear", "c-1.ear", "d-1.ear",
+                "e-1.ear", "f-1.ear")));
+        assertTrue(importer.maxInFlight.get() <= 2);
+    }
+
+    @Test
+    public void limitsBytesInFlight() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 4, 25);
+        List<ImportSource> sources = sources("a-1.ear", "b-1.ear", "c-1.ear", "d-1.ear");
+        for (ImportSource source : sources) {
+            Files.write(new byte[10], source.getFile());
+        }
+        assertEquals(4, toList(batchImporter.importAll(sources)).size());
+        assertTrue(importer.maxBytesInFlight.get() <= 25);
+    }
+
+    @Test
+    public void sharesLimitsBetweenOverlappingBatches() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 4, 15);
+        importer.slowFile = "slow-1.ear";
+        List<ImportSource> slowSources = sources("slow-1.ear");
+        List<ImportSource> otherSources = sources("a-1.ear", "b-1.ear");
+        for (ImportSource source : Iterables.concat(slowSources, otherSources)) {
+            Files.write(new byte[10], source.getFile());
+        }
+        Iterator<BatchImportResult> slowResults = batchImporter.importAll(slowSources);
+        Iterator<BatchImportResult> otherResults = batchImporter.importAll(otherSources);
+        importer.releaseSlowFile.countDown();
+        assertEquals(1, toList(slowResults).size());
+        assertEquals(2, toList(otherResults).size());
+        assertEquals(1, importer.maxInFlight.get());
+        assertTrue(importer.maxBytesInFlight.get() <= 15);
+    }
+
+    @Test
+    public void startsFilesLargerThanBudgetOnTheirOwn() throws IOException {
+        batchImporter = new BatchImporter(importer, NO_CONTEXT, 4, 5);
+        List<ImportSource> sources = sources("a-1.ear", "b-1.ear");
+        for (ImportSource source : sources) {
+            Files.write(new byte[10], source.getFile());
+        }
+        assertEquals(2, toList(batchImporter.importAll(sources)).size());
+        assertEquals(1, importer.maxInFlight.get());
+    }
+
+    private List<ImportSource> sources(String... names) throws IOException {
+        List<ImportSource> sources = Lists.newArrayList();
+        for (String name : names) {
+            sources.add(new FileSource(tempFolder.newFile(name)));
+        }
+        return sources;
+    }
+
+    private static List<BatchImportResult> toList(Iterator<BatchImportResult> results) {
+        return ImmutableList.copyOf(results);
+    }
+
+    private static class RecordingImporter implements Importer {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicLong bytesInFlight = new AtomicLong();
+        private final AtomicLong maxBytesInFlight = new AtomicLong();
+        private final AtomicInteger cleanedUp = new AtomicInteger();
+        private final CountDownLatch releaseSlowFile = new CountDownLatch(1);
+        private volatile String slowFile;
+
+        @Override
+        public boolean canHandle(ImportSource source) {
+            return true;
+        }
+
+        @Override
+        public PackageInfo preparePackage(ImportSource source, ImportingContext context) {
+            File file = source.getFile();
+            updateMax(maxInFlight, inFlight.incrementAndGet());
+            updateMax(maxBytesInFlight, bytesInFlight.addAndGet(file.length()));
+            PackageInfo packageInfo = new PackageInfo(source);
+            packageInfo.setApplicationName(file.getName().split("-")[0]);
+            packageInfo.setApplicationVersion("1");
+            return packageInfo;
+        }
+
+        @Override
+        public ImportedPackage importEntities(PackageInfo packageInfo, ImportingContext context) {
+            String name = packageInfo.getSource().getFile().getName();
+            if (name.equals(slowFile)) {
+                try {
+                    releaseSlowFile.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (name.startsWith("fail")) {
+                throw new IllegalArgumentException(name);
+            }
+            return new ImportedPackage(packageInfo);
+        }
+
+        @Override
+        public void cleanUp(PackageInfo packageInfo, ImportingContext context) {
+            cleanedUp.incrementAndGet();
+            inFlight.decrementAndGet();
+            bytesInFlight.addAndGet(-packageInfo.getSource().getFile().length());
+        }
+
+        private static void updateMax(AtomicInteger max, int value) {
+            int current;
+            while ((current = max.get()) < value && !max.compareAndSet(current, value));
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current;
+            while ((current = max.get()) < value && !max.compareAndSet(current, value));
+        }
+    }
+
+    private static class FileSource implements ImportSource {
+        private final File file;
+
+        private FileSource(File file) {
+            this.file = file;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public void cleanUp() {}
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * @(#)ContentSniffingImporterTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.jee.artifact.War;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.FileFormat;
+
+/**
+ * Unit tests for the {@link ContentSniffingImporter}
+ */
+public class ContentSniffingImporterTest {
+    private static class WarImporter extends ContentSniffingImporter {
+
+        private WarImporter() {
+            super(Type.valueOf(War.class), FileFormat.WAR);
+        }
+    }
+
+    private static class ArchiveImporter extends ContentSniffingImporter {
+
+        private ArchiveImporter() {
+            super(Type.valueOf(War.class), FileFormat.ZIP, FileFormat.GZIP);
+        }
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @Test
+    public void supportsFilesByContent() throws IOException {
+        File war = war("app-1.0.zip");
+        File extensionless = war("app-1.1");
+        File text = tempFolder.newFile("app-1.2.war");
+        Files.write("not a war", text, Charsets.UTF_8);
+
+        WarImporter importer = new WarImporter();
+        assertTrue(importer.isSupportedFile(war));
+        assertTrue(importer.isSupportedFile(extensionless));
+        assertFalse(importer.isSupportedFile(text));
+        assertFalse(importer.isSupportedFile(new File(tempFolder.getRoot(), "missing.war")));
+    }
+
+    @Test
+    public void supportsSpecialisationsOfSupportedFormats() throws IOException {
+        assertTrue(new ArchiveImporter().isSupportedFile(war("app-1.0.war")));
+    }
+
+    private File war(String name) throws IOException {
+        File war = tempFolder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(war));
+        try {
+            out.putNextEntry(new ZipEntry("WEB-INF/"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        return war;
+    }
+}
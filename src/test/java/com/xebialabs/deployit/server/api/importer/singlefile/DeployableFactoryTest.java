@@ -0,0 +1,80 @@
+/*
+ * @(#)DeployableFactoryTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Descriptor;
+import com.xebialabs.deployit.plugin.api.reflect.DescriptorRegistry;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.api.util.TypeHierarchyIndex;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+
+/**
+ * Unit tests for the {@link DeployableFactory}
+ */
+public class DeployableFactoryTest {
+    private static final Type EAR = Type.valueOf(Ear.class);
+
+    private final DeployableFactory factory = new DeployableFactory();
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @Test
+    public void resolvesDescriptorsFromRegistry() {
+        assertSame(DescriptorRegistry.getDescriptor(EAR), factory.getDescriptor(EAR));
+        assertSame(factory.getDescriptor(EAR), factory.getDescriptor(EAR));
+    }
+
+    @Test
+    public void resolvesDescriptorsAgainOnceRegistryChanges() {
+        Descriptor descriptor = factory.getDescriptor(EAR);
+        TypeHierarchyIndex.invalidate();
+        assertSame(DescriptorRegistry.getDescriptor(EAR), factory.getDescriptor(EAR));
+        assertSame(descriptor, factory.getDescriptor(EAR));
+    }
+
+    @Test
+    public void createsInstancesWithId() {
+        Ear ear = factory.newInstance(EAR, "Applications/app/1.0/app");
+        assertEquals("Applications/app/1.0/app", ear.getId());
+        assertEquals(EAR, ear.getType());
+    }
+
+    @Test
+    public void buildsChildIds() {
+        assertEquals("Applications/app/1.0/app", 
+                DeployableFactory.childId("Applications/app/1.0", "app"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownTypes() {
+        factory.getDescriptor(Type.valueOf("unknown.Type"));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * @(#)DirectorySnapshotsTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link DirectorySnapshots}
+ */
+public class DirectorySnapshotsTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final DirectorySnapshots snapshots = new DirectorySnapshots();
+    private final List<String> checkedFiles = Lists.newArrayList();
+    private final Predicate<File> earFilter = new Predicate<File>() {
+            @Override
+            public boolean apply(File input) {
+                checkedFiles.add(input.getName());
+                return input.getName().endsWith(".ear");
+            }
+        };
+    private Path importDir;
+
+    @Before
+    public void populateImportDir() throws IOException {
+        tempFolder.newFile("name-version.ear");
+        tempFolder.newFile("name.war");
+        importDir = tempFolder.getRoot().toPath();
+    }
+
+    @Test
+    public void listsSupportedFiles() throws IOException {
+        assertEquals(ImmutableSet.of("name-version.ear"),
+                ImmutableSet.copyOf(snapshots.list(importDir, earFilter)));
+        assertEquals(ImmutableSet.of("name-version.ear", "name.war"),
+                ImmutableSet.copyOf(checkedFiles));
+    }
+
+    @Test
+    public void returnsCachedListIfNothingChanged() throws IOException {
+        List<String> supportedFiles = snapshots.list(importDir, earFilter);
+        checkedFiles.clear();
+        assertSame(supportedFiles, snapshots.list(importDir, earFilter));
+        assertEquals(0, checkedFiles.size());
+    }
+
+    @Test
+    public void onlyChecksAddedFiles() throws IOException {
+        snapshots.list(importDir, earFilter);
+        checkedFiles.clear();
+        tempFolder.newFile("other-1.0.ear");
+        assertEquals(ImmutableSet.of("name-version.ear", "other-1.0.ear"),
+                ImmutableSet.copyOf(snapshots.list(importDir, earFilter)));
+        assertEquals(ImmutableSet.of("other-1.0.ear"), ImmutableSet.copyOf(checkedFiles));
+    }
+
+    @Test
+    public void rechecksModifiedFiles() throws IOException {
+        snapshots.list(importDir, earFilter);
+        checkedFiles.clear();
+        Files.write(new byte[] { 1, 2, 3 }, new File(tempFolder.getRoot(), "name.war"));
+        snapshots.list(importDir, earFilter, true);
+        assertEquals(ImmutableSet.of("name.war"), ImmutableSet.copyOf(checkedFiles));
+    }
+
+    @Test
+    public void onlyChecksEntriesOfSettledDirectoriesIfRequested() throws IOException {
+        assertTrue(importDir.toFile().setLastModified(System.currentTimeMillis() - 60000));
+        List<String> supportedFiles = snapshots.list(importDir, earFilter);
+        checkedFiles.clear();
+        File war = new File(tempFolder.getRoot(), "name.war");
+        Files.write(new byte[] { 1, 2, 3 }, war);
+        assertSame(supportedFiles, snapshots.list(importDir, earFilter));
+        assertEquals(0, checkedFiles.size());
+
+        snapshots.list(importDir, earFilter, true);
+        assertEquals(ImmutableSet.of("name.war"), ImmutableSet.copyOf(checkedFiles));
+    }
+
+    @Test
+    public void noticesAddedFilesInSettledDirectories() throws IOException {
+        assertTrue(importDir.toFile().setLastModified(System.currentTimeMillis() - 60000));
+        snapshots.list(importDir, earFilter);
+        long lastModified = importDir.toFile().lastModified();
+        tempFolder.newFile("other-1.0.ear");
+        // as if the modification time were too coarse to change
+        assertTrue(importDir.toFile().setLastModified(lastModified));
+        assertEquals(ImmutableSet.of("name-version.ear", "other-1.0.ear"),
+                ImmutableSet.copyOf(snapshots.list(importDir, earFilter)));
+    }
+
+    @Test
+    public void dropsRemovedFiles() throws IOException {
+        snapshots.list(importDir, earFilter);
+        new File(tempFolder.getRoot(), "name-version.ear").delete();
+        assertEquals(0, snapshots.list(importDir, earFilter).size());
+    }
+}
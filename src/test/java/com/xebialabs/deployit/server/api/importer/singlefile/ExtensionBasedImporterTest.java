@@ -20,9 +20,41 @@
  */
 package com.xebialabs.deployit.server.api.importer.singlefile;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+
 /**
  * Unit tests for the {@link ExtensionBasedImporter}
  */
 public class ExtensionBasedImporterTest {
-
+    private static class EarImporter extends ExtensionBasedImporter {
+        
+        private EarImporter() {
+            super("EAR", Type.valueOf(Ear.class));
+        }
+    }
+    
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+    
+    @Test
+    public void matchesExtensionIgnoringCase() {
+        EarImporter importer = new EarImporter();
+        assertTrue(importer.isSupportedFile(new File("name-version.ear")));
+        assertTrue(importer.isSupportedFile(new File("dir.war/NAME.Ear")));
+        assertTrue(importer.isSupportedFile(new File(".ear")));
+        assertFalse(importer.isSupportedFile(new File("ear")));
+        assertFalse(importer.isSupportedFile(new File("name.ear.war")));
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * @(#)ExtensionDispatchingImporterTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableSet;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+import com.xebialabs.deployit.plugin.jee.artifact.War;
+
+/**
+ * Unit tests for the {@link ExtensionDispatchingImporter}
+ */
+public class ExtensionDispatchingImporterTest {
+    private static class TestImporter extends ExtensionBasedImporter {
+        
+        private TestImporter(String extension, Class<?> type) {
+            super(extension, Type.valueOf(type));
+        }
+    }
+    
+    private static TestImporter earImporter;
+    private static TestImporter warImporter;
+    private static TestImporter gzImporter;
+    private static TestImporter tarGzImporter;
+    private static ExtensionDispatchingImporter dispatcher;
+    
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+    
+    @BeforeClass
+    public static void createDispatcher() {
+        PluginBooter.bootWithoutGlobalContext();
+        earImporter = new TestImporter("ear", Ear.class);
+        warImporter = new TestImporter("WAR", War.class);
+        gzImporter = new TestImporter("gz", Ear.class);
+        tarGzImporter = new TestImporter("tar.gz", Ear.class);
+        dispatcher = new ExtensionDispatchingImporter(earImporter, warImporter, gzImporter,
+                tarGzImporter);
+    }
+    
+    @Test
+    public void resolvesImporterIgnoringCase() {
+        assertSame(earImporter, dispatcher.getImporter(new File("name-1.0.ear")));
+        assertSame(earImporter, dispatcher.getImporter(new File("NAME-1.0.EAR")));
+        assertSame(warImporter, dispatcher.getImporter(new File("name.war")));
+        assertSame(warImporter, dispatcher.getImporter(new File(".War")));
+    }
+    
+    @Test
+    public void longestSuffixWins() {
+        assertSame(tarGzImporter, dispatcher.getImporter(new File("name-1.0.tar.gz")));
+        assertSame(gzImporter, dispatcher.getImporter(new File("name-1.0.sql.gz")));
+        assertSame(gzImporter, dispatcher.getImporter(new File("tar.gz")));
+    }
+    
+    @Test
+    public void ignoresUnsupportedFiles() {
+        assertNull(dispatcher.getImporter(new File("name.jar")));
+        assertNull(dispatcher.getImporter(new File("ear")));
+        assertNull(dispatcher.getImporter(new File("name.ear.bak")));
+        assertNull(dispatcher.getImporter(new File(new File("dir.ear"), "name")));
+    }
+    
+    @Test
+    public void agreesWithImporters() {
+        for (String name : new String[] { "a.ear", "a.EaR", "a.war", "a.gz", "a.tar.gz", 
+                "a.tgz", "a.ear.gz", "a", "", ".ear", "a.Tar.Gz" }) {
+            File file = new File(name);
+            ExtensionBasedImporter longestMatch = null;
+            for (ExtensionBasedImporter importer : dispatcher.getImporters()) {
+                if (importer.isSupportedFile(file) && ((longestMatch == null) 
+                        || (importer.fileSuffix.length() > longestMatch.fileSuffix.length()))) {
+                    longestMatch = importer;
+                }
+            }
+            assertSame(name, longestMatch, dispatcher.getImporter(file));
+        }
+    }
+    
+    @Test
+    public void listsSupportedFiles() throws IOException {
+        tempFolder.newFile("name.ear");
+        tempFolder.newFile("name.tar.gz");
+        tempFolder.newFile("name.txt");
+        assertEquals(ImmutableSet.of("name.ear", "name.tar.gz"), 
+                ImmutableSet.copyOf(dispatcher.list(tempFolder.getRoot())));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDuplicateExtensions() {
+        new ExtensionDispatchingImporter(earImporter, new TestImporter("EAR", Ear.class));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * @(#)FileStagerTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link FileStager}
+ */
+public class FileStagerTest {
+    private static final byte[] CONTENT = { 1, 2, 3 };
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final FileStager stager = new FileStager();
+    private Path stagingDirectory;
+    private File source;
+
+    @Before
+    public void createSource() throws IOException {
+        stagingDirectory = tempFolder.newFolder("staging").toPath();
+        source = tempFolder.newFile("name-version.ear");
+        Files.write(CONTENT, source);
+    }
+
+    @Test
+    public void stagesCopyWithSourceNameAndTime() throws IOException {
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        assertEquals(source.getName(), stagedFile.file.getName());
+        assertEquals(stagingDirectory.toFile(), 
+                stagedFile.file.getParentFile().getParentFile());
+        assertArrayEquals(CONTENT, Files.toByteArray(stagedFile.file));
+        assertEquals(source.lastModified(), stagedFile.file.lastModified());
+        assertSame(source, stagedFile.source);
+        assertSame(stagedFile, stager.get(stagedFile.file));
+    }
+
+    @Test
+    public void isUnaffectedBySourceReplacement() throws IOException {
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        File replacement = tempFolder.newFile("replacement");
+        Files.write(new byte[] { 4, 5 }, replacement);
+        assertTrue(replacement.renameTo(source));
+        assertArrayEquals(CONTENT, Files.toByteArray(stagedFile.file));
+    }
+
+    @Test
+    public void reusesStagedCopiesAfterRelease() throws IOException {
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        assertSame(stagedFile, stager.stage(stagingDirectory, source));
+        stager.release(stagedFile.file);
+        stager.release(stagedFile.file);
+        assertNull(stager.get(stagedFile.file));
+        assertTrue(stagedFile.file.exists());
+
+        assertEquals(stagedFile.file, stager.stage(stagingDirectory, source).file);
+        // as a later run would
+        assertEquals(stagedFile.file, new FileStager().stage(stagingDirectory, source).file);
+    }
+
+    @Test
+    public void stagesChangedSourcesSeparately() throws IOException {
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        File replacement = tempFolder.newFile("replacement");
+        Files.write(new byte[] { 4, 5 }, replacement);
+        assertTrue(replacement.renameTo(source));
+        FileStager.StagedFile replacementStagedFile = stager.stage(stagingDirectory, source);
+        assertFalse(stagedFile.file.equals(replacementStagedFile.file));
+        assertArrayEquals(new byte[] { 4, 5 }, Files.toByteArray(replacementStagedFile.file));
+    }
+
+    @Test
+    public void stagesSourcesWithTheSameNameSeparately() throws IOException {
+        File otherSource = new File(tempFolder.newFolder("other"), source.getName());
+        Files.write(CONTENT, otherSource);
+        assertTrue(otherSource.setLastModified(source.lastModified()));
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        FileStager.StagedFile otherStagedFile = stager.stage(stagingDirectory, otherSource);
+        assertFalse(stagedFile.file.equals(otherStagedFile.file));
+        assertSame(source, stagedFile.source);
+        assertSame(otherSource, otherStagedFile.source);
+    }
+
+    @Test
+    public void replacesInvalidFilesLeftOverFromPreviousRuns() throws IOException {
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        stager.release(stagedFile.file);
+        assertTrue(stagedFile.file.delete());
+        Files.write(new byte[] { 7, 8, 9, 10 }, stagedFile.file);
+        assertArrayEquals(CONTENT, 
+                Files.toByteArray(stager.stage(stagingDirectory, source).file));
+    }
+
+    @Test
+    public void evictsOnlyUnusedStagedCopies() throws IOException {
+        File otherSource = tempFolder.newFile("other-version.ear");
+        FileStager.StagedFile stagedFile = stager.stage(stagingDirectory, source);
+        FileStager.StagedFile otherStagedFile = stager.stage(stagingDirectory, otherSource);
+        File unrelated = stagingDirectory.resolve("tar-indexes").toFile();
+        assertTrue(unrelated.mkdir());
+        stager.release(otherStagedFile.file);
+
+        assertEquals(0, stager.evict(stagingDirectory, 60 * 60 * 1000L));
+        assertEquals(1, stager.evict(stagingDirectory, 0));
+        assertTrue(stagedFile.file.exists());
+        assertFalse(otherStagedFile.file.exists());
+        assertFalse(otherStagedFile.file.getParentFile().exists());
+        assertTrue(unrelated.exists());
+    }
+
+    @Test
+    public void forgetsFilesThatCouldNotBeStaged() throws IOException {
+        File missing = new File(tempFolder.getRoot(), "missing.ear");
+        try {
+            stager.stage(stagingDirectory, missing);
+            fail("Expected missing source to be rejected");
+        } catch (IOException exception) {
+            assertEquals(0, stagingDirectory.toFile().list().length);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * @(#)ImportDirectoryWatcherTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+
+/**
+ * Unit tests for the {@link ImportDirectoryWatcher}
+ */
+public class ImportDirectoryWatcherTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final SingleFileImporter importer =
+        new ExtensionBasedImporter("ear", Type.valueOf(Ear.class)) {};
+    private ImportDirectoryWatcher watcher;
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @After
+    public void stopWatching() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    @Test
+    public void listsExistingStableFiles() throws IOException {
+        newFileModifiedMinutesAgo("name-version.ear");
+        newFileModifiedMinutesAgo("name.war");
+        watcher = importer.watch(tempFolder.getRoot(), 10000);
+        assertEquals(ImmutableList.of("name-version.ear"), watcher.list());
+    }
+
+    @Test
+    public void ignoresFilesStillBeingWritten() throws IOException {
+        tempFolder.newFile("name-version.ear");
+        watcher = importer.watch(tempFolder.getRoot(), 60000);
+        assertEquals(ImmutableList.of(), watcher.list());
+    }
+
+    @Test
+    public void picksUpNewFiles() throws Exception {
+        watcher = importer.watch(tempFolder.getRoot(), 50);
+        tempFolder.newFile("name-version.ear");
+        awaitListing(ImmutableList.of("name-version.ear"));
+    }
+
+    @Test
+    public void dropsDeletedFiles() throws Exception {
+        File ear = newFileModifiedMinutesAgo("name-version.ear");
+        watcher = importer.watch(tempFolder.getRoot(), 50);
+        assertTrue(ear.delete());
+        awaitListing(ImmutableList.<String>of());
+    }
+
+    @Test
+    public void importerListsFromWatcher() throws IOException {
+        newFileModifiedMinutesAgo("name-version.ear");
+        watcher = importer.watch(tempFolder.getRoot(), 10000);
+        assertSame(watcher, importer.watch(tempFolder.getRoot(), 10000));
+        assertSame(watcher.list(), importer.list(tempFolder.getRoot()));
+    }
+
+    @Test
+    public void replacesStoppedWatchers() throws IOException {
+        ImportDirectoryWatcher stopped = importer.watch(tempFolder.getRoot(), 10000);
+        stopped.close();
+        watcher = importer.watch(tempFolder.getRoot(), 10000);
+        assertNotSame(stopped, watcher);
+        assertTrue(watcher.isRunning());
+    }
+
+    @Test
+    public void returnsTheSameRunningWatcherToConcurrentCallers() throws Exception {
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<ImportDirectoryWatcher>> watchers = Lists.newArrayList();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 4; i++) {
+                watchers.add(callers.submit(new Callable<ImportDirectoryWatcher>() {
+                        @Override
+                        public ImportDirectoryWatcher call() throws Exception {
+                            startSignal.await();
+                            return importer.watch(tempFolder.getRoot(), 10000);
+                        }
+                    }));
+            }
+            startSignal.countDown();
+            watcher = watchers.get(0).get();
+            for (Future<ImportDirectoryWatcher> other : watchers) {
+                assertSame(watcher, other.get());
+            }
+            assertTrue(watcher.isRunning());
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    private File newFileModifiedMinutesAgo(String name) throws IOException {
+        File file = tempFolder.newFile(name);
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 5 * 60 * 1000));
+        return file;
+    }
+
+    private void awaitListing(List<String> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!expected.equals(watcher.list())
+                && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, watcher.list());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * @(#)ImportIndexTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.xebialabs.deployit.server.api.importer.singlefile.SingleFileImporter.PackageMetadata;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest;
+
+/**
+ * Unit tests for the {@link ImportIndex}
+ */
+public class ImportIndexTest {
+    private static final PackageMetadata METADATA = new PackageMetadata("name", "version");
+    private static final ContentDigest DIGEST =
+        new ContentDigest(3, ImmutableMap.of(ContentDigest.SHA_256, "abc"));
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path indexFile;
+    private File ear;
+
+    @Before
+    public void createFiles() throws IOException {
+        indexFile = new File(tempFolder.getRoot(), ".index").toPath();
+        ear = tempFolder.newFile("name-version.ear");
+    }
+
+    @Test
+    public void findsRecordedEntries() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        index.record(newEntry());
+        ImportIndex.Entry entry = index.lookup(ear.getName(), attributes(ear));
+        assertNotNull(entry);
+        assertEquals("name", entry.metadata.appName);
+        assertEquals("version", entry.metadata.appVersion);
+    }
+
+    @Test
+    public void ignoresEntriesForChangedFiles() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        index.record(newEntry());
+        com.google.common.io.Files.write(new byte[] { 1, 2, 3 }, ear);
+        assertNull(index.lookup(ear.getName(), attributes(ear)));
+    }
+
+    @Test
+    public void persistsEntries() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        ImportIndex.Entry entry = newEntry();
+        index.record(entry);
+        index.record(entry.withDigest(DIGEST).asImported());
+
+        ImportIndex.Entry reloaded = 
+            ImportIndex.open(indexFile, null).lookup(ear.getName(), attributes(ear));
+        assertNotNull(reloaded);
+        assertTrue(reloaded.imported);
+        assertEquals(DIGEST, reloaded.digest);
+    }
+
+    @Test
+    public void findsImportedEntriesByContent() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        index.record(newEntry().withDigest(DIGEST).asImported());
+        assertNotNull(index.findImported(DIGEST, METADATA));
+        assertNull(index.findImported(DIGEST, new PackageMetadata("name", "other")));
+    }
+
+    @Test
+    public void findsLatestImportedOtherVersion() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        BasicFileAttributes attributes = attributes(ear);
+        index.record(new ImportIndex.Entry("name-1.ear", attributes, 
+                new PackageMetadata("name", "1")).asImported());
+        index.record(new ImportIndex.Entry("name-2.ear", attributes, 
+                new PackageMetadata("name", "2")).asImported());
+        index.record(new ImportIndex.Entry("name-3.ear", attributes, 
+                new PackageMetadata("name", "3")));
+        assertEquals("name-2.ear", index.findLatestImported("name", "3").name);
+        assertEquals("name-1.ear", index.findLatestImported("name", "2").name);
+        assertNull(index.findLatestImported("other", "3"));
+        
+        // re-recording moves the entry to the end
+        index.record(new ImportIndex.Entry("name-1.ear", attributes, 
+                new PackageMetadata("name", "1")).asImported());
+        assertEquals("name-1.ear", index.findLatestImported("name", "3").name);
+        assertEquals("name-1.ear", 
+                ImportIndex.open(indexFile, null).findLatestImported("name", "3").name);
+    }
+
+    @Test
+    public void discardsPartiallyWrittenRecords() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        index.record(newEntry());
+        long validLength = Files.size(indexFile);
+        Files.write(indexFile, new byte[] { 0, 0, 0, 42, 1, 2 }, APPEND);
+
+        ImportIndex reloaded = ImportIndex.open(indexFile, null);
+        assertNotNull(reloaded.lookup(ear.getName(), attributes(ear)));
+        assertEquals(validLength, Files.size(indexFile));
+        // still appendable
+        reloaded.record(newEntry().asImported());
+        assertTrue(ImportIndex.open(indexFile, null).lookup(ear.getName(), attributes(ear))
+                .imported);
+    }
+
+    @Test
+    public void compactsSupersededRecords() throws IOException {
+        ImportIndex index = ImportIndex.open(indexFile, null);
+        ImportIndex.Entry entry = newEntry();
+        index.record(entry);
+        long singleRecordLength = Files.size(indexFile);
+        for (int i = 0; i < 100; i++) {
+            index.record(entry);
+        }
+        assertTrue(Files.size(indexFile) < 64 * singleRecordLength);
+        assertNotNull(ImportIndex.open(indexFile, null).lookup(ear.getName(), attributes(ear)));
+    }
+
+    @Test
+    public void sharesIndexesStoredInTheirDirectory() throws IOException {
+        Path directory = tempFolder.newFolder("imports").toPath();
+        ImportIndex index = ImportIndex.forDirectory(directory);
+        assertSame(index, ImportIndex.forDirectory(directory.resolve(".")));
+        File importedEar = directory.resolve("name-version.ear").toFile();
+        com.google.common.io.Files.touch(importedEar);
+        index.record(new ImportIndex.Entry(importedEar.getName(), attributes(importedEar),
+                METADATA));
+        Path expectedIndexFile = directory.toRealPath().resolve(".single-file-importer.idx");
+        assertEquals(expectedIndexFile, ImportIndex.getIndexFile(directory.toRealPath()));
+        assertTrue(Files.exists(expectedIndexFile));
+        // nothing written outside the directory
+        assertEquals(ImmutableSet.of("imports", "name-version.ear"), 
+                ImmutableSet.copyOf(tempFolder.getRoot().list()));
+        assertTrue(RecursiveLister.isExcluded(expectedIndexFile.getFileName().toString()));
+    }
+
+    @Test
+    public void dropsEntriesOfDeletedFiles() throws IOException {
+        Path directory = tempFolder.getRoot().toPath();
+        ImportIndex.open(indexFile, directory).record(newEntry());
+        assertTrue(ear.delete());
+        ImportIndex.open(indexFile, directory);
+        // just the header
+        assertEquals(8, Files.size(indexFile));
+    }
+
+    private ImportIndex.Entry newEntry() throws IOException {
+        return new ImportIndex.Entry(ear.getName(), attributes(ear), METADATA);
+    }
+
+    private static BasicFileAttributes attributes(File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    }
+}
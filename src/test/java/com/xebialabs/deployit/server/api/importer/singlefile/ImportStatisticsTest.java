@@ -0,0 +1,155 @@
+/*
+ * @(#)ImportStatisticsTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+import com.xebialabs.deployit.server.api.importer.ImportSource;
+import com.xebialabs.deployit.server.api.importer.PackageInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.ImportStatistics.Phase;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.PhaseStatistics;
+
+/**
+ * Unit tests for the {@link ImportStatistics}
+ */
+public class ImportStatisticsTest {
+    private static class EarImporter extends ExtensionBasedImporter {
+
+        private EarImporter() {
+            super("ear", Type.valueOf(Ear.class));
+        }
+
+        @Override
+        protected ImportStatistics getImportStatistics() {
+            return ImportStatistics.forImporter(getClass());
+        }
+    }
+
+    private static class UnrecordedImporter extends ExtensionBasedImporter {
+
+        private UnrecordedImporter() {
+            super("ear", Type.valueOf(Ear.class));
+        }
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @Test
+    public void recordsPhasesOfImports() throws IOException {
+        importEar(new EarImporter());
+
+        ImportStatistics statistics = ImportStatistics.forImporter(EarImporter.class);
+        assertEquals(1, statistics.get(Phase.LIST).getCount());
+        assertEquals(1, statistics.get(Phase.CAN_HANDLE).getCount());
+        assertEquals(1, statistics.get(Phase.PREPARE_PACKAGE).getCount());
+        assertEquals(100, statistics.get(Phase.PREPARE_PACKAGE).getTotalBytes());
+        assertEquals(1, statistics.get(Phase.GET_PACKAGE_METADATA).getCount());
+        assertEquals(1, statistics.get(Phase.CLEAN_UP).getCount());
+        assertEquals(0, statistics.get(Phase.PREPARE_PACKAGE).getErrorCount());
+    }
+
+    @Test
+    public void recordsNothingByDefault() throws IOException, JMException {
+        importEar(new UnrecordedImporter());
+
+        ObjectName name = ImportStatistics.getObjectName(UnrecordedImporter.class, 
+                Phase.PREPARE_PACKAGE);
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    public void publishesPhasesOverJmx() throws JMException {
+        ImportStatistics statistics = ImportStatistics.forImporter(EarImporter.class);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = ImportStatistics.getObjectName(EarImporter.class, 
+                Phase.PREPARE_PACKAGE);
+        assertTrue(server.isRegistered(name));
+        assertEquals(statistics.get(Phase.PREPARE_PACKAGE).getCount(), 
+                server.getAttribute(name, "Count"));
+        assertTrue(name.toString().contains("phase=preparePackage"));
+    }
+
+    @Test
+    public void replacesStaleMBeansAndUnregisters() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = ImportStatistics.getObjectName(OtherImporter.class, 
+                Phase.PREPARE_PACKAGE);
+        // as left by an earlier class of the same name
+        PhaseStatistics stale = new PhaseStatistics();
+        server.registerMBean(stale, name);
+
+        ImportStatistics statistics = ImportStatistics.forImporter(OtherImporter.class);
+        statistics.get(Phase.PREPARE_PACKAGE).record(1, 0, false);
+        assertEquals(1L, server.getAttribute(name, "Count"));
+
+        ImportStatistics.unregister(OtherImporter.class);
+        assertFalse(server.isRegistered(name));
+        assertNotSame(statistics, ImportStatistics.forImporter(OtherImporter.class));
+        ImportStatistics.unregister(OtherImporter.class);
+    }
+
+    private void importEar(SingleFileImporter importer) throws IOException {
+        final File ear = tempFolder.newFile("name-version.ear");
+        Files.write(new byte[100], ear);
+        ImportSource source = new ImportSource() {
+            @Override
+            public File getFile() {
+                return ear;
+            }
+
+            @Override
+            public void cleanUp() {}
+        };
+
+        importer.list(tempFolder.getRoot());
+        assertTrue(importer.canHandle(source));
+        PackageInfo packageInfo = importer.preparePackage(source, null);
+        importer.cleanUp(packageInfo, null);
+    }
+
+    private static class OtherImporter extends EarImporter {}
+}
@@ -0,0 +1,159 @@
+/*
+ * @(#)RecursiveListerTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+
+/**
+ * Unit tests for the {@link RecursiveLister}
+ */
+public class RecursiveListerTest {
+    private static final Predicate<File> EARS = new Predicate<File>() {
+            @Override
+            public boolean apply(File input) {
+                return input.getName().endsWith(".ear");
+            }
+        };
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+
+    @Before
+    public void createTree() throws IOException {
+        pool = new ForkJoinPool(2);
+        newFile("top.ear");
+        newFile("team1/app1/1.0/app1-1.0.ear");
+        newFile("team1/app1/1.1/app1-1.1.ear");
+        newFile("team1/app1/1.1/README");
+        newFile("team1/app2/2.0/app2-2.0.ear");
+        newFile("team1/app2/2.0/app2-2.0.ear.part");
+        newFile("team1/app2/2.0/.app2-2.0.ear");
+        newFile("team2/app3/3.0/app3-3.0.ear");
+        newFile("team2/.hidden/3.0/app4-4.0.ear");
+        newFile("team2/app3/3.0/deep/app5-5.0.ear");
+    }
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void listsSupportedFilesOrderedByPath() throws IOException {
+        assertEquals(ImmutableList.of("team1/app1/1.0/app1-1.0.ear", 
+                "team1/app1/1.1/app1-1.1.ear", "team1/app2/2.0/app2-2.0.ear", 
+                "team2/app3/3.0/app3-3.0.ear", "top.ear"), 
+                new RecursiveLister(pool, 4, EARS).list(tempFolder.getRoot().toPath()));
+    }
+
+    @Test
+    public void respectsMaximumDepth() throws IOException {
+        assertEquals(ImmutableList.of("top.ear"), 
+                new RecursiveLister(pool, 1, EARS).list(tempFolder.getRoot().toPath()));
+        assertTrue(new RecursiveLister(pool, 5, EARS).list(tempFolder.getRoot().toPath())
+                .contains("team2/app3/3.0/deep/app5-5.0.ear"));
+    }
+
+    @Test
+    public void streamsSupportedFiles() throws IOException {
+        RecursiveLister lister = new RecursiveLister(pool, 4, EARS);
+        assertEquals(ImmutableSet.copyOf(lister.list(tempFolder.getRoot().toPath())),
+                ImmutableSet.copyOf(lister.stream(tempFolder.getRoot().toPath())));
+    }
+
+    @Test(expected = IOException.class)
+    public void failsForMissingRoot() throws IOException {
+        new RecursiveLister(pool, 4, EARS).list(new File(tempFolder.getRoot(), "missing")
+                .toPath());
+    }
+
+    @Test
+    public void streamingFailsForMissingRoot() {
+        RecursiveLister lister = new RecursiveLister(pool, 4, EARS);
+        Path missing = new File(tempFolder.getRoot(), "missing").toPath();
+        // the failure must not be mistaken for the end of the walk, however it races
+        for (int i = 0; i < 1000; i++) {
+            assertStreamingFails(lister.stream(missing));
+        }
+    }
+
+    @Test
+    public void streamingFailsForUnreadableSubdirectory() throws IOException {
+        File unreadable = new File(tempFolder.getRoot(), "team1/app2");
+        assertTrue(unreadable.setReadable(false));
+        try {
+            // e.g. when running as root
+            assumeTrue(!Files.isReadable(unreadable.toPath()));
+            assertStreamingFails(new RecursiveLister(pool, 4, EARS).stream(
+                    tempFolder.getRoot().toPath()));
+        } finally {
+            unreadable.setReadable(true);
+        }
+    }
+
+    private static void assertStreamingFails(Iterator<String> files) {
+        try {
+            Iterators.size(files);
+            fail("Expected the walk to fail");
+        } catch (RuntimeException exception) {
+            assertTrue(exception.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void excludesHiddenAndTemporaryFiles() {
+        assertTrue(RecursiveLister.isExcluded(".hidden"));
+        assertTrue(RecursiveLister.isExcluded("app.ear~"));
+        assertTrue(RecursiveLister.isExcluded("app.EAR.TMP"));
+        assertTrue(RecursiveLister.isExcluded("~$app.ear"));
+        assertFalse(RecursiveLister.isExcluded("app.ear"));
+    }
+
+    private void newFile(String relativePath) throws IOException {
+        File file = new File(tempFolder.getRoot(), relativePath);
+        file.getParentFile().mkdirs();
+        assertTrue(file.createNewFile());
+    }
+}
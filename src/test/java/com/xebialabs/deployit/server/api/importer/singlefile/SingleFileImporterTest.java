@@ -20,13 +20,28 @@
  */
 package com.xebialabs.deployit.server.api.importer.singlefile;
 
+import static com.xebialabs.deployit.server.api.importer.singlefile.SingleFileImporter.isDuplicate;
 import static java.lang.String.format;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -35,14 +50,22 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
 import com.xebialabs.deployit.plugin.api.reflect.Type;
 import com.xebialabs.deployit.plugin.api.udm.Deployable;
 import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+import com.xebialabs.deployit.plugin.jee.artifact.War;
 import com.xebialabs.deployit.server.api.importer.ImportSource;
+import com.xebialabs.deployit.server.api.importer.ImportedPackage;
 import com.xebialabs.deployit.server.api.importer.ImportingContext;
 import com.xebialabs.deployit.server.api.importer.PackageInfo;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ArchiveDelta;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigester;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.ZipIntegrityVerifier;
 import com.xebialabs.overthere.local.LocalFile;
 
 /**
@@ -73,6 +96,79 @@ public class SingleFileImporterTest {
         }
     }
     
+    private static class IndexingImporter extends FilesWithVeImporter {
+        private int metadataLookups;
+        
+        @Override
+        protected boolean isImportIndexEnabled() {
+            return true;
+        }
+        
+        @Override
+        protected PackageMetadata getPackageMetadata(File file) {
+            metadataLookups++;
+            return super.getPackageMetadata(file);
+        }
+    }
+    
+    private static class DeltaReportingImporter extends IndexingImporter {
+        
+        @Override
+        protected boolean isDeltaReportEnabled() {
+            return true;
+        }
+    }
+    
+    private static class StagingImporter extends FilesWithVeImporter {
+        private final File stagingDirectory;
+        
+        private StagingImporter(File stagingDirectory) {
+            this.stagingDirectory = stagingDirectory;
+        }
+        
+        @Override
+        protected File getStagingDirectory() {
+            return stagingDirectory;
+        }
+    }
+    
+    private static class EarAndWarImporter extends FilesWithVeImporter {
+        
+        @Override
+        protected Set<Deployable> getDeployables(ImportedPackage importedPackage) {
+            File importedFile = importedPackage.getPackageInfo().getSource().getFile();
+            return ImmutableSet.<Deployable>of(
+                    newFileArtifact(importedPackage, Type.valueOf(Ear.class), "ear", 
+                            importedFile), 
+                    newFileArtifact(importedPackage, Type.valueOf(War.class), "war", 
+                            importedFile));
+        }
+    }
+    
+    private static class FusedAnalysisImporter extends FilesWithVeImporter {
+        private static final ForkJoinPool POOL = new ForkJoinPool(1);
+        
+        @Override
+        protected boolean isFusedAnalysisEnabled() {
+            return true;
+        }
+        
+        @Override
+        protected ZipIntegrityVerifier getArchiveVerifier() {
+            return new ZipIntegrityVerifier(POOL);
+        }
+        
+        @Override
+        protected boolean isManifestMetadataEnabled() {
+            return true;
+        }
+        
+        @Override
+        protected ContentDigester getContentDigester() {
+            return new ContentDigester();
+        }
+    }
+    
     @Rule
     public TemporaryFolder tempFolder = new TemporaryFolder();
     
@@ -126,6 +222,199 @@ public class SingleFileImporterTest {
         assertEquals("name", ear.getName());
     }
     
+    @Test
+    public void supportsSeveralDeployablesPerFile() {
+        PackageInfo packageInfo = new PackageInfo(earSource);
+        packageInfo.setApplicationName("name");
+        packageInfo.setApplicationVersion("version");
+        List<Deployable> deployables = new EarAndWarImporter()
+            .importEntities(packageInfo, STUB_IMPORT_CTX).getDeployables();
+        assertEquals(2, deployables.size());
+        assertEquals("Applications/name/version/ear", deployables.get(0).getId());
+        assertTrue(deployables.get(1) instanceof War);
+        assertEquals("Applications/name/version/war", deployables.get(1).getId());
+    }
+    
+    @Test
+    public void reusesIndexedMetadataAndFlagsDuplicates() {
+        IndexingImporter indexingImporter = new IndexingImporter();
+        ImportingContext firstImport = new MapImportingContext();
+        indexingImporter.importEntities(
+                indexingImporter.preparePackage(earSource, firstImport), firstImport);
+        assertFalse("Expected first import not to be a duplicate", isDuplicate(firstImport));
+        
+        ImportingContext secondImport = new MapImportingContext();
+        PackageInfo packageInfo = indexingImporter.preparePackage(earSource, secondImport);
+        assertEquals("name", packageInfo.getApplicationName());
+        assertEquals("version", packageInfo.getApplicationVersion());
+        assertEquals(1, indexingImporter.metadataLookups);
+        assertTrue("Expected second import to be a duplicate", isDuplicate(secondImport));
+    }
+    
+    @Test
+    public void attachesDeltaToPreviousVersion() throws IOException {
+        DeltaReportingImporter deltaImporter = new DeltaReportingImporter();
+        ImportedArchivePackage first = (ImportedArchivePackage) importArchive(deltaImporter, 
+                "app-version1.ear", "unchanged", "removed");
+        assertNull(first.getPreviousVersion());
+        assertNull(first.getDelta());
+        
+        ImportedArchivePackage second = (ImportedArchivePackage) importArchive(deltaImporter, 
+                "app-version2.ear", "unchanged", "added");
+        assertEquals("version1", second.getPreviousVersion());
+        ArchiveDelta delta = second.getDelta();
+        assertEquals(ImmutableList.of("added"), delta.added);
+        assertEquals(ImmutableList.of("removed"), delta.removed);
+        assertEquals(1, delta.unchangedCount);
+    }
+    
+    @Test
+    public void importsStagedCopyAndKeepsItUntilEvicted() throws IOException {
+        Files.write(new byte[] { 1, 2, 3 }, earSource.getFile());
+        File stagingDirectory = tempFolder.newFolder("staging");
+        StagingImporter stagingImporter = new StagingImporter(stagingDirectory);
+        PackageInfo packageInfo = stagingImporter.preparePackage(earSource, STUB_IMPORT_CTX);
+        File stagedFile = packageInfo.getSource().getFile();
+        assertEquals(earSource.getFile().getName(), stagedFile.getName());
+        assertEquals(stagingDirectory, stagedFile.getParentFile().getParentFile());
+        
+        // e.g. a retry
+        stagingImporter.cleanUp(packageInfo, STUB_IMPORT_CTX);
+        assertTrue(stagedFile.exists());
+        packageInfo = stagingImporter.preparePackage(earSource, STUB_IMPORT_CTX);
+        assertEquals(stagedFile, packageInfo.getSource().getFile());
+        
+        Ear ear = (Ear) stagingImporter.importEntities(packageInfo, STUB_IMPORT_CTX)
+            .getDeployables().get(0);
+        File artifactFile = ((LocalFile) ear.getFile()).getFile();
+        assertEquals(stagedFile, artifactFile);
+        assertEquals(0, stagingImporter.evictStagedFiles(0));
+        
+        stagingImporter.cleanUp(packageInfo, STUB_IMPORT_CTX);
+        assertTrue(stagedFile.exists());
+        assertEquals(1, stagingImporter.evictStagedFiles(0));
+        assertFalse("Expected staged file to be evicted", stagedFile.exists());
+        assertTrue(earSource.getFile().exists());
+    }
+    
+    @Test
+    public void onlyDigestsFilesOfTypesDeclaringChecksums() throws IOException {
+        final AtomicInteger digests = new AtomicInteger();
+        final ContentDigester countingDigester = new ContentDigester() {
+                @Override
+                public ContentDigest digest(File file) throws IOException {
+                    digests.incrementAndGet();
+                    return super.digest(file);
+                }
+            };
+        SingleFileImporter warImporter = new SingleFileImporter(Type.valueOf(War.class)) {
+                @Override
+                protected boolean isSupportedFile(File file) {
+                    return true;
+                }
+                
+                @Override
+                protected ContentDigester getContentDigester() {
+                    return countingDigester;
+                }
+            };
+        PackageInfo packageInfo = warImporter.preparePackage(earSource, STUB_IMPORT_CTX);
+        warImporter.importEntities(packageInfo, STUB_IMPORT_CTX);
+        warImporter.cleanUp(packageInfo, STUB_IMPORT_CTX);
+        assertEquals(0, digests.get());
+    }
+    
+    @Test
+    public void analysesFileInSinglePass() throws IOException {
+        File archive = tempFolder.newFile("app-version1.ear");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_TITLE, "title");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(archive), manifest);
+        try {
+            out.putNextEntry(new ZipEntry("content"));
+            out.write(new byte[] { 1, 2, 3 });
+        } finally {
+            out.close();
+        }
+        
+        FusedAnalysisImporter analysingImporter = new FusedAnalysisImporter();
+        PackageInfo packageInfo = 
+            analysingImporter.preparePackage(new FileSource(archive), STUB_IMPORT_CTX);
+        assertEquals("title", packageInfo.getApplicationName());
+        assertEquals("version1", packageInfo.getApplicationVersion());
+        Ear ear = (Ear) analysingImporter.importEntities(packageInfo, STUB_IMPORT_CTX)
+            .getDeployables().get(0);
+        assertEquals(new ContentDigester().digest(archive).getValue(), 
+                ear.getSyntheticProperty("checksum"));
+        analysingImporter.cleanUp(packageInfo, STUB_IMPORT_CTX);
+    }
+    
+    @Test
+    public void rejectsCorruptArchivesDuringAnalysis() throws IOException {
+        File archive = tempFolder.newFile("app-version1.ear");
+        Files.write(new byte[] { 'P', 'K', 3, 4, 0 }, archive);
+        try {
+            new FusedAnalysisImporter().preparePackage(new FileSource(archive), 
+                    STUB_IMPORT_CTX);
+            fail("Expected corrupt archive to be rejected");
+        } catch (RuntimeException exception) {
+            assertTrue(exception.getCause() instanceof ZipException);
+        }
+    }
+    
+    @Test
+    public void releasesStagedCopyIfPreparationFails() throws IOException {
+        File archive = tempFolder.newFile("app-version1.ear");
+        Files.write(new byte[] { 'P', 'K', 3, 4, 0 }, archive);
+        File stagingDirectory = tempFolder.newFolder("staging");
+        StagingImporter stagingImporter = new StagingImporter(stagingDirectory) {
+                @Override
+                protected ZipIntegrityVerifier getArchiveVerifier() {
+                    return new ZipIntegrityVerifier(FusedAnalysisImporter.POOL);
+                }
+            };
+        try {
+            stagingImporter.preparePackage(new FileSource(archive), STUB_IMPORT_CTX);
+            fail("Expected corrupt archive to be rejected");
+        } catch (RuntimeException exception) {
+            // no longer in use
+            assertEquals(1, stagingImporter.evictStagedFiles(0));
+            assertEquals(0, stagingDirectory.list().length);
+        }
+    }
+    
+    private ImportedPackage importArchive(SingleFileImporter importer, String name, 
+            String... entryNames) throws IOException {
+        File archive = tempFolder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (String entryName : entryNames) {
+                out.putNextEntry(new ZipEntry(entryName));
+            }
+        } finally {
+            out.close();
+        }
+        ImportingContext context = new MapImportingContext();
+        FileSource source = new FileSource(archive);
+        return importer.importEntities(importer.preparePackage(source, context), context);
+    }
+    
+    private static class MapImportingContext implements ImportingContext {
+        private final Map<String, Object> attributes = Maps.newHashMap();
+        
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T getAttribute(String name) {
+            return (T) attributes.get(name);
+        }
+
+        @Override
+        public <T> void setAttribute(String name, T value) {
+            attributes.put(name, value);
+        }
+    }
+    
     private static class FileSource implements ImportSource {
         private final File file;
         
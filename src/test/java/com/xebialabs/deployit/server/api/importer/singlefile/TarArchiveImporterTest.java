@@ -0,0 +1,182 @@
+/*
+ * @(#)TarArchiveImporterTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndexTest.writeEnd;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndexTest.writeEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.xebialabs.deployit.plugin.api.boot.PluginBooter;
+import com.xebialabs.deployit.plugin.api.reflect.Type;
+import com.xebialabs.deployit.plugin.jee.artifact.Ear;
+import com.xebialabs.deployit.server.api.importer.singlefile.SingleFileImporter.PackageMetadata;
+
+/**
+ * Unit tests for the {@link TarArchiveImporter}
+ */
+public class TarArchiveImporterTest {
+    private static final byte[] METADATA =
+        "name=app\nversion=2.0\n".getBytes(Charsets.UTF_8);
+
+    private class TgzImporter extends TarArchiveImporter {
+
+        private TgzImporter(String extension) {
+            super(extension, Type.valueOf(Ear.class));
+        }
+
+        @Override
+        protected File getIndexDirectory() {
+            return indexDirectory;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File indexDirectory;
+
+    @BeforeClass
+    public static void boot() {
+        PluginBooter.bootWithoutGlobalContext();
+    }
+
+    @Test
+    public void matchesCompoundExtension() {
+        TgzImporter importer = new TgzImporter("tar.gz");
+        assertTrue(importer.isSupportedFile(new File("app-1.0.TAR.GZ")));
+        assertFalse(importer.isSupportedFile(new File("app-1.0.gz")));
+    }
+
+    @Test
+    public void readsMetadataFromCompressedArchives() throws IOException {
+        indexDirectory = tempFolder.newFolder("index");
+        File archive = newArchive("bundle.tar.gz", true, METADATA);
+        PackageMetadata metadata = new TgzImporter("tar.gz").getPackageMetadata(archive);
+        assertEquals("app", metadata.appName);
+        assertEquals("2.0", metadata.appVersion);
+    }
+
+    @Test
+    public void readsMetadataFromUncompressedArchives() throws IOException {
+        File archive = newArchive("bundle.tar", false, METADATA);
+        PackageMetadata metadata = new TgzImporter("tar").getPackageMetadata(archive);
+        assertEquals("app", metadata.appName);
+        assertEquals("2.0", metadata.appVersion);
+    }
+
+    @Test
+    public void usesDefaultsForMissingMetadata() throws IOException {
+        File archive = newArchive("bundle.tar.gz", true,
+                "name=app\n".getBytes(Charsets.UTF_8));
+        PackageMetadata metadata = new TgzImporter("tar.gz").getPackageMetadata(archive);
+        assertEquals("app", metadata.appName);
+        assertEquals("1.0", metadata.appVersion);
+
+        archive = newArchive("bundle-3.tgz", true, null);
+        metadata = new TgzImporter("tgz").getPackageMetadata(archive);
+        assertEquals("bundle", metadata.appName);
+        assertEquals("3", metadata.appVersion);
+    }
+
+    @Test
+    public void keepsIndexesInStagingDirectory() throws IOException {
+        final File stagingDirectory = tempFolder.newFolder("staging");
+        TarArchiveImporter importer = new TarArchiveImporter("tar", Type.valueOf(Ear.class)) {
+                @Override
+                protected File getStagingDirectory() {
+                    return stagingDirectory;
+                }
+            };
+        assertEquals(new File(stagingDirectory, "tar-indexes"), importer.getIndexDirectory());
+        File defaultIndexDirectory = 
+            new TarArchiveImporter("tar", Type.valueOf(Ear.class)) {}.getIndexDirectory();
+        assertEquals("tar-indexes", defaultIndexDirectory.getName());
+        assertEquals(new File(System.getProperty("java.io.tmpdir")), 
+                defaultIndexDirectory.getParentFile().getParentFile());
+    }
+
+    @Test
+    public void usesFileNameForCorruptArchives() throws IOException {
+        indexDirectory = tempFolder.newFolder("index");
+        File archive = newArchive("bundle-3.tgz", true, METADATA);
+        byte[] content = Files.toByteArray(archive);
+        Files.write(Arrays.copyOf(content, content.length / 2), archive);
+        PackageMetadata metadata = new TgzImporter("tgz").getPackageMetadata(archive);
+        assertEquals("bundle", metadata.appName);
+        assertEquals("3", metadata.appVersion);
+    }
+
+    @Test
+    public void reusesPersistedIndexOfUnchangedArchives() throws IOException {
+        indexDirectory = tempFolder.newFolder("index");
+        File archive = newArchive("bundle.tar.gz", true, METADATA);
+        new TgzImporter("tar.gz").getPackageMetadata(archive);
+
+        // keep the gzip header, but make the archive unreadable
+        byte[] content = Files.toByteArray(archive);
+        Arrays.fill(content, 10, content.length, (byte) 0);
+        long lastModified = archive.lastModified();
+        Files.write(content, archive);
+        assertTrue(archive.setLastModified(lastModified));
+
+        PackageMetadata metadata = new TgzImporter("tar.gz").getPackageMetadata(archive);
+        assertEquals("app", metadata.appName);
+        assertEquals("2.0", metadata.appVersion);
+    }
+
+    private File newArchive(String name, boolean gzipped, byte[] metadata)
+            throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "bin/", '5', 0755, new byte[0]);
+        writeEntry(tar, "bin/run.sh", '0', 0755, new byte[3000]);
+        if (metadata != null) {
+            writeEntry(tar, "./package.properties", '0', 0644, metadata);
+        }
+        writeEnd(tar);
+
+        byte[] content = tar.toByteArray();
+        if (gzipped) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            GZIPOutputStream out = new GZIPOutputStream(compressed);
+            out.write(content);
+            out.close();
+            content = compressed.toByteArray();
+        }
+        File archive = new File(tempFolder.getRoot(), name);
+        Files.write(content, archive);
+        return archive;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * @(#)TarIndexStoreTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndexTest.writeEnd;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndexTest.writeEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Predicates;
+import com.google.common.io.Files;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.TarIndex;
+
+/**
+ * Unit tests for the {@link TarIndexStore}
+ */
+public class TarIndexStoreTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File archive;
+    private TarIndex tarIndex;
+    private TarIndexStore store;
+
+    @Before
+    public void createArchive() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "package.properties", '0', 0644, new byte[] { 'a' });
+        writeEnd(tar);
+        archive = tempFolder.newFile("app.tar");
+        Files.write(tar.toByteArray(), archive);
+        tarIndex = TarIndex.build(new ByteArrayInputStream(tar.toByteArray()),
+                Predicates.<String>alwaysTrue());
+        store = new TarIndexStore(new File(tempFolder.getRoot(), "index"));
+    }
+
+    @Test
+    public void returnsStoredIndexes() throws IOException {
+        assertNull(store.get(archive));
+        store.put(archive, tarIndex);
+        TarIndex stored = store.get(archive);
+        assertNotNull(stored);
+        assertEquals(tarIndex.getEntries().toString(), stored.getEntries().toString());
+        assertEquals('a', stored.getCapturedContent("package.properties")[0]);
+    }
+
+    @Test
+    public void ignoresIndexesOfChangedArchives() throws IOException {
+        store.put(archive, tarIndex);
+        Files.write(new byte[] { 1, 2, 3 }, archive);
+        assertNull(store.get(archive));
+    }
+
+    @Test
+    public void ignoresCorruptIndexes() throws IOException {
+        store.put(archive, tarIndex);
+        File indexFile = new File(tempFolder.getRoot(), "index").listFiles()[0];
+        byte[] content = Files.toByteArray(indexFile);
+        content[content.length - 1] ^= 1;
+        Files.write(content, indexFile);
+        assertNull(store.get(archive));
+    }
+
+    @Test
+    public void ignoresIndexesOthersCanWrite() throws IOException {
+        store.put(archive, tarIndex);
+        Path directory = new File(tempFolder.getRoot(), "index").toPath();
+        assertEquals(PosixFilePermissions.fromString("rwx------"),
+                java.nio.file.Files.getPosixFilePermissions(directory));
+        Path indexFile = directory.toFile().listFiles()[0].toPath();
+        java.nio.file.Files.setPosixFilePermissions(indexFile,
+                PosixFilePermissions.fromString("rw-rw-rw-"));
+        assertNull(store.get(archive));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedIndexes() throws IOException {
+        store = new TarIndexStore(new File(tempFolder.getRoot(), "index"), 1);
+        File otherArchive = tempFolder.newFile("other.tar");
+        Files.copy(archive, otherArchive);
+        store.put(archive, tarIndex);
+        File indexFile = new File(tempFolder.getRoot(), "index").listFiles()[0];
+        assertTrue(indexFile.setLastModified(indexFile.lastModified() - 60000));
+        store.put(otherArchive, tarIndex);
+        assertNull(store.get(archive));
+        assertNotNull(store.get(otherArchive));
+    }
+}
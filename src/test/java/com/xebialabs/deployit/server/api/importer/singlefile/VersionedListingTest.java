@@ -0,0 +1,66 @@
+/*
+ * @(#)VersionedListingTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.xebialabs.deployit.server.api.importer.singlefile.SingleFileImporter.PackageMetadata;
+
+/**
+ * Unit tests for the {@link VersionedListing}
+ */
+public class VersionedListingTest {
+    private final VersionedListing listing = new VersionedListing(ImmutableList.of(
+            newEntry("web-1.10.war", "web", "1.10"), 
+            newEntry("app-1.0-SNAPSHOT.ear", "app", "1.0-SNAPSHOT"), 
+            newEntry("web-1.9.war", "web", "1.9"),
+            newEntry("app-1.0.ear", "app", "1.0"),
+            newEntry("app-0.9.ear", "app", "0.9")));
+
+    @Test
+    public void groupsByNameNewestFirst() {
+        List<String> filenames = Lists.newArrayList();
+        for (VersionedListing.Entry entry : listing.getEntries()) {
+            filenames.add(entry.filename);
+        }
+        assertEquals(ImmutableList.of("app-1.0.ear", "app-1.0-SNAPSHOT.ear", "app-0.9.ear", 
+                "web-1.10.war", "web-1.9.war"), filenames);
+    }
+
+    @Test
+    public void findsLatestVersion() {
+        assertEquals("app-1.0.ear", listing.latest("app").filename);
+        assertEquals("web-1.10.war", listing.latest("web").filename);
+        assertNull(listing.latest("other"));
+    }
+
+    private static VersionedListing.Entry newEntry(String filename, String appName, 
+            String version) {
+        return new VersionedListing.Entry(filename, new PackageMetadata(appName, version));
+    }
+}
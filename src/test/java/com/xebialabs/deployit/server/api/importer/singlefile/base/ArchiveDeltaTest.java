@@ -0,0 +1,104 @@
+/*
+ * @(#)ArchiveDeltaTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for the {@link ArchiveDelta}
+ */
+public class ArchiveDeltaTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void comparesCentralDirectories() throws IOException {
+        File previous = newArchive("app-1.3.ear", ImmutableMap.of("unchanged", "a", 
+                "changed-content", "b", "changed-size", "c", "removed", "d"));
+        File current = newArchive("app-1.4.ear", ImmutableMap.of("added", "e", 
+                "changed-size", "cc", "changed-content", "x", "unchanged", "a"));
+        ArchiveDelta delta = ArchiveDelta.between(previous, current);
+        assertEquals(ImmutableList.of("changed-size", "changed-content"), delta.changed);
+        assertEquals(ImmutableList.of("added"), delta.added);
+        assertEquals(ImmutableList.of("removed"), delta.removed);
+        assertEquals(1, delta.unchangedCount);
+        assertEquals("2 changed, 1 added, 1 removed, 1 unchanged", delta.toString());
+    }
+
+    @Test
+    public void identicalArchivesHaveEmptyDelta() throws IOException {
+        Map<String, String> entries = ImmutableMap.of("one", "1", "two", "2");
+        ArchiveDelta delta = ArchiveDelta.between(newArchive("app-1.ear", entries), 
+                newArchive("app-2.ear", entries));
+        assertTrue(delta.isEmpty());
+        assertEquals(2, delta.unchangedCount);
+    }
+
+    @Test
+    public void comparesLargeCentralDirectories() {
+        int entryCount = 100000;
+        List<ZipCentralDirectory.Entry> previous = Lists.newArrayListWithCapacity(entryCount);
+        List<ZipCentralDirectory.Entry> current = Lists.newArrayListWithCapacity(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            String name = "com/example/Class" + i + ".class";
+            previous.add(new ZipCentralDirectory.Entry(name, 0, 8, i, 10, 20, 0));
+            // every tenth entry changed
+            current.add(new ZipCentralDirectory.Entry(name, 0, 8, ((i % 10 == 0) ? i + 1 : i), 
+                    10, 20, 0));
+        }
+        ArchiveDelta delta = ArchiveDelta.between(previous, current);
+        assertEquals(entryCount / 10, delta.changed.size());
+        assertEquals(entryCount - entryCount / 10, delta.unchangedCount);
+    }
+
+    private File newArchive(String name, Map<String, String> entries) throws IOException {
+        File archive = tempFolder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes(Charsets.UTF_8));
+            }
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * @(#)ContentDigesterTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.MD5;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.SHA_256;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.toHex;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigester.newMessageDigest;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link ContentDigester}
+ */
+public class ContentDigesterTest {
+    private static final byte[] ABC = "abc".getBytes(Charsets.US_ASCII);
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void computesSha256() throws IOException {
+        ContentDigest digest = new ContentDigester().digest(newFile(ABC));
+        assertEquals(3, digest.size);
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                digest.getSha256());
+        assertNull(digest.getMd5());
+    }
+
+    @Test
+    public void optionallyComputesMd5() throws IOException {
+        ContentDigest digest = new ContentDigester(true).digest(newFile(ABC));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                digest.getSha256());
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", digest.getMd5());
+    }
+
+    @Test
+    public void handlesEmptyFiles() throws IOException {
+        ContentDigest digest = new ContentDigester().digest(newFile(new byte[0]));
+        assertEquals(0, digest.size);
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                digest.getSha256());
+    }
+
+    @Test
+    public void handlesFilesLargerThanBuffer() throws IOException {
+        byte[] content = new byte[3 * ContentDigester.BUFFER_SIZE + 17];
+        new Random(42).nextBytes(content);
+        ContentDigest digest = new ContentDigester(true).digest(newFile(content));
+        assertEquals(content.length, digest.size);
+        assertEquals(toHex(newMessageDigest(SHA_256).digest(content)), digest.getSha256());
+        assertEquals(toHex(newMessageDigest(MD5).digest(content)), digest.getMd5());
+    }
+
+    private File newFile(byte[] content) throws IOException {
+        File file = tempFolder.newFile("artifact.ear");
+        Files.write(content, file);
+        return file;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * @(#)FormatSnifferTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link FormatSniffer}
+ */
+public class FormatSnifferTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final FormatSniffer sniffer = new FormatSniffer(16);
+
+    @Test
+    public void identifiesArchivesByMarkerEntries() throws IOException {
+        assertEquals(FileFormat.WAR, sniffer.sniff(
+                zip("app.zip", "META-INF/MANIFEST.MF", "WEB-INF/", "WEB-INF/web.xml")));
+        assertEquals(FileFormat.EAR, sniffer.sniff(
+                zip("app", "META-INF/MANIFEST.MF", "META-INF/application.xml")));
+        assertEquals(FileFormat.JAR, sniffer.sniff(zip("lib.zip", "META-INF/MANIFEST.MF")));
+        assertEquals(FileFormat.ZIP, sniffer.sniff(zip("app.war", "index.html")));
+    }
+
+    @Test
+    public void identifiesJarsByExtraField() throws IOException {
+        File jar = tempFolder.newFile("lib");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            out.putNextEntry(new ZipEntry("com/"));
+            out.closeEntry();
+        } finally {
+            out.close();
+        }
+        assertEquals(FileFormat.JAR, sniffer.sniff(jar));
+    }
+
+    @Test
+    public void identifiesJarsWithManifest() throws IOException {
+        File jar = tempFolder.newFile("lib.bin");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        new JarOutputStream(new FileOutputStream(jar), manifest).close();
+        assertEquals(FileFormat.JAR, sniffer.sniff(jar));
+    }
+
+    @Test
+    public void identifiesTarsAndGzips() throws IOException {
+        File tar = tempFolder.newFile("app.tar");
+        Files.write(tarHeader(), tar);
+        assertEquals(FileFormat.TAR, sniffer.sniff(tar));
+
+        File tarGzip = tempFolder.newFile("app");
+        Files.write(gzip(tarHeader()), tarGzip);
+        assertEquals(FileFormat.TAR_GZIP, sniffer.sniff(tarGzip));
+
+        File gzip = tempFolder.newFile("app.tgz");
+        byte[] text = new byte[4096];
+        new Random(42).nextBytes(text);
+        Files.write(gzip(text), gzip);
+        assertEquals(FileFormat.GZIP, sniffer.sniff(gzip));
+    }
+
+    @Test
+    public void identifiesRpmsAndUnknownFiles() throws IOException {
+        File rpm = tempFolder.newFile("app.rpm");
+        Files.write(new byte[] { (byte) 0xed, (byte) 0xab, (byte) 0xee, (byte) 0xdb, 3, 0 }, 
+                rpm);
+        assertEquals(FileFormat.RPM, sniffer.sniff(rpm));
+
+        File text = tempFolder.newFile("app.ear");
+        Files.write("not an archive", text, Charsets.UTF_8);
+        assertEquals(FileFormat.UNKNOWN, sniffer.sniff(text));
+        assertEquals(FileFormat.UNKNOWN, sniffer.sniff(tempFolder.newFile("empty")));
+        assertEquals(FileFormat.UNKNOWN, sniffer.sniff(tempFolder.newFolder("dir")));
+    }
+
+    @Test
+    public void cachesFormatsOfUnchangedFiles() throws IOException {
+        File file = zip("app.zip", "WEB-INF/");
+        assertEquals(FileFormat.WAR, sniffer.sniff(file));
+        assertEquals(FileFormat.WAR, sniffer.sniff(file));
+        assertEquals(1, sniffer.getMissCount());
+        assertEquals(1, sniffer.getHitCount());
+
+        Files.write("changed", file, Charsets.UTF_8);
+        assertEquals(FileFormat.UNKNOWN, sniffer.sniff(file));
+        assertEquals(2, sniffer.getMissCount());
+    }
+
+    @Test
+    public void formatsKnowTheirSpecialisations() {
+        assertTrue(FileFormat.WAR.isA(FileFormat.ZIP));
+        assertTrue(FileFormat.EAR.isA(FileFormat.JAR));
+        assertTrue(FileFormat.TAR_GZIP.isA(FileFormat.GZIP));
+        assertFalse(FileFormat.TAR_GZIP.isA(FileFormat.TAR));
+        assertFalse(FileFormat.ZIP.isA(FileFormat.JAR));
+    }
+
+    private File zip(String name, String... entryNames) throws IOException {
+        File zip = tempFolder.newFile(name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            for (String entryName : entryNames) {
+                out.putNextEntry(new ZipEntry(entryName));
+                if (!entryName.endsWith("/")) {
+                    out.write(entryName.getBytes(Charsets.UTF_8));
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+        return zip;
+    }
+
+    private static byte[] tarHeader() {
+        byte[] header = new byte[1024];
+        byte[] name = "app/".getBytes(Charsets.US_ASCII);
+        System.arraycopy(name, 0, header, 0, name.length);
+        byte[] magic = "ustar\u000000".getBytes(Charsets.US_ASCII);
+        System.arraycopy(magic, 0, header, 257, magic.length);
+        return header;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        OutputStream out = new GZIPOutputStream(gzipped);
+        out.write(bytes);
+        out.close();
+        return gzipped.toByteArray();
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * @(#)FusedAnalyzerTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link FusedAnalyzer}
+ */
+public class FusedAnalyzerTest {
+    private static final int CHUNK_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    // a small ring, so that the reader wraps around many times
+    private final FusedAnalyzer analyzer = new FusedAnalyzer(CHUNK_SIZE, 2);
+    private final ContentDigester digester = new ContentDigester(true);
+    private File file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = tempFolder.newFile("content.bin");
+        byte[] content = new byte[64 * CHUNK_SIZE + 17];
+        new Random(42).nextBytes(content);
+        Files.write(content, file);
+    }
+
+    @Test
+    public void passesWholeFileToEveryTask() throws IOException {
+        FusedAnalyzer.Task<ContentDigest> inline = FusedAnalyzer.inline(digester.newConsumer());
+        FusedAnalyzer.Task<ContentDigest> async = FusedAnalyzer.async(digester.newConsumer());
+        FusedAnalyzer.Task<ContentDigest> slow = 
+            FusedAnalyzer.async(new SlowConsumer(digester.newConsumer()));
+        FusedAnalyzer.Task<byte[]> stream = FusedAnalyzer.async(new StreamConsumer<byte[]>() {
+                @Override
+                public byte[] consume(InputStream in) throws IOException {
+                    return ByteStreams.toByteArray(in);
+                }
+            });
+        assertEquals(file.length(), analyzer.analyze(file, inline, async, slow, stream));
+
+        ContentDigest expected = digester.digest(file);
+        assertEquals(expected, inline.getResult());
+        assertEquals(expected, async.getResult());
+        assertEquals(expected, slow.getResult());
+        assertTrue(Arrays.equals(Files.toByteArray(file), stream.getResult()));
+    }
+
+    @Test
+    public void doesNotWaitForTasksThatStopEarly() throws IOException {
+        FusedAnalyzer.Task<Integer> firstByte = 
+            FusedAnalyzer.async(new StreamConsumer<Integer>() {
+                @Override
+                public Integer consume(InputStream in) throws IOException {
+                    return in.read();
+                }
+            });
+        FusedAnalyzer.Task<ContentDigest> digest = FusedAnalyzer.async(digester.newConsumer());
+        analyzer.analyze(file, firstByte, digest);
+        assertEquals(Files.toByteArray(file)[0] & 0xff, firstByte.getResult().intValue());
+        assertEquals(digester.digest(file), digest.getResult());
+    }
+
+    @Test
+    public void isolatesFailingTasks() throws IOException {
+        FusedAnalyzer.Task<Void> failing = FusedAnalyzer.async(new ChunkConsumer<Void>() {
+                private int chunks;
+
+                @Override
+                public void accept(ByteBuffer chunk) throws IOException {
+                    if (++chunks == 3) {
+                        throw new IOException("third chunk");
+                    }
+                }
+
+                @Override
+                public Void finish() {
+                    return null;
+                }
+            });
+        FusedAnalyzer.Task<ContentDigest> digest = FusedAnalyzer.inline(digester.newConsumer());
+        analyzer.analyze(file, failing, digest);
+        assertEquals(digester.digest(file), digest.getResult());
+        assertTrue(failing.isFailed());
+        try {
+            failing.getResult();
+            fail("Expected failure");
+        } catch (IOException exception) {
+            assertEquals("third chunk", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void failsAllTasksIfFileCannotBeRead() {
+        FusedAnalyzer.Task<ContentDigest> inline = FusedAnalyzer.inline(digester.newConsumer());
+        FusedAnalyzer.Task<ContentDigest> async = FusedAnalyzer.async(digester.newConsumer());
+        try {
+            analyzer.analyze(new File(tempFolder.getRoot(), "missing"), inline, async);
+            fail("Expected read failure");
+        } catch (IOException exception) {
+            // expected
+        }
+        assertTrue(inline.isFailed());
+        assertTrue(async.isFailed());
+    }
+
+    @Test
+    public void analysesEmptyFiles() throws IOException {
+        FusedAnalyzer.Task<ContentDigest> digest = FusedAnalyzer.async(digester.newConsumer());
+        File empty = tempFolder.newFile("empty");
+        assertEquals(0, analyzer.analyze(empty, digest));
+        assertFalse(digest.isFailed());
+        assertEquals(digester.digest(empty), digest.getResult());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runsTasksOnlyOnce() throws IOException {
+        FusedAnalyzer.Task<ContentDigest> digest = FusedAnalyzer.async(digester.newConsumer());
+        analyzer.analyze(file, digest);
+        analyzer.analyze(file, digest);
+    }
+
+    @Test
+    public void reusesThreadsAndRingsAcrossAnalyses() throws IOException {
+        FusedAnalyzer singleThreaded = new FusedAnalyzer(CHUNK_SIZE, 2, 1);
+        ContentDigest expected = digester.digest(file);
+        for (int i = 0; i < 3; i++) {
+            FusedAnalyzer.Task<ContentDigest> digest = 
+                FusedAnalyzer.async(digester.newConsumer());
+            singleThreaded.analyze(file, digest);
+            assertEquals(expected, digest.getResult());
+        }
+    }
+
+    @Test
+    public void boundsRingsOfInlineAnalyses() throws Exception {
+        final FusedAnalyzer singleRing = new FusedAnalyzer(CHUNK_SIZE, 2, 1, 1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final FusedAnalyzer.Task<Void> blocking = 
+            FusedAnalyzer.inline(new ChunkConsumer<Void>() {
+                @Override
+                public void accept(ByteBuffer chunk) throws IOException {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException exception) {
+                        throw new InterruptedIOException();
+                    }
+                }
+
+                @Override
+                public Void finish() {
+                    return null;
+                }
+            });
+        Thread first = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        singleRing.analyze(file, blocking);
+                    } catch (IOException exception) {
+                        throw new AssertionError(exception);
+                    }
+                }
+            };
+        first.start();
+        started.await();
+
+        final FusedAnalyzer.Task<ContentDigest> digest = 
+            FusedAnalyzer.inline(digester.newConsumer());
+        Thread second = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        singleRing.analyze(file, digest);
+                    } catch (IOException exception) {
+                        throw new AssertionError(exception);
+                    }
+                }
+            };
+        second.start();
+        // waits for the ring of the first analysis
+        second.join(200);
+        assertTrue(second.isAlive());
+
+        release.countDown();
+        first.join();
+        second.join();
+        assertEquals(digester.digest(file), digest.getResult());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMoreAsynchronousTasksThanThreads() throws IOException {
+        new FusedAnalyzer(CHUNK_SIZE, 2, 1).analyze(file, 
+                FusedAnalyzer.async(digester.newConsumer()), 
+                FusedAnalyzer.async(digester.newConsumer()));
+    }
+
+    private static class SlowConsumer implements ChunkConsumer<ContentDigest> {
+        private final ChunkConsumer<ContentDigest> consumer;
+
+        private SlowConsumer(ChunkConsumer<ContentDigest> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(ByteBuffer chunk) throws IOException {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            consumer.accept(chunk);
+        }
+
+        @Override
+        public ContentDigest finish() throws IOException {
+            return consumer.finish();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * @(#)ManifestNameVersionParserTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the {@link ManifestNameVersionParser}
+ */
+public class ManifestNameVersionParserTest {
+    private final ManifestNameVersionParser parser = new ManifestNameVersionParser();
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void usesImplementationTitleAndVersion() throws IOException {
+        NameAndVersion nameAndVersion = 
+            parser.parse(newArchive("name-1.0.ear", "title", "2.0"), "default");
+        assertEquals("title", nameAndVersion.name);
+        assertEquals("2.0", nameAndVersion.version);
+    }
+
+    @Test
+    public void fallsBackToFilenameForMissingAttributes() throws IOException {
+        NameAndVersion nameAndVersion = 
+            parser.parse(newArchive("name-v1.ear", null, "2.0"), "default");
+        assertEquals("name", nameAndVersion.name);
+        assertEquals("2.0", nameAndVersion.version);
+        nameAndVersion = parser.parse(newArchive("name.war", "title", null), "default");
+        assertEquals("title", nameAndVersion.name);
+        assertEquals("default", nameAndVersion.version);
+    }
+
+    @Test
+    public void fallsBackToFilenameWithoutManifest() throws IOException {
+        File archive = tempFolder.newFile("name-v1.jar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry("Main.class"));
+        } finally {
+            out.close();
+        }
+        NameAndVersion nameAndVersion = parser.parse(archive, "default");
+        assertEquals("name", nameAndVersion.name);
+        assertEquals("v1", nameAndVersion.version);
+    }
+
+    @Test
+    public void readsManifestFromStream() throws IOException {
+        FusedAnalyzer.Task<Manifest> manifestReader = 
+            FusedAnalyzer.async(ManifestNameVersionParser.newManifestReader());
+        new FusedAnalyzer().analyze(newArchive("name-v1.ear", "title", "2.0"), manifestReader);
+        NameAndVersion nameAndVersion = 
+            parser.parse("name-v1.ear", manifestReader.getResult(), "default");
+        assertEquals("title", nameAndVersion.name);
+        assertEquals("2.0", nameAndVersion.version);
+    }
+
+    private File newArchive(String name, String title, String version) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (title != null) {
+            attributes.put(Attributes.Name.IMPLEMENTATION_TITLE, title);
+        }
+        if (version != null) {
+            attributes.put(Attributes.Name.IMPLEMENTATION_VERSION, version);
+        }
+        File archive = tempFolder.newFile(name);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(archive), manifest);
+        try {
+            out.putNextEntry(new ZipEntry("Main.class"));
+            out.write(new byte[100]);
+        } finally {
+            out.close();
+        }
+        return archive;
+    }
+}
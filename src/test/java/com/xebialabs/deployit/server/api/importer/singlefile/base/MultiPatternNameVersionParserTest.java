@@ -0,0 +1,124 @@
+/*
+ * @(#)MultiPatternNameVersionParserTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.xebialabs.deployit.server.api.importer.singlefile.base.MultiPatternNameVersionParser.Classification;
+import com.xebialabs.deployit.server.api.importer.singlefile.base.MultiPatternNameVersionParser.Rule;
+
+/**
+ * Unit tests for the {@link MultiPatternNameVersionParser}
+ */
+public class MultiPatternNameVersionParserTest {
+    private static final Rule DASHED_EAR = new Rule("dashed-ear", "(\\w+)-([\\d.]+)\\.ear");
+    private static final Rule UNDERSCORED_WAR =
+        new Rule("underscored-war", "(\\w+?)_([\\d.]+(?:-SNAPSHOT)?)\\.war");
+    private static final Rule GROUPED = new Rule("grouped", "\\w+\\.(\\w+)-([\\d.]+)\\.\\w+");
+    private static final Rule NAME_ONLY = new Rule("name-only", "(\\w+)\\.\\w+");
+
+    private final MultiPatternNameVersionParser parser = new MultiPatternNameVersionParser(
+            DASHED_EAR, UNDERSCORED_WAR, GROUPED, NAME_ONLY);
+
+    @Test
+    public void reportsMatchingRule() {
+        assertClassification("dashed-ear", "app", "1.2.3", "app-1.2.3.ear");
+        assertClassification("underscored-war", "app", "1.2.3-SNAPSHOT",
+                "app_1.2.3-SNAPSHOT.war");
+        assertClassification("grouped", "app", "1.2", "group.app-1.2.ear");
+        assertClassification("name-only", "app", "default", "app.jar");
+    }
+
+    @Test
+    public void firstMatchingRuleWins() {
+        Rule anyEar = new Rule("any-ear", "(.+)\\.ear");
+        assertEquals("dashed-ear", new MultiPatternNameVersionParser(DASHED_EAR, anyEar)
+                .classify("app-1.2.ear", "default").ruleId);
+        Classification classification = new MultiPatternNameVersionParser(anyEar, DASHED_EAR)
+            .classify("app-1.2.ear", "default");
+        assertEquals("any-ear", classification.ruleId);
+        assertEquals("app-1.2", classification.nameAndVersion.name);
+        assertEquals("default", classification.nameAndVersion.version);
+    }
+
+    @Test
+    public void fallsBackToDefaultVersion() {
+        NameAndVersion nameAndVersion = parser.parse("no match", "1.1");
+        assertEquals("no match", nameAndVersion.name);
+        assertEquals("1.1", nameAndVersion.version);
+    }
+
+    @Test
+    public void derivesLiteralPrefixAndSuffix() {
+        assertEquals("", DASHED_EAR.getLiteralPrefix());
+        assertEquals(".ear", DASHED_EAR.getLiteralSuffix());
+        assertEquals("-SNAPSHOT.jar", new Rule("r", "(\\w+)-SNAPSHOT\\.jar$").getLiteralSuffix());
+        assertEquals("app-", new Rule("r", "^app-(\\d+)").getLiteralPrefix());
+        assertEquals("ap", new Rule("r", "app?-(\\d+)").getLiteralPrefix());
+        assertEquals("", new Rule("r", "(\\w+)\\.ea?").getLiteralSuffix());
+        assertEquals("\\", new Rule("r", "(\\w+)\\\\").getLiteralSuffix());
+    }
+
+    @Test
+    public void doesNotDeriveLiteralsIfTheyMayNotMatchExactly() {
+        Rule alternatives = new Rule("r", "(\\w+)\\.ear|(\\w+)\\.war");
+        assertEquals("", alternatives.getLiteralSuffix());
+        Rule caseInsensitive = new Rule("r", "(?i)app-(\\w+)\\.ear");
+        assertEquals("", caseInsensitive.getLiteralPrefix());
+        assertEquals("", caseInsensitive.getLiteralSuffix());
+        assertEquals("app", new MultiPatternNameVersionParser(caseInsensitive)
+                .parse("APP-app.EAR", "").name);
+    }
+
+    @Test
+    public void matchesSequentialEvaluation() {
+        Rule[] rules = { DASHED_EAR, UNDERSCORED_WAR, GROUPED, NAME_ONLY };
+        String[] filenames = { "app-1.2.3.ear", "app-1.2.3.war", "app_1.2.war", "a.b-1.zip",
+                "app.ear", "app", "app_x.war", "app-1.2.3-SNAPSHOT.ear", "g.a-1.ear" };
+        for (String filename : filenames) {
+            String expected = null;
+            for (Rule rule : rules) {
+                if (filename.matches(rule.nameVersionRegex)) {
+                    expected = rule.id;
+                    break;
+                }
+            }
+            Classification classification = parser.classify(filename, "");
+            assertEquals(filename, expected,
+                    ((classification != null) ? classification.ruleId : null));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBackReferences() {
+        new Rule("r", "(\\w+)-\\1\\.ear");
+    }
+
+    private void assertClassification(String ruleId, String name, String version,
+            String filename) {
+        Classification classification = parser.classify(filename, "default");
+        assertEquals(ruleId, classification.ruleId);
+        assertEquals(name, classification.nameAndVersion.name);
+        assertEquals(version, classification.nameAndVersion.version);
+    }
+}
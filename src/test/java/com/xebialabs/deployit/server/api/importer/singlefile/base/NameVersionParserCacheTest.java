@@ -0,0 +1,69 @@
+/*
+ * @(#)NameVersionParserCacheTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser;
+
+/**
+ * Unit tests for the {@link NameVersionParserCache}
+ */
+public class NameVersionParserCacheTest {
+    private final NameVersionParserCache cache = new NameVersionParserCache(2);
+
+    @Test
+    public void reusesParsers() {
+        NameVersionParser parser = cache.get("(\\w+) (\\w+)");
+        assertSame(parser, cache.get("(\\w+) (\\w+)"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedParser() {
+        NameVersionParser first = cache.get("(a)");
+        NameVersionParser second = cache.get("(b)");
+        cache.get("(a)");
+        cache.get("(c)");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(first, cache.get("(a)"));
+        assertNotSame(second, cache.get("(b)"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidRegex() {
+        cache.get(".+");
+    }
+
+    @Test
+    public void doesNotCacheInvalidRegex() {
+        try {
+            cache.get(".+");
+        } catch (IllegalArgumentException expected) {}
+        assertEquals(0, cache.size());
+    }
+}
@@ -20,8 +20,11 @@
  */
 package com.xebialabs.deployit.server.api.importer.singlefile.base;
 
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser.DEFAULT_NAME_VERSION_REGEX;
 import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.xebialabs.deployit.server.api.importer.singlefile.base.NameAndVersion.NameVersionParser;
@@ -78,4 +81,33 @@ public class NameVersionParserTest {
         assertEquals("name", nameAndVersion.name);
         assertEquals("1.1", nameAndVersion.version);        
     }
+    
+    @Test
+    public void defaultParserMatchesDefaultRegex() {
+        NameVersionParser defaultParser = new NameVersionParser();
+        NameVersionParser regexParser = new NameVersionParser(DEFAULT_NAME_VERSION_REGEX);
+        // characters that are significant to the default pattern, and some that are not
+        char[] alphabet = "aZ09-._ \n\u00e9\ud83d".toCharArray();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            char[] filename = new char[random.nextInt(12)];
+            for (int j = 0; j < filename.length; j++) {
+                filename[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertSameResult(defaultParser, regexParser, new String(filename));
+        }
+        for (String filename : new String[] { "name-1.0.ear", "name-1-SNAPSHOT.war", "name.ear",
+                "name-.ear", "name-1.0", "name.", ".ear", "-1.ear", "name--1.ear", "name-1.e_r",
+                "na me-1.ear", "name-1 .ear", "name-1\n.ear", "" }) {
+            assertSameResult(defaultParser, regexParser, filename);
+        }
+    }
+    
+    private static void assertSameResult(NameVersionParser defaultParser, 
+            NameVersionParser regexParser, String filename) {
+        NameAndVersion expected = regexParser.parse(filename, "default");
+        NameAndVersion actual = defaultParser.parse(filename, "default");
+        assertEquals(filename, expected.name, actual.name);
+        assertEquals(filename, expected.version, actual.version);
+    }
 }
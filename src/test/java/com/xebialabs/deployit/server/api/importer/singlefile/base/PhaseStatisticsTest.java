@@ -0,0 +1,111 @@
+/*
+ * @(#)PhaseStatisticsTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link PhaseStatistics}
+ */
+public class PhaseStatisticsTest {
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final PhaseStatistics statistics = new PhaseStatistics();
+
+    @Test
+    public void recordsCountsErrorsAndBytes() {
+        statistics.record(2 * MILLI, 1000, false);
+        statistics.record(4 * MILLI, 3000, true);
+        assertEquals(2, statistics.getCount());
+        assertEquals(1, statistics.getErrorCount());
+        assertEquals(4000, statistics.getTotalBytes());
+        assertEquals(3.0, statistics.getMeanMillis(), 0.001);
+        assertEquals(4.0, statistics.getMaxMillis(), 0.001);
+        // 4000 bytes in 6ms
+        assertEquals(4000 / 0.006, statistics.getThroughputBytesPerSecond(), 1);
+    }
+
+    @Test
+    public void estimatesPercentilesWithinBucketResolution() {
+        for (int i = 1; i <= 100; i++) {
+            statistics.record(i * MILLI, 0, false);
+        }
+        assertWithinBucket(50, statistics.getMedianMillis());
+        assertWithinBucket(95, statistics.get95thPercentileMillis());
+        assertWithinBucket(99, statistics.get99thPercentileMillis());
+        assertWithinBucket(100, statistics.getPercentileMillis(100));
+    }
+
+    @Test
+    public void bucketsCoverAllValues() {
+        long[] values = { 0, 1, 7, 8, 9, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value + " below bucket", LatencyHistogram.lowerBound(index) <= value);
+            assertTrue(value + " above bucket", LatencyHistogram.upperBound(index) >= value);
+        }
+        assertEquals(LatencyHistogram.upperBound(LatencyHistogram.bucketIndex(8)) + 1, 
+                LatencyHistogram.lowerBound(LatencyHistogram.bucketIndex(8) + 1));
+    }
+
+    @Test
+    public void recordsConcurrently() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        statistics.record(j, 1, false);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, statistics.getCount());
+        assertEquals(40000, statistics.getTotalBytes());
+    }
+
+    @Test
+    public void resetsEverything() {
+        statistics.record(MILLI, 10, true);
+        statistics.reset();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getErrorCount());
+        assertEquals(0, statistics.getTotalBytes());
+        assertEquals(0.0, statistics.getMaxMillis(), 0);
+        assertEquals(0.0, statistics.getMedianMillis(), 0);
+    }
+
+    private static void assertWithinBucket(double expectedMillis, double actualMillis) {
+        assertTrue(actualMillis + " < " + expectedMillis, actualMillis >= expectedMillis);
+        assertTrue(actualMillis + " > " + expectedMillis, 
+                actualMillis <= expectedMillis * 1.125);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * @(#)TarIndexTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicates;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link TarIndex}
+ */
+public class TarIndexTest {
+    private static final byte[] CONTENT = "name=app\nversion=2.0\n".getBytes(Charsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void indexesEntries() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "./dir/", '5', 0755, new byte[0]);
+        writeEntry(tar, "./dir/package.properties", '0', 0644, CONTENT);
+        writeEntry(tar, "./dir/large.bin", '0', 0600, new byte[1000]);
+        writeEnd(tar);
+
+        TarIndex index = TarIndex.build(new ByteArrayInputStream(tar.toByteArray()),
+                Predicates.<String>alwaysFalse());
+        assertEquals(3, index.getEntries().size());
+        TarIndex.Entry directory = index.find("dir/");
+        assertTrue(directory.isDirectory());
+        assertEquals(0755, directory.mode);
+        TarIndex.Entry properties = index.find("./dir/package.properties");
+        assertTrue(properties.isFile());
+        assertEquals(0644, properties.mode);
+        assertEquals(CONTENT.length, properties.size);
+        assertEquals(1024, properties.offset);
+        TarIndex.Entry large = index.find("dir/large.bin");
+        assertEquals(1000, large.size);
+        assertEquals(2048, large.offset);
+        assertNull(index.find("missing"));
+    }
+
+    @Test
+    public void capturesSelectedEntries() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "other", '0', 0644, new byte[] { 1 });
+        writeEntry(tar, "package.properties", '0', 0644, CONTENT);
+        writeEnd(tar);
+
+        TarIndex index = TarIndex.build(new ByteArrayInputStream(tar.toByteArray()),
+                Predicates.equalTo("package.properties"));
+        assertArrayEquals(CONTENT, index.getCapturedContent("package.properties"));
+        assertFalse(index.isCaptured("other"));
+        assertNull(index.getCapturedContent("other"));
+    }
+
+    @Test
+    public void supportsLongNames() throws IOException {
+        String gnuName = repeat('g', 150) + "/package.properties";
+        String paxName = repeat('p', 150) + "/package.properties";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "././@LongLink", 'L', 0644, (gnuName + '\0').getBytes(Charsets.UTF_8));
+        writeEntry(tar, "truncated", '0', 0644, CONTENT);
+        String record = " path=" + paxName + "\n";
+        int length = record.length() + 3;
+        writeEntry(tar, "PaxHeaders/x", 'x', 0644,
+                (length + record).getBytes(Charsets.UTF_8));
+        writeEntry(tar, "truncated", '0', 0644, CONTENT);
+        writeEnd(tar);
+
+        TarIndex index = TarIndex.build(new ByteArrayInputStream(tar.toByteArray()),
+                Predicates.<String>alwaysFalse());
+        assertEquals(2, index.getEntries().size());
+        assertEquals(gnuName, index.getEntries().get(0).name);
+        assertEquals(paxName, index.getEntries().get(1).name);
+        assertNull(index.find("truncated"));
+    }
+
+    @Test
+    public void readsEntriesAtTheirOffset() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "first", '0', 0644, new byte[700]);
+        writeEntry(tar, "package.properties", '0', 0644, CONTENT);
+        writeEnd(tar);
+        File archive = tempFolder.newFile("app.tar");
+        Files.write(tar.toByteArray(), archive);
+
+        TarIndex index = TarIndex.build(new ByteArrayInputStream(tar.toByteArray()),
+                Predicates.<String>alwaysFalse());
+        RandomAccessFile file = new RandomAccessFile(archive, "r");
+        try {
+            assertArrayEquals(CONTENT, TarIndex.read(file.getChannel(),
+                    index.find("package.properties"), 1024));
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void roundTrips() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "dir/", '5', 0755, new byte[0]);
+        writeEntry(tar, "package.properties", '0', 0644, CONTENT);
+        writeEnd(tar);
+        TarIndex index = TarIndex.build(new ByteArrayInputStream(tar.toByteArray()),
+                Predicates.equalTo("package.properties"));
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(serialized));
+        TarIndex read = TarIndex.readFrom(new DataInputStream(
+                new ByteArrayInputStream(serialized.toByteArray())));
+        assertEquals(index.getEntries().toString(), read.getEntries().toString());
+        assertArrayEquals(CONTENT, read.getCapturedContent("package.properties"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidChecksums() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "package.properties", '0', 0644, CONTENT);
+        writeEnd(tar);
+        byte[] corrupt = tar.toByteArray();
+        corrupt[0] = 'P';
+        TarIndex.build(new ByteArrayInputStream(corrupt), Predicates.<String>alwaysFalse());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedArchives() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        writeEntry(tar, "package.properties", '0', 0644, new byte[2000]);
+        byte[] truncated = Arrays.copyOf(tar.toByteArray(), 1024);
+        TarIndex.build(new ByteArrayInputStream(truncated), Predicates.<String>alwaysFalse());
+    }
+
+    /**
+     * Writes a ustar entry, padded to a whole number of blocks.
+     */
+    public static void writeEntry(ByteArrayOutputStream tar, String name, char type,
+            int mode, byte[] content) {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, String.format("%07o", mode));
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", content.length));
+        put(header, 136, "00000000000");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += (b & 0xff);
+        }
+        put(header, 148, String.format("%06o", checksum));
+        header[154] = 0;
+        tar.write(header, 0, header.length);
+        tar.write(content, 0, content.length);
+        int padding = (512 - content.length % 512) % 512;
+        tar.write(new byte[padding], 0, padding);
+    }
+
+    public static void writeEnd(ByteArrayOutputStream tar) {
+        tar.write(new byte[1024], 0, 1024);
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+        System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, 100));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
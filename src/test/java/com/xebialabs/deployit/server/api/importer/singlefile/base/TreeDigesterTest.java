@@ -0,0 +1,122 @@
+/*
+ * @(#)TreeDigesterTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.SHA_256;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.SHA_256_TREE;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigest.toHex;
+import static com.xebialabs.deployit.server.api.importer.singlefile.base.ContentDigester.newMessageDigest;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link TreeDigester}
+ */
+public class TreeDigesterTest {
+    private static final int CHUNK_SIZE = 1000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void digestsSmallFilesSequentially() throws IOException {
+        File file = newFile(2500);
+        ContentDigest digest = new TreeDigester(pool, CHUNK_SIZE, 10000).digest(file);
+        assertEquals(SHA_256, digest.getAlgorithm());
+        assertEquals(new ContentDigester().digest(file), digest);
+    }
+
+    @Test
+    public void combinesChunkDigestsIntoTree() throws IOException {
+        byte[] content = new byte[2500];
+        new Random(42).nextBytes(content);
+        File file = tempFolder.newFile("artifact.ear");
+        Files.write(content, file);
+
+        byte[] expected = node(node(leaf(content, 0, 1000), leaf(content, 1000, 2000)),
+                leaf(content, 2000, 2500));
+        ContentDigest digest = new TreeDigester(pool, CHUNK_SIZE, 0).digest(file);
+        assertEquals(SHA_256_TREE, digest.getAlgorithm());
+        assertEquals(2500, digest.size);
+        assertEquals(toHex(expected), digest.getValue());
+    }
+
+    @Test
+    public void isIndependentOfParallelism() throws IOException {
+        File file = newFile(37 * CHUNK_SIZE + 11);
+        ForkJoinPool singleThreaded = new ForkJoinPool(1);
+        try {
+            assertEquals(new TreeDigester(singleThreaded, CHUNK_SIZE, 0).digest(file),
+                    new TreeDigester(pool, CHUNK_SIZE, 0).digest(file));
+        } finally {
+            singleThreaded.shutdown();
+        }
+    }
+
+    @Test
+    public void handlesEmptyFiles() throws IOException {
+        ContentDigest digest = new TreeDigester(pool, CHUNK_SIZE, 0).digest(newFile(0));
+        assertEquals(toHex(leaf(new byte[0], 0, 0)), digest.getValue());
+    }
+
+    private File newFile(int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        File file = tempFolder.newFile("artifact.ear");
+        Files.write(content, file);
+        return file;
+    }
+
+    private static byte[] leaf(byte[] content, int from, int to) {
+        MessageDigest leaf = newMessageDigest(SHA_256);
+        leaf.update((byte) 0);
+        leaf.update(Arrays.copyOfRange(content, from, to));
+        return leaf.digest();
+    }
+
+    private static byte[] node(byte[] left, byte[] right) {
+        MessageDigest node = newMessageDigest(SHA_256);
+        node.update((byte) 1);
+        node.update(left);
+        node.update(right);
+        return node.digest();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * @(#)VersionKeyTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Unit tests for the {@link VersionKey}
+ */
+public class VersionKeyTest {
+
+    @Test
+    public void ordersVersions() {
+        List<String> ordered = ImmutableList.of("0.9", "1.0-alpha-1", "1.0-a2", "1.0-beta", 
+                "1.0-M1", "1.0-RC1", "1.0-rc2", "1.0-SNAPSHOT", "1.0", "1.0-sp1", "1.0-xyz", 
+                "1.0.1", "1.2", "1.10", "1.10.1-SNAPSHOT", "1.10.1", "2", "10.0");
+        List<String> shuffled = Lists.newArrayList(ordered);
+        Collections.shuffle(shuffled);
+        List<VersionKey> keys = Lists.newArrayList();
+        for (String version : shuffled) {
+            keys.add(VersionKey.of(version));
+        }
+        Collections.sort(keys);
+        assertEquals(ordered.toString(), keys.toString());
+    }
+
+    @Test
+    public void treatsMissingTokensAsZeroOrRelease() {
+        assertEquivalent("1", "1.0.0");
+        assertEquivalent("1.0", "1.0-final");
+        assertEquivalent("1.0", "1-GA");
+        assertEquivalent("1.0-RC-1", "1.0rc1");
+        assertTrue(VersionKey.of("1.0-SNAPSHOT").compareTo(VersionKey.of("1.0.0")) < 0);
+        assertTrue(VersionKey.of("1.0.0.1").compareTo(VersionKey.of("1.0")) > 0);
+    }
+
+    @Test
+    public void ordersUnknownQualifiersAlphabetically() {
+        assertTrue(VersionKey.of("1.0-bar").compareTo(VersionKey.of("1.0-foo")) < 0);
+        assertTrue(VersionKey.of("1.0-foo").compareTo(VersionKey.of("1.0.1")) < 0);
+    }
+
+    private static void assertEquivalent(String version1, String version2) {
+        VersionKey key1 = VersionKey.of(version1);
+        VersionKey key2 = VersionKey.of(version2);
+        assertEquals(0, key1.compareTo(key2));
+        assertEquals(key1, key2);
+        assertEquals(key1.hashCode(), key2.hashCode());
+    }
+}
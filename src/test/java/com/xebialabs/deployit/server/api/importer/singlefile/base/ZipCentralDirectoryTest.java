@@ -0,0 +1,271 @@
+/*
+ * @(#)ZipCentralDirectoryTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link ZipCentralDirectory}
+ */
+public class ZipCentralDirectoryTest {
+    private static final byte[] CONTENT =
+        "Lorem ipsum dolor sit amet, lorem ipsum dolor sit amet".getBytes(Charsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void readsDeflatedAndStoredEntries() throws IOException {
+        File archive = tempFolder.newFile("archive.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry("dir/"));
+            out.putNextEntry(new ZipEntry("deflated.txt"));
+            out.write(CONTENT);
+            out.putNextEntry(storedEntry("stored.txt", CONTENT));
+            out.write(CONTENT);
+            out.setComment("a comment");
+        } finally {
+            out.close();
+        }
+
+        FileChannel channel = FileChannel.open(archive.toPath(), READ);
+        try {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            assertEquals(3, centralDirectory.getEntryCount());
+            List<ZipCentralDirectory.Entry> entries = centralDirectory.getEntries();
+            assertEquals("dir/", entries.get(0).name);
+            assertEquals(true, entries.get(0).isDirectory());
+
+            ZipCentralDirectory.Entry deflated = centralDirectory.find("deflated.txt");
+            assertEquals(ZipCentralDirectory.DEFLATED, deflated.method);
+            assertArrayEquals(CONTENT, centralDirectory.read(deflated, 1024));
+            ZipCentralDirectory.Entry stored = centralDirectory.find("STORED.TXT");
+            assertEquals("stored.txt", stored.name);
+            assertEquals(ZipCentralDirectory.STORED, stored.method);
+            assertArrayEquals(CONTENT, centralDirectory.read(stored, 1024));
+            assertNull(centralDirectory.find("missing.txt"));
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void readsZip64Archives() throws IOException {
+        // more entries than fit in the end of central directory record
+        int entryCount = 0x10000 + 10;
+        File archive = tempFolder.newFile("archive.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (int i = 0; i < entryCount; i++) {
+                out.putNextEntry(new ZipEntry("entry-" + i));
+            }
+            out.putNextEntry(new ZipEntry("last.txt"));
+            out.write(CONTENT);
+        } finally {
+            out.close();
+        }
+
+        FileChannel channel = FileChannel.open(archive.toPath(), READ);
+        try {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            assertEquals(entryCount + 1, centralDirectory.getEntryCount());
+            ZipCentralDirectory.Entry last = centralDirectory.find("last.txt");
+            assertNotNull(last);
+            assertArrayEquals(CONTENT, centralDirectory.read(last, 1024));
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsNonZipFiles() throws IOException {
+        File file = tempFolder.newFile("archive.zip");
+        Files.write(new byte[1024], file);
+        FileChannel channel = FileChannel.open(file.toPath(), READ);
+        try {
+            ZipCentralDirectory.locate(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void detectsCorruptEntries() throws IOException {
+        File archive = tempFolder.newFile("archive.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(storedEntry("stored.txt", CONTENT));
+            out.write(CONTENT);
+        } finally {
+            out.close();
+        }
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+        try {
+            // inside the data of the first entry
+            file.seek(30 + "stored.txt".length() + 1);
+            file.write('X');
+        } finally {
+            file.close();
+        }
+
+        FileChannel channel = FileChannel.open(archive.toPath(), READ);
+        try {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            centralDirectory.read(centralDirectory.find("stored.txt"), 1024);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test
+    public void decodesNamesAccordingToTheirEncodingFlag() throws IOException {
+        File archive = tempFolder.newFile("archive.zip");
+        // the language encoding flag is only set for UTF-8
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive),
+                Charset.forName("IBM437"));
+        try {
+            out.putNextEntry(new ZipEntry("caf\u00e9.txt"));
+            out.write(CONTENT);
+        } finally {
+            out.close();
+        }
+
+        FileChannel channel = FileChannel.open(archive.toPath(), READ);
+        try {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            assertEquals("caf\u00e9.txt", centralDirectory.getEntries().get(0).name);
+            assertNotNull(centralDirectory.find("CAF\u00e9.txt"));
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsInvalidZip64LocatorOffsets() throws IOException {
+        File archive = tempFolder.newFile("archive.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry("entry.txt"));
+            out.write(CONTENT);
+        } finally {
+            out.close();
+        }
+        byte[] bytes = Files.toByteArray(archive);
+        ByteBuffer locator = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+        locator.putInt(0x07064b50).putInt(0).putLong(-1).putInt(1);
+        // inserted right before the end of central directory record
+        int eocd = bytes.length - 22;
+        ByteArrayOutputStream patched = new ByteArrayOutputStream();
+        patched.write(bytes, 0, eocd);
+        patched.write(locator.array());
+        patched.write(bytes, eocd, 22);
+        Files.write(patched.toByteArray(), archive);
+
+        FileChannel channel = FileChannel.open(archive.toPath(), READ);
+        try {
+            ZipCentralDirectory.locate(channel);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsTruncatedZip64ExtraFields() throws IOException {
+        File archive = tempFolder.newFile("archive.zip");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            ZipEntry entry = storedEntry("stored.txt", CONTENT);
+            // a placeholder ID, replaced by the ZIP64 ID below
+            entry.setExtra(new byte[] { (byte) 0xfe, (byte) 0xca, 4, 0, 1, 2, 3, 4 });
+            out.putNextEntry(entry);
+            out.write(CONTENT);
+        } finally {
+            out.close();
+        }
+        byte[] bytes = Files.toByteArray(archive);
+        int header = indexOf(bytes, new byte[] { 'P', 'K', 1, 2 });
+        // the uncompressed size is in the ZIP64 field, which is too short for it
+        for (int i = 0; i < 4; i++) {
+            bytes[header + 24 + i] = (byte) 0xff;
+        }
+        int extra = header + 46 + "stored.txt".length();
+        bytes[extra] = 1;
+        bytes[extra + 1] = 0;
+        Files.write(bytes, archive);
+
+        FileChannel channel = FileChannel.open(archive.toPath(), READ);
+        try {
+            ZipCentralDirectory.locate(channel).getEntries();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i + target.length <= bytes.length; i++) {
+            int matched = 0;
+            while ((matched < target.length) && (bytes[i + matched] == target[matched])) {
+                matched++;
+            }
+            if (matched == target.length) {
+                return i;
+            }
+        }
+        throw new AssertionError("not found");
+    }
+
+    private static ZipEntry storedEntry(String name, byte[] content) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * @(#)ZipIntegrityVerifierTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for the {@link ZipIntegrityVerifier}
+ */
+public class ZipIntegrityVerifierTest {
+    private static final int ENTRY_COUNT = 8;
+    // spans several buffers
+    private static final int ENTRY_SIZE = 3 * ZipIntegrityVerifier.BUFFER_SIZE + 17;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ForkJoinPool pool;
+    private ZipIntegrityVerifier verifier;
+    private File archive;
+
+    @Before
+    public void createArchive() throws IOException {
+        pool = new ForkJoinPool(2);
+        verifier = new ZipIntegrityVerifier(pool);
+        archive = tempFolder.newFile("archive.ear");
+        Random random = new Random(42);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            out.putNextEntry(new ZipEntry("empty/"));
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                byte[] content = new byte[ENTRY_SIZE];
+                // half random, half compressible
+                random.nextBytes(content);
+                Arrays.fill(content, ENTRY_SIZE / 2, ENTRY_SIZE, (byte) i);
+                if (i % 2 == 0) {
+                    out.putNextEntry(new ZipEntry("deflated-" + i));
+                } else {
+                    out.putNextEntry(storedEntry("stored-" + i, content));
+                }
+                out.write(content);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void acceptsValidArchives() throws IOException {
+        verifier.verify(archive);
+    }
+
+    @Test
+    public void reportsCorruptDeflatedEntries() throws IOException {
+        assertCorrupt("deflated-4");
+    }
+
+    @Test
+    public void reportsCorruptStoredEntries() throws IOException {
+        assertCorrupt("stored-5");
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsTruncatedArchives() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+        try {
+            file.setLength(file.length() / 2);
+        } finally {
+            file.close();
+        }
+        verifier.verify(archive);
+    }
+
+    private void assertCorrupt(String entryName) throws IOException {
+        FileChannel channel = FileChannel.open(archive.toPath());
+        long dataOffset;
+        try {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            dataOffset = centralDirectory.getDataOffset(centralDirectory.find(entryName));
+        } finally {
+            channel.close();
+        }
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+        try {
+            file.seek(dataOffset + 10);
+            int b = file.read();
+            file.seek(dataOffset + 10);
+            file.write(b ^ 0xff);
+        } finally {
+            file.close();
+        }
+
+        try {
+            verifier.verify(archive);
+            fail("Expected corrupt entry " + entryName);
+        } catch (CorruptArchiveException exception) {
+            assertEquals(entryName, exception.getEntryName());
+        }
+    }
+
+    private static ZipEntry storedEntry(String name, byte[] content) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setCrc(crc.getValue());
+        return entry;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * @(#)ZipStreamVerifierTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.xebialabs.deployit.server.api.importer.singlefile.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * Unit tests for the {@link ZipStreamVerifier}
+ */
+public class ZipStreamVerifierTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File archive;
+
+    @Before
+    public void createArchive() throws IOException {
+        archive = tempFolder.newFile("archive.ear");
+        Random random = new Random(42);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+        try {
+            for (int i = 0; i < 4; i++) {
+                byte[] content = new byte[100000];
+                random.nextBytes(content);
+                out.putNextEntry(new ZipEntry("entry-" + i));
+                out.write(content);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void countsEntriesOfValidArchives() throws IOException {
+        assertEquals(4, verify(archive).intValue());
+    }
+
+    @Test
+    public void reportsCorruptEntries() throws IOException {
+        FileChannel channel = FileChannel.open(archive.toPath());
+        long dataOffset;
+        try {
+            ZipCentralDirectory centralDirectory = ZipCentralDirectory.locate(channel);
+            dataOffset = centralDirectory.getDataOffset(centralDirectory.find("entry-2"));
+        } finally {
+            channel.close();
+        }
+        RandomAccessFile file = new RandomAccessFile(archive, "rw");
+        try {
+            file.seek(dataOffset + 1000);
+            int b = file.read();
+            file.seek(dataOffset + 1000);
+            file.write(b ^ 0xff);
+        } finally {
+            file.close();
+        }
+
+        try {
+            verify(archive);
+            fail("Expected corrupt entry");
+        } catch (CorruptArchiveException exception) {
+            assertEquals("entry-2", exception.getEntryName());
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void rejectsFilesThatAreNotArchives() throws IOException {
+        File text = tempFolder.newFile("text.ear");
+        Files.write("not an archive", text, Charsets.UTF_8);
+        verify(text);
+    }
+
+    private static Integer verify(File file) throws IOException {
+        FusedAnalyzer.Task<Integer> verifier = FusedAnalyzer.async(new ZipStreamVerifier());
+        new FusedAnalyzer(8192, 4).analyze(file, verifier);
+        return verifier.getResult();
+    }
+}